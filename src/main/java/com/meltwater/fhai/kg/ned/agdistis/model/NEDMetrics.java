@@ -32,6 +32,9 @@ import org.apache.commons.io.IOUtils;
 public class NEDMetrics {
   private long candidateSelectionTime;
   private long disambiguationTime;
+  private int scoringIterations;
+  private int neighbourhoodCacheHits;
+  private int neighbourhoodCacheMisses;
 
   /**
    * @return the candidateSelectionTime
@@ -61,6 +64,48 @@ public class NEDMetrics {
     this.disambiguationTime = disambiguationTime;
   }
 
+  /**
+   * @return the number of HITS or PageRank iterations run on the disambiguation graph
+   */
+  public int getScoringIterations() {
+    return scoringIterations;
+  }
+
+  /**
+   * @param scoringIterations the scoringIterations to set
+   */
+  public void setScoringIterations(final int scoringIterations) {
+    this.scoringIterations = scoringIterations;
+  }
+
+  /**
+   * @return the number of entities whose outgoing edges the graph expansion found in the neighbourhood cache
+   */
+  public int getNeighbourhoodCacheHits() {
+    return neighbourhoodCacheHits;
+  }
+
+  /**
+   * @param neighbourhoodCacheHits the neighbourhoodCacheHits to set
+   */
+  public void setNeighbourhoodCacheHits(final int neighbourhoodCacheHits) {
+    this.neighbourhoodCacheHits = neighbourhoodCacheHits;
+  }
+
+  /**
+   * @return the number of entities whose outgoing edges the graph expansion looked up in the index
+   */
+  public int getNeighbourhoodCacheMisses() {
+    return neighbourhoodCacheMisses;
+  }
+
+  /**
+   * @param neighbourhoodCacheMisses the neighbourhoodCacheMisses to set
+   */
+  public void setNeighbourhoodCacheMisses(final int neighbourhoodCacheMisses) {
+    this.neighbourhoodCacheMisses = neighbourhoodCacheMisses;
+  }
+
   /*
    * (non-Javadoc)
    *
@@ -72,6 +117,9 @@ public class NEDMetrics {
     int result = 1;
     result = (prime * result) + (int) (candidateSelectionTime ^ (candidateSelectionTime >>> 32));
     result = (prime * result) + (int) (disambiguationTime ^ (disambiguationTime >>> 32));
+    result = (prime * result) + scoringIterations;
+    result = (prime * result) + neighbourhoodCacheHits;
+    result = (prime * result) + neighbourhoodCacheMisses;
     return result;
   }
 
@@ -98,6 +146,15 @@ public class NEDMetrics {
     if (disambiguationTime != other.disambiguationTime) {
       return false;
     }
+    if (scoringIterations != other.scoringIterations) {
+      return false;
+    }
+    if (neighbourhoodCacheHits != other.neighbourhoodCacheHits) {
+      return false;
+    }
+    if (neighbourhoodCacheMisses != other.neighbourhoodCacheMisses) {
+      return false;
+    }
     return true;
   }
 
@@ -119,6 +176,15 @@ public class NEDMetrics {
     builder.append(getDisambiguationTime());
     builder.append("msec");
     builder.append(IOUtils.LINE_SEPARATOR);
+    builder.append("Scoring Iterations: ");
+    builder.append(getScoringIterations());
+    builder.append(IOUtils.LINE_SEPARATOR);
+    builder.append("Neighbourhood Cache Hits: ");
+    builder.append(getNeighbourhoodCacheHits());
+    builder.append(IOUtils.LINE_SEPARATOR);
+    builder.append("Neighbourhood Cache Misses: ");
+    builder.append(getNeighbourhoodCacheMisses());
+    builder.append(IOUtils.LINE_SEPARATOR);
     builder.append("]");
     return builder.toString();
   }
@@ -64,6 +64,31 @@ public class AGDISTISConfiguration {
     setCorporationAffixesPath(Paths.get("/config/corporationAffixes.txt"));
     setUsePopularity(false);
     setAlgorithm(Algorithm.HITS);
+    setLabelTokenMatches(false);
+    setUriOverflowWarningSize(1000000);
+    setNormalizedLabelCacheSize(50000);
+    setNegativeCandidateCacheSize(10000);
+    setNegativeCandidateCacheExpiry(30);
+    setCandidateThreads(0);
+    setUnambiguousFastPath(false);
+    setUnambiguousPriorRatio(0);
+    setMaxCandidatesPerMention(0);
+    setNeighbourhoodCacheSize(1000000);
+    setNeighbourhoodCacheWarmUp(0);
+    setExpansionMode(ExpansionMode.BREADTH_FIRST);
+    setActivationDecay(0.5);
+    setActivationThreshold(0.05);
+    setBfsMaxOutgoing(100);
+    setBfsMaxNodes(0);
+    setBfsMaxEdges(0);
+    setHubDegreeThreshold(0);
+    setBfsThreads(0);
+    setPersonalizedPageRankEpsilon(1e-5);
+    setHitsMaxIterations(20);
+    setHitsTolerance(1e-6);
+    setRelatednessMode(RelatednessMode.EXACT);
+    setRelatednessSketchError(0.1);
+    setRelatednessSketchThreshold(5000);
     setUseContext(false);
     setUseAcronym(true);
     setUseSurfaceForms(false);
@@ -163,6 +188,106 @@ public class AGDISTISConfiguration {
       if (prop.containsKey(ConfigProperty.ALGORITHM.getPropertyName())) {
         setAlgorithm(Algorithm.valueOf(prop.getProperty(ConfigProperty.ALGORITHM.getPropertyName())));
       }
+      if (prop.containsKey(ConfigProperty.LABEL_TOKEN_MATCHES.getPropertyName())) {
+        setLabelTokenMatches(
+            Boolean.parseBoolean(prop.getProperty(ConfigProperty.LABEL_TOKEN_MATCHES.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.URI_OVERFLOW_WARNING_SIZE.getPropertyName())) {
+        setUriOverflowWarningSize(
+            Integer.parseInt(prop.getProperty(ConfigProperty.URI_OVERFLOW_WARNING_SIZE.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.NORMALIZED_LABEL_CACHE_SIZE.getPropertyName())) {
+        setNormalizedLabelCacheSize(
+            Integer.parseInt(prop.getProperty(ConfigProperty.NORMALIZED_LABEL_CACHE_SIZE.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.NEGATIVE_CANDIDATE_CACHE_SIZE.getPropertyName())) {
+        setNegativeCandidateCacheSize(
+            Integer.parseInt(prop.getProperty(ConfigProperty.NEGATIVE_CANDIDATE_CACHE_SIZE.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.NEGATIVE_CANDIDATE_CACHE_EXPIRY.getPropertyName())) {
+        setNegativeCandidateCacheExpiry(
+            Integer.parseInt(prop.getProperty(ConfigProperty.NEGATIVE_CANDIDATE_CACHE_EXPIRY.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.CANDIDATE_THREADS.getPropertyName())) {
+        setCandidateThreads(
+            Integer.parseInt(prop.getProperty(ConfigProperty.CANDIDATE_THREADS.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.UNAMBIGUOUS_FAST_PATH.getPropertyName())) {
+        setUnambiguousFastPath(
+            Boolean.parseBoolean(prop.getProperty(ConfigProperty.UNAMBIGUOUS_FAST_PATH.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.UNAMBIGUOUS_PRIOR_RATIO.getPropertyName())) {
+        setUnambiguousPriorRatio(
+            Double.parseDouble(prop.getProperty(ConfigProperty.UNAMBIGUOUS_PRIOR_RATIO.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.MAX_CANDIDATES_PER_MENTION.getPropertyName())) {
+        setMaxCandidatesPerMention(
+            Integer.parseInt(prop.getProperty(ConfigProperty.MAX_CANDIDATES_PER_MENTION.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.NEIGHBOURHOOD_CACHE_SIZE.getPropertyName())) {
+        setNeighbourhoodCacheSize(
+            Integer.parseInt(prop.getProperty(ConfigProperty.NEIGHBOURHOOD_CACHE_SIZE.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.NEIGHBOURHOOD_CACHE_WARM_UP.getPropertyName())) {
+        setNeighbourhoodCacheWarmUp(
+            Integer.parseInt(prop.getProperty(ConfigProperty.NEIGHBOURHOOD_CACHE_WARM_UP.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.EXPANSION_MODE.getPropertyName())) {
+        setExpansionMode(
+            ExpansionMode.valueOf(prop.getProperty(ConfigProperty.EXPANSION_MODE.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.ACTIVATION_DECAY.getPropertyName())) {
+        setActivationDecay(
+            Double.parseDouble(prop.getProperty(ConfigProperty.ACTIVATION_DECAY.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.ACTIVATION_THRESHOLD.getPropertyName())) {
+        setActivationThreshold(
+            Double.parseDouble(prop.getProperty(ConfigProperty.ACTIVATION_THRESHOLD.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.BFS_MAX_OUTGOING.getPropertyName())) {
+        setBfsMaxOutgoing(
+            Integer.parseInt(prop.getProperty(ConfigProperty.BFS_MAX_OUTGOING.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.BFS_MAX_NODES.getPropertyName())) {
+        setBfsMaxNodes(
+            Integer.parseInt(prop.getProperty(ConfigProperty.BFS_MAX_NODES.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.BFS_MAX_EDGES.getPropertyName())) {
+        setBfsMaxEdges(
+            Integer.parseInt(prop.getProperty(ConfigProperty.BFS_MAX_EDGES.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.HUB_DEGREE_THRESHOLD.getPropertyName())) {
+        setHubDegreeThreshold(
+            Integer.parseInt(prop.getProperty(ConfigProperty.HUB_DEGREE_THRESHOLD.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.BFS_THREADS.getPropertyName())) {
+        setBfsThreads(
+            Integer.parseInt(prop.getProperty(ConfigProperty.BFS_THREADS.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.PERSONALIZED_PAGERANK_EPSILON.getPropertyName())) {
+        setPersonalizedPageRankEpsilon(
+            Double.parseDouble(prop.getProperty(ConfigProperty.PERSONALIZED_PAGERANK_EPSILON.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.HITS_MAX_ITERATIONS.getPropertyName())) {
+        setHitsMaxIterations(
+            Integer.parseInt(prop.getProperty(ConfigProperty.HITS_MAX_ITERATIONS.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.HITS_TOLERANCE.getPropertyName())) {
+        setHitsTolerance(
+            Double.parseDouble(prop.getProperty(ConfigProperty.HITS_TOLERANCE.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.RELATEDNESS_MODE.getPropertyName())) {
+        setRelatednessMode(
+            RelatednessMode.valueOf(prop.getProperty(ConfigProperty.RELATEDNESS_MODE.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.RELATEDNESS_SKETCH_ERROR.getPropertyName())) {
+        setRelatednessSketchError(
+            Double.parseDouble(prop.getProperty(ConfigProperty.RELATEDNESS_SKETCH_ERROR.getPropertyName())));
+      }
+      if (prop.containsKey(ConfigProperty.RELATEDNESS_SKETCH_THRESHOLD.getPropertyName())) {
+        setRelatednessSketchThreshold(
+            Integer.parseInt(prop.getProperty(ConfigProperty.RELATEDNESS_SKETCH_THRESHOLD.getPropertyName())));
+      }
       if (prop.containsKey(ConfigProperty.NER2NED_MAPPING.getPropertyName())) {
         setNER2NEDMapping(parseNER2NEDMapping(prop.getProperty(ConfigProperty.NER2NED_MAPPING.getPropertyName())));
       }
@@ -357,6 +482,106 @@ public class AGDISTISConfiguration {
     return (Algorithm) CONFIGURATION.get(ConfigProperty.ALGORITHM);
   }
 
+  public boolean getLabelTokenMatches() {
+    return (boolean) CONFIGURATION.get(ConfigProperty.LABEL_TOKEN_MATCHES);
+  }
+
+  public int getUriOverflowWarningSize() {
+    return (int) CONFIGURATION.get(ConfigProperty.URI_OVERFLOW_WARNING_SIZE);
+  }
+
+  public int getNormalizedLabelCacheSize() {
+    return (int) CONFIGURATION.get(ConfigProperty.NORMALIZED_LABEL_CACHE_SIZE);
+  }
+
+  public int getNegativeCandidateCacheSize() {
+    return (int) CONFIGURATION.get(ConfigProperty.NEGATIVE_CANDIDATE_CACHE_SIZE);
+  }
+
+  public int getNegativeCandidateCacheExpiry() {
+    return (int) CONFIGURATION.get(ConfigProperty.NEGATIVE_CANDIDATE_CACHE_EXPIRY);
+  }
+
+  public int getCandidateThreads() {
+    return (int) CONFIGURATION.get(ConfigProperty.CANDIDATE_THREADS);
+  }
+
+  public boolean getUnambiguousFastPath() {
+    return (boolean) CONFIGURATION.get(ConfigProperty.UNAMBIGUOUS_FAST_PATH);
+  }
+
+  public double getUnambiguousPriorRatio() {
+    return (double) CONFIGURATION.get(ConfigProperty.UNAMBIGUOUS_PRIOR_RATIO);
+  }
+
+  public int getMaxCandidatesPerMention() {
+    return (int) CONFIGURATION.get(ConfigProperty.MAX_CANDIDATES_PER_MENTION);
+  }
+
+  public int getNeighbourhoodCacheSize() {
+    return (int) CONFIGURATION.get(ConfigProperty.NEIGHBOURHOOD_CACHE_SIZE);
+  }
+
+  public int getNeighbourhoodCacheWarmUp() {
+    return (int) CONFIGURATION.get(ConfigProperty.NEIGHBOURHOOD_CACHE_WARM_UP);
+  }
+
+  public ExpansionMode getExpansionMode() {
+    return (ExpansionMode) CONFIGURATION.get(ConfigProperty.EXPANSION_MODE);
+  }
+
+  public double getActivationDecay() {
+    return (double) CONFIGURATION.get(ConfigProperty.ACTIVATION_DECAY);
+  }
+
+  public double getActivationThreshold() {
+    return (double) CONFIGURATION.get(ConfigProperty.ACTIVATION_THRESHOLD);
+  }
+
+  public int getBfsMaxOutgoing() {
+    return (int) CONFIGURATION.get(ConfigProperty.BFS_MAX_OUTGOING);
+  }
+
+  public int getBfsMaxNodes() {
+    return (int) CONFIGURATION.get(ConfigProperty.BFS_MAX_NODES);
+  }
+
+  public int getBfsMaxEdges() {
+    return (int) CONFIGURATION.get(ConfigProperty.BFS_MAX_EDGES);
+  }
+
+  public int getHubDegreeThreshold() {
+    return (int) CONFIGURATION.get(ConfigProperty.HUB_DEGREE_THRESHOLD);
+  }
+
+  public int getBfsThreads() {
+    return (int) CONFIGURATION.get(ConfigProperty.BFS_THREADS);
+  }
+
+  public double getPersonalizedPageRankEpsilon() {
+    return (double) CONFIGURATION.get(ConfigProperty.PERSONALIZED_PAGERANK_EPSILON);
+  }
+
+  public int getHitsMaxIterations() {
+    return (int) CONFIGURATION.get(ConfigProperty.HITS_MAX_ITERATIONS);
+  }
+
+  public double getHitsTolerance() {
+    return (double) CONFIGURATION.get(ConfigProperty.HITS_TOLERANCE);
+  }
+
+  public RelatednessMode getRelatednessMode() {
+    return (RelatednessMode) CONFIGURATION.get(ConfigProperty.RELATEDNESS_MODE);
+  }
+
+  public double getRelatednessSketchError() {
+    return (double) CONFIGURATION.get(ConfigProperty.RELATEDNESS_SKETCH_ERROR);
+  }
+
+  public int getRelatednessSketchThreshold() {
+    return (int) CONFIGURATION.get(ConfigProperty.RELATEDNESS_SKETCH_THRESHOLD);
+  }
+
   public boolean getUseContext() {
     return (boolean) CONFIGURATION.get(ConfigProperty.USE_CONTEXT);
   }
@@ -528,6 +753,108 @@ public class AGDISTISConfiguration {
     CONFIGURATION.put(ConfigProperty.ALGORITHM, algorithm);
   }
 
+  public void setLabelTokenMatches(final boolean labelTokenMatches) {
+    CONFIGURATION.put(ConfigProperty.LABEL_TOKEN_MATCHES, labelTokenMatches);
+  }
+
+  public void setUriOverflowWarningSize(final int uriOverflowWarningSize) {
+    CONFIGURATION.put(ConfigProperty.URI_OVERFLOW_WARNING_SIZE, uriOverflowWarningSize);
+  }
+
+  public void setNormalizedLabelCacheSize(final int normalizedLabelCacheSize) {
+    CONFIGURATION.put(ConfigProperty.NORMALIZED_LABEL_CACHE_SIZE, normalizedLabelCacheSize);
+  }
+
+  public void setNegativeCandidateCacheSize(final int negativeCandidateCacheSize) {
+    CONFIGURATION.put(ConfigProperty.NEGATIVE_CANDIDATE_CACHE_SIZE, negativeCandidateCacheSize);
+  }
+
+  public void setNegativeCandidateCacheExpiry(final int negativeCandidateCacheExpiry) {
+    CONFIGURATION.put(ConfigProperty.NEGATIVE_CANDIDATE_CACHE_EXPIRY, negativeCandidateCacheExpiry);
+  }
+
+  public void setCandidateThreads(final int candidateThreads) {
+    CONFIGURATION.put(ConfigProperty.CANDIDATE_THREADS, candidateThreads);
+  }
+
+  public void setUnambiguousFastPath(final boolean unambiguousFastPath) {
+    CONFIGURATION.put(ConfigProperty.UNAMBIGUOUS_FAST_PATH, unambiguousFastPath);
+  }
+
+  public void setUnambiguousPriorRatio(final double unambiguousPriorRatio) {
+    CONFIGURATION.put(ConfigProperty.UNAMBIGUOUS_PRIOR_RATIO, unambiguousPriorRatio);
+  }
+
+  public void setMaxCandidatesPerMention(final int maxCandidatesPerMention) {
+    CONFIGURATION.put(ConfigProperty.MAX_CANDIDATES_PER_MENTION, maxCandidatesPerMention);
+  }
+
+  public void setNeighbourhoodCacheSize(final int neighbourhoodCacheSize) {
+    CONFIGURATION.put(ConfigProperty.NEIGHBOURHOOD_CACHE_SIZE, neighbourhoodCacheSize);
+  }
+
+  public void setNeighbourhoodCacheWarmUp(final int neighbourhoodCacheWarmUp) {
+    CONFIGURATION.put(ConfigProperty.NEIGHBOURHOOD_CACHE_WARM_UP, neighbourhoodCacheWarmUp);
+  }
+
+  public void setExpansionMode(final ExpansionMode expansionMode) {
+    Preconditions.checkNotNull(expansionMode);
+    CONFIGURATION.put(ConfigProperty.EXPANSION_MODE, expansionMode);
+  }
+
+  public void setActivationDecay(final double activationDecay) {
+    CONFIGURATION.put(ConfigProperty.ACTIVATION_DECAY, activationDecay);
+  }
+
+  public void setActivationThreshold(final double activationThreshold) {
+    CONFIGURATION.put(ConfigProperty.ACTIVATION_THRESHOLD, activationThreshold);
+  }
+
+  public void setBfsMaxOutgoing(final int bfsMaxOutgoing) {
+    CONFIGURATION.put(ConfigProperty.BFS_MAX_OUTGOING, bfsMaxOutgoing);
+  }
+
+  public void setBfsMaxNodes(final int bfsMaxNodes) {
+    CONFIGURATION.put(ConfigProperty.BFS_MAX_NODES, bfsMaxNodes);
+  }
+
+  public void setBfsMaxEdges(final int bfsMaxEdges) {
+    CONFIGURATION.put(ConfigProperty.BFS_MAX_EDGES, bfsMaxEdges);
+  }
+
+  public void setHubDegreeThreshold(final int hubDegreeThreshold) {
+    CONFIGURATION.put(ConfigProperty.HUB_DEGREE_THRESHOLD, hubDegreeThreshold);
+  }
+
+  public void setBfsThreads(final int bfsThreads) {
+    CONFIGURATION.put(ConfigProperty.BFS_THREADS, bfsThreads);
+  }
+
+  public void setPersonalizedPageRankEpsilon(final double personalizedPageRankEpsilon) {
+    CONFIGURATION.put(ConfigProperty.PERSONALIZED_PAGERANK_EPSILON, personalizedPageRankEpsilon);
+  }
+
+  public void setHitsMaxIterations(final int hitsMaxIterations) {
+    CONFIGURATION.put(ConfigProperty.HITS_MAX_ITERATIONS, hitsMaxIterations);
+  }
+
+  public void setHitsTolerance(final double hitsTolerance) {
+    CONFIGURATION.put(ConfigProperty.HITS_TOLERANCE, hitsTolerance);
+  }
+
+  public void setRelatednessMode(final RelatednessMode relatednessMode) {
+    Preconditions.checkNotNull(relatednessMode);
+    CONFIGURATION.put(ConfigProperty.RELATEDNESS_MODE, relatednessMode);
+  }
+
+  public void setRelatednessSketchError(final double relatednessSketchError) {
+    CONFIGURATION.put(ConfigProperty.RELATEDNESS_SKETCH_ERROR, relatednessSketchError);
+  }
+
+  public void setRelatednessSketchThreshold(final int relatednessSketchThreshold) {
+    CONFIGURATION.put(ConfigProperty.RELATEDNESS_SKETCH_THRESHOLD, relatednessSketchThreshold);
+  }
+
   public void setUseContext(final boolean useContext) {
     CONFIGURATION.put(ConfigProperty.USE_CONTEXT, useContext);
   }
@@ -686,6 +1013,131 @@ public class AGDISTISConfiguration {
     sb.append(getAlgorithm().name());
     sb.append(IOUtils.LINE_SEPARATOR);
 
+    sb.append(ConfigProperty.LABEL_TOKEN_MATCHES.name());
+    sb.append(": ");
+    sb.append(getLabelTokenMatches());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.URI_OVERFLOW_WARNING_SIZE.name());
+    sb.append(": ");
+    sb.append(getUriOverflowWarningSize());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.NORMALIZED_LABEL_CACHE_SIZE.name());
+    sb.append(": ");
+    sb.append(getNormalizedLabelCacheSize());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.NEGATIVE_CANDIDATE_CACHE_SIZE.name());
+    sb.append(": ");
+    sb.append(getNegativeCandidateCacheSize());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.NEGATIVE_CANDIDATE_CACHE_EXPIRY.name());
+    sb.append(": ");
+    sb.append(getNegativeCandidateCacheExpiry());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.CANDIDATE_THREADS.name());
+    sb.append(": ");
+    sb.append(getCandidateThreads());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.UNAMBIGUOUS_FAST_PATH.name());
+    sb.append(": ");
+    sb.append(getUnambiguousFastPath());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.UNAMBIGUOUS_PRIOR_RATIO.name());
+    sb.append(": ");
+    sb.append(getUnambiguousPriorRatio());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.MAX_CANDIDATES_PER_MENTION.name());
+    sb.append(": ");
+    sb.append(getMaxCandidatesPerMention());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.NEIGHBOURHOOD_CACHE_SIZE.name());
+    sb.append(": ");
+    sb.append(getNeighbourhoodCacheSize());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.NEIGHBOURHOOD_CACHE_WARM_UP.name());
+    sb.append(": ");
+    sb.append(getNeighbourhoodCacheWarmUp());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.EXPANSION_MODE.name());
+    sb.append(": ");
+    sb.append(getExpansionMode().name());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.ACTIVATION_DECAY.name());
+    sb.append(": ");
+    sb.append(getActivationDecay());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.ACTIVATION_THRESHOLD.name());
+    sb.append(": ");
+    sb.append(getActivationThreshold());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.BFS_MAX_OUTGOING.name());
+    sb.append(": ");
+    sb.append(getBfsMaxOutgoing());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.BFS_MAX_NODES.name());
+    sb.append(": ");
+    sb.append(getBfsMaxNodes());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.BFS_MAX_EDGES.name());
+    sb.append(": ");
+    sb.append(getBfsMaxEdges());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.HUB_DEGREE_THRESHOLD.name());
+    sb.append(": ");
+    sb.append(getHubDegreeThreshold());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.BFS_THREADS.name());
+    sb.append(": ");
+    sb.append(getBfsThreads());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.PERSONALIZED_PAGERANK_EPSILON.name());
+    sb.append(": ");
+    sb.append(getPersonalizedPageRankEpsilon());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.HITS_MAX_ITERATIONS.name());
+    sb.append(": ");
+    sb.append(getHitsMaxIterations());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.HITS_TOLERANCE.name());
+    sb.append(": ");
+    sb.append(getHitsTolerance());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.RELATEDNESS_MODE.name());
+    sb.append(": ");
+    sb.append(getRelatednessMode().name());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.RELATEDNESS_SKETCH_ERROR.name());
+    sb.append(": ");
+    sb.append(getRelatednessSketchError());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
+    sb.append(ConfigProperty.RELATEDNESS_SKETCH_THRESHOLD.name());
+    sb.append(": ");
+    sb.append(getRelatednessSketchThreshold());
+    sb.append(IOUtils.LINE_SEPARATOR);
+
     sb.append(ConfigProperty.USE_CONTEXT.name());
     sb.append(": ");
     sb.append(getUseContext());
@@ -29,7 +29,7 @@ package org.aksw.agdistis;
  * @version 0.1
  **/
 public enum Algorithm {
-  HITS, PAGERANK;
+  HITS, PAGERANK, PERSONALIZED_PAGERANK;
 
   public String getAlgorithmName() {
     return name().toLowerCase();
@@ -32,6 +32,31 @@ public enum ConfigProperty {
   USE_POPULARITY,
   RESOLVE_OVERLAPS,
   ALGORITHM,
+  LABEL_TOKEN_MATCHES,
+  URI_OVERFLOW_WARNING_SIZE,
+  NORMALIZED_LABEL_CACHE_SIZE,
+  NEGATIVE_CANDIDATE_CACHE_SIZE,
+  NEGATIVE_CANDIDATE_CACHE_EXPIRY,
+  CANDIDATE_THREADS,
+  UNAMBIGUOUS_FAST_PATH,
+  UNAMBIGUOUS_PRIOR_RATIO,
+  MAX_CANDIDATES_PER_MENTION,
+  NEIGHBOURHOOD_CACHE_SIZE,
+  NEIGHBOURHOOD_CACHE_WARM_UP,
+  EXPANSION_MODE,
+  ACTIVATION_DECAY,
+  ACTIVATION_THRESHOLD,
+  BFS_MAX_OUTGOING,
+  BFS_MAX_NODES,
+  BFS_MAX_EDGES,
+  HUB_DEGREE_THRESHOLD,
+  BFS_THREADS,
+  PERSONALIZED_PAGERANK_EPSILON,
+  HITS_MAX_ITERATIONS,
+  HITS_TOLERANCE,
+  RELATEDNESS_MODE,
+  RELATEDNESS_SKETCH_ERROR,
+  RELATEDNESS_SKETCH_THRESHOLD,
   USE_CONTEXT,
   SCHEMA_VERSION,
   USE_SURFACE_FORMS,
@@ -59,6 +84,31 @@ public enum ConfigProperty {
       .put(PRE_DISAMBIGUATION_WHITE_LIST_PATH, "preDisambiguationWhiteList")
       .put(POST_DISAMBIGUATION_WHITE_LIST_PATH, "postDisambiguationWhiteList")
       .put(CORPORATION_AFFIXES_PATH, "corporationAffixes").put(USE_POPULARITY, "popularity").put(ALGORITHM, "algorithm")
+      .put(LABEL_TOKEN_MATCHES, "labelTokenMatches")
+      .put(URI_OVERFLOW_WARNING_SIZE, "uriOverflowWarningSize")
+      .put(NORMALIZED_LABEL_CACHE_SIZE, "normalizedLabelCacheSize")
+      .put(NEGATIVE_CANDIDATE_CACHE_SIZE, "negativeCandidateCacheSize")
+      .put(NEGATIVE_CANDIDATE_CACHE_EXPIRY, "negativeCandidateCacheExpiry")
+      .put(CANDIDATE_THREADS, "candidateThreads")
+      .put(UNAMBIGUOUS_FAST_PATH, "unambiguousFastPath")
+      .put(UNAMBIGUOUS_PRIOR_RATIO, "unambiguousPriorRatio")
+      .put(MAX_CANDIDATES_PER_MENTION, "maxCandidatesPerMention")
+      .put(NEIGHBOURHOOD_CACHE_SIZE, "neighbourhoodCacheSize")
+      .put(NEIGHBOURHOOD_CACHE_WARM_UP, "neighbourhoodCacheWarmUp")
+      .put(EXPANSION_MODE, "expansion")
+      .put(ACTIVATION_DECAY, "activationDecay")
+      .put(ACTIVATION_THRESHOLD, "activationThreshold")
+      .put(BFS_MAX_OUTGOING, "bfsMaxOutgoing")
+      .put(BFS_MAX_NODES, "bfsMaxNodes")
+      .put(BFS_MAX_EDGES, "bfsMaxEdges")
+      .put(HUB_DEGREE_THRESHOLD, "hubDegreeThreshold")
+      .put(BFS_THREADS, "bfsThreads")
+      .put(PERSONALIZED_PAGERANK_EPSILON, "personalizedPageRankEpsilon")
+      .put(HITS_MAX_ITERATIONS, "hitsMaxIterations")
+      .put(HITS_TOLERANCE, "hitsTolerance")
+      .put(RELATEDNESS_MODE, "relatednessMode")
+      .put(RELATEDNESS_SKETCH_ERROR, "relatednessSketchError")
+      .put(RELATEDNESS_SKETCH_THRESHOLD, "relatednessSketchThreshold")
       .put(USE_CONTEXT, "context").put(USE_ACRONYM, "acronym").put(USE_COMMON_ENTITIES, "commonEntities")
       .put(INDEX_TTL_PATH, "folderWithTTLFiles").put(MAX_CANDIDATE_LOOKUPS, "maxCandidateLookups")
       .put(MAX_ACRONYM_LOOKUPS, "maxAcronymLookups").put(MAX_CONNECTION_LOOKUPS, "maxConnectionLookups")
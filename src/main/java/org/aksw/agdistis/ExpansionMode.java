@@ -0,0 +1,11 @@
+package org.aksw.agdistis;
+
+/**
+ * How {@link org.aksw.agdistis.graph.BreadthFirstSearch} expands the candidates into the knowledge graph.
+ **/
+public enum ExpansionMode {
+  /** Every node up to the semantic depth, level by level. */
+  BREADTH_FIRST,
+  /** The most activated nodes first, until the activation decays below the configured threshold. */
+  ACTIVATION;
+}
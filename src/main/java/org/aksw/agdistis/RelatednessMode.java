@@ -0,0 +1,13 @@
+package org.aksw.agdistis;
+
+/**
+ * How {@link org.aksw.agdistis.util.Relatedness} compares the inlink sets of two entities.
+ **/
+public enum RelatednessMode {
+  /** Exact intersection of the full inlink sets. */
+  EXACT,
+  /** MinHash estimate whenever both entities have a sketch that meets the configured error bound. */
+  SKETCH,
+  /** MinHash estimate for entities with more inlinks than the configured threshold, exact otherwise. */
+  AUTO;
+}
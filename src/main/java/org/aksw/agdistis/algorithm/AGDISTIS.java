@@ -1,26 +1,38 @@
 package org.aksw.agdistis.algorithm;
 
-import edu.uci.ics.jung.graph.DirectedSparseGraph;
 import net.logstash.logback.marker.Markers;
 import org.aksw.agdistis.AGDISTISConfiguration;
 import org.aksw.agdistis.Algorithm;
+import org.aksw.agdistis.ExpansionMode;
 import org.aksw.agdistis.datatypes.Document;
 import org.aksw.agdistis.datatypes.NamedEntitiesInText;
 import org.aksw.agdistis.datatypes.NamedEntityInText;
 import org.aksw.agdistis.graph.BreadthFirstSearch;
+import org.aksw.agdistis.graph.DisambiguationGraph;
 import org.aksw.agdistis.graph.HITS;
+import org.aksw.agdistis.graph.NeighbourhoodCache;
 import org.aksw.agdistis.graph.Node;
 import org.aksw.agdistis.graph.PageRank;
+import org.aksw.agdistis.graph.PersonalizedPageRank;
 import org.aksw.agdistis.model.CandidatesScore;
+import org.aksw.agdistis.util.EntityPriors;
 import org.aksw.agdistis.util.TripleIndex;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class AGDISTIS {
 
+    // the score of the candidates of a document whose graph is not scored, as only settled mentions are left
+    private static final double _UNSCORED_WEIGHT = 1.0;
+
     private final Logger LOGGER = LoggerFactory.getLogger(AGDISTIS.class);
     private final String edgeType;
     private final String nodeType;
@@ -28,107 +40,160 @@ public class AGDISTIS {
     private final TripleIndex index;
     private final double threshholdTrigram;
     private final int maxDepth;
+    private final int hitsMaxIterations;
+    private final double hitsTolerance;
+    private final double personalizedPageRankEpsilon;
+    private final ExpansionMode expansionMode;
+    private final double activationDecay;
+    private final double activationThreshold;
+    // runs the index lookups of the BFS, null to run them on the calling thread
+    private final ExecutorService bfsExecutor;
+    // outgoing edges shared by all documents, null if disabled
+    private final NeighbourhoodCache neighbourhoodCache;
     private final DomainWhiteLister postDisambiguationDomainWhiteLister;
     private final boolean heuristicExpansionOn;
     private final boolean useSurfaceForms;
     private final Algorithm algorithm;
+    private final int maxCandidatesPerMention;
+    private final boolean unambiguousFastPath;
+    private final double unambiguousPriorRatio;
 
     public AGDISTIS() {
         heuristicExpansionOn = AGDISTISConfiguration.INSTANCE.getHeuristicExpansion();
         algorithm = AGDISTISConfiguration.INSTANCE.getAlgorithm();
+        maxCandidatesPerMention = AGDISTISConfiguration.INSTANCE.getMaxCandidatesPerMention();
+        unambiguousFastPath = AGDISTISConfiguration.INSTANCE.getUnambiguousFastPath();
+        unambiguousPriorRatio = AGDISTISConfiguration.INSTANCE.getUnambiguousPriorRatio();
 
         nodeType = AGDISTISConfiguration.INSTANCE.getNodeType().toString();
         edgeType = AGDISTISConfiguration.INSTANCE.getEdgeType().toString();
         threshholdTrigram = AGDISTISConfiguration.INSTANCE.getCandidatePruningThreshold();
         maxDepth = AGDISTISConfiguration.INSTANCE.getSemanticDepth();
+        hitsMaxIterations = AGDISTISConfiguration.INSTANCE.getHitsMaxIterations();
+        hitsTolerance = AGDISTISConfiguration.INSTANCE.getHitsTolerance();
+        personalizedPageRankEpsilon = AGDISTISConfiguration.INSTANCE.getPersonalizedPageRankEpsilon();
+        expansionMode = AGDISTISConfiguration.INSTANCE.getExpansionMode();
+        activationDecay = AGDISTISConfiguration.INSTANCE.getActivationDecay();
+        activationThreshold = AGDISTISConfiguration.INSTANCE.getActivationThreshold();
+        final int bfsThreads = AGDISTISConfiguration.INSTANCE.getBfsThreads();
+        bfsExecutor = (bfsThreads > 0) ? Executors.newFixedThreadPool(bfsThreads, new ThreadFactoryBuilder()
+                .setDaemon(true).setNameFormat("agdistis-bfs-%d").build()) : null;
+        final int neighbourhoodCacheSize = AGDISTISConfiguration.INSTANCE.getNeighbourhoodCacheSize();
+        neighbourhoodCache = (neighbourhoodCacheSize > 0) ? new NeighbourhoodCache(neighbourhoodCacheSize) : null;
         useSurfaceForms = AGDISTISConfiguration.INSTANCE.getUseSurfaceForms();
         cu = new CandidateUtil();
         index = cu.getIndex();
 
         postDisambiguationDomainWhiteLister = new DomainWhiteLister(index, AGDISTISConfiguration.INSTANCE
                 .getPostDisambiguationWhiteListPath());
+        warmUpNeighbourhoodCache(AGDISTISConfiguration.INSTANCE.getNeighbourhoodCacheWarmUp());
     }
 
     public void run(final Document document, final Map<NamedEntityInText, List<CandidatesScore>> candidatesPerNE) {
         try {
 
             final NamedEntitiesInText namedEntities = document.getNamedEntitiesInText();
-            final DirectedSparseGraph<Node, String> graph = new DirectedSparseGraph<Node, String>();
+            final DisambiguationGraph graph = new DisambiguationGraph(index::getUri);
 
             LOGGER.debug("Selecting candidates.");
             long start = System.currentTimeMillis();
             cu.insertCandidatesIntoText(graph, document, threshholdTrigram, heuristicExpansionOn, useSurfaceForms);
             final long candidateSelectionTime = System.currentTimeMillis() - start;
 
-            LOGGER.debug("Performing graph-based disambiguation.");
+            // 0) fix the mentions that need no graph, the graph is only built if any mention is left
+            final int ambiguous = unambiguousFastPath ? triage(graph, namedEntities) : -1;
+
             start = System.currentTimeMillis();
-            // 1) let spread activation/ breadth first search run
-            LOGGER.trace("Graph size before BFS: " + graph.getVertexCount());
-            final BreadthFirstSearch bfs = new BreadthFirstSearch(index, algorithm);
-            bfs.run(maxDepth, graph, edgeType, nodeType);
-            LOGGER.trace("Graph size after BFS: " + graph.getVertexCount());
+            int neighbourhoodCacheHits = 0;
+            int neighbourhoodCacheMisses = 0;
+            if (ambiguous != 0) {
+                LOGGER.debug("Performing graph-based disambiguation.");
+                // 1) let spread activation/ breadth first search run
+                LOGGER.trace("Graph size before BFS: " + graph.getVertexCount());
+                final BreadthFirstSearch bfs = new BreadthFirstSearch(index, algorithm, bfsExecutor,
+                        neighbourhoodCache);
+                if (expansionMode == ExpansionMode.ACTIVATION) {
+                    bfs.runActivation(maxDepth, graph, edgeType, nodeType, activationDecay, activationThreshold);
+                }
+                else {
+                    bfs.run(maxDepth, graph, edgeType, nodeType);
+                }
+                neighbourhoodCacheHits = bfs.getNeighbourhoodCacheHits();
+                neighbourhoodCacheMisses = bfs.getNeighbourhoodCacheMisses();
+                LOGGER.trace("Graph size after BFS: " + graph.getVertexCount());
+            }
+            graph.freeze();
 
             final long BFSTime = System.currentTimeMillis() - start;
             
             start = System.currentTimeMillis();
-            if (algorithm == Algorithm.HITS) {
+            int scoringIterations = 0;
+            if (ambiguous == 0) {
+                LOGGER.debug("No ambiguous mention, the graph is not scored.");
+            }
+            else if (algorithm == Algorithm.HITS) {
                 // 2.1) let HITS run
                 LOGGER.debug("Run HITS");
                 final HITS h = new HITS();
-                h.runHits(graph, 20);
+                scoringIterations = h.runHits(graph, hitsMaxIterations, hitsTolerance);
             }
             else if (algorithm == Algorithm.PAGERANK) {
                 // 2.2) let Pagerank run
                 LOGGER.debug("Run PAGERANK");
                 final PageRank pr = new PageRank();
-                pr.runPr(graph, 50, 0.1);
+                scoringIterations = pr.runPr(graph, 50, 0.1);
+            }
+            else if (algorithm == Algorithm.PERSONALIZED_PAGERANK) {
+                // 2.3) let Pagerank restarting at the candidates run
+                LOGGER.debug("Run PERSONALIZED_PAGERANK");
+                final PersonalizedPageRank ppr = new PersonalizedPageRank();
+                scoringIterations = ppr.runPpr(graph, personalizedPageRankEpsilon);
             }
 
             // 3) store the candidate with the highest hub, highest authority
             // ratio
             // manipulate which value to use directly in node.compareTo
-            LOGGER.trace("Sort results");
-            final ArrayList<Node> orderedList = new ArrayList<Node>();
-            orderedList.addAll(graph.getVertices());
-            Collections.sort(orderedList);
+            LOGGER.trace("Rank the candidates of each mention");
+            // only the best candidate is needed unless all of them are reported
+            final int k = (candidatesPerNE != null) ? maxCandidatesPerMention : 1;
             for (final NamedEntityInText entity : namedEntities) {
-                for (final Node m : orderedList) {
-                    // there can be one node (candidate) for two labels
-                    if (m.containsId(entity.getStartPos()) && postDisambiguationDomainWhiteLister.fitsIntoDomain(m
-                            .getCandidateURI(), Optional.of(entity.getType()))) {
-                        final String candidateURI = m.getCandidateURI();
-                        final String canonicalName = m.getLabelString();
-                        entity.setCanonicalName(canonicalName);
-                        entity.setNamedEntity(candidateURI);
-                        entity.setDisambiguatedTypes(cu.getDisambiguatedTypes(m.getCandidateURI(), index));
+                // there can be one node (candidate) for two labels
+                final List<Node> ranked = graph.rankCandidates(entity.getStartPos(), k);
+                Node m = firstInDomain(ranked, entity);
+                if ((m == null) && (k > 0) && (ranked.size() == k)) {
+                    // the best candidates are all outside the domain of the mention
+                    m = firstInDomain(graph.rankCandidates(entity.getStartPos(), 0), entity);
+                }
+                if (m != null) {
+                    final String candidateURI = m.getCandidateURI();
+                    final String canonicalName = m.getLabelString();
+                    entity.setCanonicalName(canonicalName);
+                    entity.setNamedEntity(candidateURI);
+                    entity.setDisambiguatedTypes(cu.getDisambiguatedTypes(m.getCandidateURI(), index));
+                    if (ambiguous == 0) {
+                        // every mention was settled, the chosen candidate is certain
+                        entity.setAuthorityWeight(_UNSCORED_WEIGHT);
                         if (algorithm == Algorithm.HITS) {
-                            entity.setAuthorityWeight(m.getUnnormalizedAuthorityWeight());
-                            entity.setHubWeight(m.getUnnormalizedHubWeight());
-                        }
-                        else if (algorithm == Algorithm.PAGERANK) {
-                            entity.setAuthorityWeight(m.getPageRank());
+                            entity.setHubWeight(_UNSCORED_WEIGHT);
                         }
-                        break;
+                    }
+                    else if (algorithm == Algorithm.HITS) {
+                        entity.setAuthorityWeight(m.getUnnormalizedAuthorityWeight());
+                        entity.setHubWeight(m.getUnnormalizedHubWeight());
+                    }
+                    else if ((algorithm == Algorithm.PAGERANK) || (algorithm == Algorithm.PERSONALIZED_PAGERANK)) {
+                        entity.setAuthorityWeight(m.getPageRank());
                     }
                 }
-            }
-            // To get all candidates along with their scores
-            if (candidatesPerNE != null) {
-                final List<CandidatesScore> listCandidates = new ArrayList<>();
-                for (final NamedEntityInText entity : namedEntities) {
-                    for (int i = 0; i < orderedList.size(); i++) {
-                        final Node m = orderedList.get(i);
-
-                        // there can be one node (candidate) for two labels
-                        if (m.containsId(entity.getStartPos())) {
-
-                            final CandidatesScore candidates = new CandidatesScore();
-                            candidates.setStart(entity.getStartPos());
-                            candidates.setUri(m.getCandidateURI());
-                            candidates.setScore(m.getAuthorityWeight());
-                            listCandidates.add(candidates);
-                        }
-
+                // To get all candidates along with their scores
+                if (candidatesPerNE != null) {
+                    final List<CandidatesScore> listCandidates = new ArrayList<>();
+                    for (final Node candidate : ranked) {
+                        final CandidatesScore candidates = new CandidatesScore();
+                        candidates.setStart(entity.getStartPos());
+                        candidates.setUri(candidate.getCandidateURI());
+                        candidates.setScore((ambiguous == 0) ? _UNSCORED_WEIGHT : candidate.getAuthorityWeight());
+                        listCandidates.add(candidates);
                     }
                     candidatesPerNE.put(entity, listCandidates);
                 }
@@ -136,10 +201,18 @@ public class AGDISTIS {
             final long disambiguationTime = System.currentTimeMillis() - start;
             document.setDisambiguationTime(disambiguationTime);
             document.setCandidateSelectionTime(candidateSelectionTime);
+            document.setScoringIterations(scoringIterations);
+            document.setNeighbourhoodCacheHits(neighbourhoodCacheHits);
+            document.setNeighbourhoodCacheMisses(neighbourhoodCacheMisses);
             document.setAGDISTISVersion(AGDISTISConfiguration.INSTANCE.getAGDISTISVersion());
 
             LOGGER.debug("Candidates search and graph creation in {} msecs", candidateSelectionTime);
             LOGGER.debug("BFS time {} msecs ", BFSTime);
+            if (neighbourhoodCache != null) {
+                LOGGER.debug("Neighbourhood cache: {} hits, {} misses ({} overall).", neighbourhoodCacheHits,
+                        neighbourhoodCacheMisses, neighbourhoodCache.stats());
+            }
+            LOGGER.debug("Graph scored in {} iterations.", scoringIterations);
             LOGGER.debug("Disambiguation completed in {} msecs.", disambiguationTime);
 
         } catch (final Exception e) {
@@ -148,7 +221,106 @@ public class AGDISTIS {
         }
     }
 
+    /**
+     * Settles the mentions that the graph would not change: those with a single candidate, and, if priors are
+     * available, those whose most popular candidate outweighs all others by the prior ratio. The latter become the
+     * only candidate of their mention, so that they take part in the graph as fixed anchors of the other mentions.
+     *
+     * @return the number of mentions left to disambiguate by the graph.
+     */
+    private int triage(final DisambiguationGraph graph, final NamedEntitiesInText namedEntities) {
+        final EntityPriors priors = index.getPriors();
+        int ambiguous = 0;
+        int fixed = 0;
+        for (final NamedEntityInText entity : namedEntities) {
+            final List<Node> candidates = graph.getCandidates(entity.getStartPos());
+            if (candidates.size() <= 1) {
+                continue;
+            }
+            if ((priors != null) && (unambiguousPriorRatio > 0)) {
+                Node best = null;
+                float bestPrior = -1;
+                float secondPrior = 0;
+                for (final Node candidate : candidates) {
+                    final float prior = priors.get(candidate.getEntityId());
+                    if (prior > bestPrior) {
+                        secondPrior = Math.max(secondPrior, bestPrior);
+                        bestPrior = prior;
+                        best = candidate;
+                    }
+                    else {
+                        secondPrior = Math.max(secondPrior, prior);
+                    }
+                }
+                if ((bestPrior >= (unambiguousPriorRatio * Math.max(secondPrior, 1)))
+                        && postDisambiguationDomainWhiteLister.fitsIntoDomain(best.getEntityId(), Optional
+                                .ofNullable(entity.getType()))) {
+                    graph.fixCandidate(entity.getStartPos(), best);
+                    fixed++;
+                    continue;
+                }
+            }
+            ambiguous++;
+        }
+        LOGGER.debug("{} ambiguous mentions, {} fixed by their prior.", ambiguous, fixed);
+        return ambiguous;
+    }
+
+    /**
+     * @return the first of the ranked candidates that fits into the domain of the mention, or <code>null</code>.
+     */
+    private Node firstInDomain(final List<Node> ranked, final NamedEntityInText entity) {
+        for (final Node m : ranked) {
+            if (postDisambiguationDomainWhiteLister.fitsIntoDomain(m.getEntityId(), Optional.ofNullable(entity
+                    .getType()))) {
+                return m;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Loads the edges of the most popular entities into the neighbourhood cache, in the background.
+     */
+    private void warmUpNeighbourhoodCache(final int numEntities) {
+        if ((neighbourhoodCache == null) || (numEntities <= 0)) {
+            return;
+        }
+        final Thread t = new Thread(() -> {
+            try {
+                final long start = System.currentTimeMillis();
+                final int warmed = new BreadthFirstSearch(index, algorithm, null, neighbourhoodCache).warmUp(
+                        numEntities, edgeType, nodeType);
+                LOGGER.info("Loaded the neighbourhoods of {} entities in {} msecs.", warmed,
+                        System.currentTimeMillis() - start);
+            } catch (final IOException e) {
+                LOGGER.error("Unable to warm up the neighbourhood cache. StackTrace: {}", ExceptionUtils
+                        .getStackTrace(e));
+            }
+        }, "agdistis-neighbourhood-warm-up");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * @return the outgoing edges shared by all documents, or <code>null</code> if the cache is disabled.
+     */
+    public NeighbourhoodCache getNeighbourhoodCache() {
+        return neighbourhoodCache;
+    }
+
     public TripleIndex getIndex() {
         return index;
     }
+
+    /**
+     * Stops the threads of the BFS and of the candidate lookups and closes the index. The instance cannot be used
+     * afterwards.
+     */
+    public void close() throws IOException {
+        if (bfsExecutor != null) {
+            bfsExecutor.shutdown();
+        }
+        cu.close();
+    }
 }
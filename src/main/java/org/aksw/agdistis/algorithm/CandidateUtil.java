@@ -1,27 +1,43 @@
 package org.aksw.agdistis.algorithm;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 
 import org.aksw.agdistis.AGDISTISConfiguration;
 import org.aksw.agdistis.AGDISTISConfigurationException;
 import org.aksw.agdistis.Algorithm;
+import org.aksw.agdistis.ExpansionMode;
+import org.aksw.agdistis.algorithm.CandidateVariantGenerator.Variant;
 import org.aksw.agdistis.datatypes.Document;
 import org.aksw.agdistis.datatypes.NamedEntitiesInText;
 import org.aksw.agdistis.datatypes.NamedEntityInText;
+import org.aksw.agdistis.graph.DisambiguationGraph;
 import org.aksw.agdistis.graph.Node;
-import org.aksw.agdistis.util.PreprocessingNLP;
+import org.aksw.agdistis.util.IntObjectHashMap;
+import org.aksw.agdistis.util.LabelIndex;
+import org.aksw.agdistis.util.NormalizedLabels;
+import org.aksw.agdistis.util.RedirectResolver;
 import org.aksw.agdistis.util.Triple;
 import org.aksw.agdistis.util.TripleIndex;
 import org.aksw.agdistis.util.TripleIndexContext;
+import org.aksw.agdistis.util.TypeIndex;
+import org.aksw.agdistis.util.UriDictionary;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.lucene.search.spell.StringDistance;
@@ -30,27 +46,37 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
-import edu.uci.ics.jung.graph.DirectedSparseGraph;
 
 public class CandidateUtil {
 
   private static Logger LOGGER = LoggerFactory.getLogger(CandidateUtil.class);
-  private static final String THING_TYPE = "http://www.w3.org/2002/07/owl#Thing";
-  private static final String DBPEDIA_TYPE_PREFIX = "http://dbpedia.org/ontology/";
   private static final String LABEL_SUFFIX = "rdf-schema#label";
 
   private final String nodeType;
   private final TripleIndex index;
+  private final LabelIndex labelIndex;
+  // whether the exact matches of the label dictionary are followed by the token query of the triple index
+  private final boolean labelTokenMatches;
+  private final RedirectResolver redirects;
   private TripleIndexContext index2;
   private final StringDistance metric;
-  private final CorporationAffixCleaner corporationAffixCleaner;
+  private final LabelNormalizer labelNormalizer;
+  // the candidate labels computed when the index was built, null to normalize them here
+  private final NormalizedLabels normalizedLabels;
   private final DomainWhiteLister preDisambiguationDomainWhiteLister;
   private final boolean popularity;
   private final Algorithm algorithm;
+  // whether the graph is expanded by spreading activation, which starts from the label similarity of the candidates
+  private final boolean activationExpansion;
   private final boolean acronym;
   private final boolean commonEntities;
+  private final CandidateVariantGenerator variantGenerator = new CandidateVariantGenerator();
+  // looks up the candidates of the mentions of a document, null to look them up on the calling thread
+  private final ExecutorService candidateExecutor;
   private final Cache<String, Boolean> disambiguationPageCache = CacheBuilder.newBuilder()
       .maximumSize(AGDISTISConfiguration.INSTANCE.getDisambiguationPageCacheSize())
       .expireAfterWrite(30, TimeUnit.MINUTES).build();
@@ -58,6 +84,14 @@ public class CandidateUtil {
   private final Cache<String, List<Triple>> candidateCache = CacheBuilder.newBuilder()
       .maximumSize(AGDISTISConfiguration.INSTANCE.getCandidateCacheSize()).expireAfterWrite(30, TimeUnit.MINUTES)
       .build();
+  // Mentions whose label lookups found no candidates, mapped to the surface form the lookups ended with.
+  private final Cache<String, String> negativeCandidateCache = CacheBuilder.newBuilder()
+      .maximumSize(AGDISTISConfiguration.INSTANCE.getNegativeCandidateCacheSize())
+      .expireAfterWrite(AGDISTISConfiguration.INSTANCE.getNegativeCandidateCacheExpiry(), TimeUnit.MINUTES)
+      .recordStats().build();
+  // Candidate URIs mapped to the labels the candidate pruning compares against the surface form.
+  private final Cache<String, CleanLabel> normalizedLabelCache = CacheBuilder.newBuilder()
+      .maximumSize(AGDISTISConfiguration.INSTANCE.getNormalizedLabelCacheSize()).build();
   /*
    * Stems will be used from the input.
    */
@@ -73,30 +107,44 @@ public class CandidateUtil {
 
       index = new TripleIndex();
       index.warmUpIndex();
+      labelIndex = index.getLabelIndex();
+      redirects = index.getRedirects();
       
       if (AGDISTISConfiguration.INSTANCE.getUseContext()) { // in case the index by context exist
         index2 = new TripleIndexContext();
       }
       metric = AGDISTISConfiguration.INSTANCE.getCandidatePruningMetric();
-      corporationAffixCleaner = new CorporationAffixCleaner();
+      labelNormalizer = new LabelNormalizer(new CorporationAffixCleaner().getCorporationAffixes());
+      NormalizedLabels labels = index.getNormalizedLabels();
+      if ((labels != null) && (labels.getFingerprint() != labelNormalizer.getFingerprint())) {
+        LOGGER.warn("The normalized labels of the index were computed with other corporation affixes or another "
+            + "locale. Candidate labels will be normalized on the fly.");
+        labels = null;
+      }
+      normalizedLabels = labels;
       preDisambiguationDomainWhiteLister = new DomainWhiteLister(index,
           AGDISTISConfiguration.INSTANCE.getPreDisambiguationWhiteListPath());
       popularity = AGDISTISConfiguration.INSTANCE.getUsePopularity();
       acronym = AGDISTISConfiguration.INSTANCE.getUseAcronym();
+      labelTokenMatches = AGDISTISConfiguration.INSTANCE.getLabelTokenMatches();
       commonEntities = AGDISTISConfiguration.INSTANCE.getUseCommonEntities();
       algorithm = AGDISTISConfiguration.INSTANCE.getAlgorithm();
+      activationExpansion = AGDISTISConfiguration.INSTANCE.getExpansionMode() == ExpansionMode.ACTIVATION;
+      final int candidateThreads = AGDISTISConfiguration.INSTANCE.getCandidateThreads();
+      candidateExecutor = (candidateThreads > 0) ? Executors.newFixedThreadPool(candidateThreads,
+          new ThreadFactoryBuilder().setDaemon(true).setNameFormat("agdistis-candidates-%d").build()) : null;
     } catch (final IOException ioe) {
       throw new AGDISTISConfigurationException(
           "Unable to load configuration file. StackTrace: " + ExceptionUtils.getStackTrace(ioe));
     }
   }
 
-  public void insertCandidatesIntoText(final DirectedSparseGraph<Node, String> graph, final Document document,
+  public void insertCandidatesIntoText(final DisambiguationGraph graph, final Document document,
       final double threshholdTrigram, final Boolean heuristicExpansionOn, final Boolean useSurfaceForms)
       throws IOException {
       long candidateSearchTime = System.currentTimeMillis();
     final NamedEntitiesInText namedEntities = document.getNamedEntitiesInText();
-    final HashMap<String, Node> nodes = new HashMap<String, Node>();
+    final IntObjectHashMap<Node> nodes = new IntObjectHashMap<Node>();
 
     // used for heuristic label expansion start with longest Named Entities
     Collections.sort(namedEntities.getNamedEntities(), new NamedEntityLengthComparator());
@@ -109,19 +157,59 @@ public class CandidateUtil {
     final String entities = StringUtils.normalizeSpace(sb.toString());
     LOGGER.trace("Entities: {}", entities);
     final HashSet<String> heuristicExpansion = new HashSet<String>();
-    
-    for (final NamedEntityInText entity : namedEntities) {
-      LOGGER.debug("Disambiguating label: " + entity.getLabel());
-      final long start = System.currentTimeMillis();
 
+    // 1) expand the labels in order, as an expansion depends on the longer labels seen before
+    // 2) look up the candidates of every distinct mention, in parallel if an executor is configured
+    final Map<String, Future<List<Triple>>> lookups = new HashMap<String, Future<List<Triple>>>();
+    final List<Future<List<Triple>>> found = new ArrayList<Future<List<Triple>>>();
+    for (final NamedEntityInText entity : namedEntities) {
       // Heuristic expansion is a rough approximation of a coreference resolution.
       String expandedlabel = entity.getLabel();
       if (heuristicExpansionOn) {
         expandedlabel = heuristicExpansion(heuristicExpansion, entity.getLabel());
       }
-      checkLabelCandidates(graph, threshholdTrigram, nodes, entity, expandedlabel, useSurfaceForms, entities);
-      LOGGER.trace("Candidates for {} located in {} msecs.", entity.getLabel(), (System.currentTimeMillis() - start));
+      final String expanded = expandedlabel;
+      // Mentions with the same surface form share the candidate cache entry, so they share the lookup of the first
+      // one. No lookup of a document can then depend on whether another one has filled the cache yet.
+      final String key = entity.getSurfaceForm();
+      Future<List<Triple>> lookup = lookups.get(key);
+      if (lookup == null) {
+        final Callable<List<Triple>> task = () -> {
+          LOGGER.debug("Disambiguating label: " + entity.getLabel());
+          final long start = System.currentTimeMillis();
+          final List<Triple> candidates = fetchLabelCandidates(threshholdTrigram, entity, expanded, useSurfaceForms,
+              entities, true);
+          LOGGER.trace("Candidates for {} located in {} msecs.", entity.getLabel(),
+              (System.currentTimeMillis() - start));
+          return candidates;
+        };
+        if (candidateExecutor != null) {
+          lookup = candidateExecutor.submit(task);
+        } else {
+          final FutureTask<List<Triple>> direct = new FutureTask<List<Triple>>(task);
+          direct.run();
+          lookup = direct;
+        }
+        lookups.put(key, lookup);
+      }
+      found.add(lookup);
     }
+
+    // 3) add the candidates to the graph in the order of the mentions
+    try {
+      int i = 0;
+      for (final NamedEntityInText entity : namedEntities) {
+        for (final Triple t : found.get(i++).get()) {
+          addNodeToGraph(graph, nodes, entity, t, t.getSubject());
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while selecting candidates.");
+    } catch (final ExecutionException e) {
+      throw new IOException("Unable to select candidates.", e.getCause());
+    }
+    LOGGER.debug("Negative candidate cache: {}", negativeCandidateCache.stats());
     LOGGER.debug("candidate search time for {} entities in {} msecs ",(namedEntities.getNamedEntities() != null) ? namedEntities.getNamedEntities().size() : 0, (System.currentTimeMillis() - candidateSearchTime));
   }
 
@@ -150,37 +238,47 @@ public class CandidateUtil {
     return label;
   }
 
-  public void addNodeToGraph(final DirectedSparseGraph<Node, String> graph, final HashMap<String, Node> nodes,
+  public void addNodeToGraph(final DisambiguationGraph graph, final IntObjectHashMap<Node> nodes,
       final NamedEntityInText entity, final Triple c, final String candidateURL) throws IOException {
       
     final String labelType = (c.getPredicate() != null && c.getPredicate().endsWith(LABEL_SUFFIX)) ? c.getPredicate() : null;
     final String labelString = (labelType != null && c.getObject() != null && !c.getObject().isEmpty()) ? c.getObject(): null;
-    final Node currentNode = new Node(candidateURL, labelType, labelString, 0, 0, algorithm);
     LOGGER.debug("CandidateURL: " + candidateURL);
     // candidates are connected to a specific label in the text via their
     // start position
-    if (!graph.addVertex(currentNode)) {
-      final int st = entity.getStartPos();
-      if (nodes.get(candidateURL) != null) {
-        nodes.get(candidateURL).addId(st);
-      } else {
-        LOGGER.error("This vertex couldn't be added because of an bug in Jung: " + candidateURL);
-      }
-    } else {
-      currentNode.addId(entity.getStartPos());
-      nodes.put(candidateURL, currentNode);
+    final int entityId = index.getId(candidateURL);
+    // the initial activation for spreading activation
+    final double activation = (activationExpansion && (labelString != null) && (entity.getLabel() != null))
+        ? metric.getDistance(labelString.toLowerCase(), entity.getLabel().toLowerCase()) : 1;
+    final Node node = nodes.get(entityId);
+    if (node != null) {
+      graph.addCandidate(node, entity.getStartPos());
+      node.setActivation(Math.max(node.getActivation(), activation));
+      return;
     }
+    final Node currentNode = new Node(candidateURL, entityId, labelType, labelString, activation, 0, algorithm);
+    graph.addCandidate(currentNode, entity.getStartPos());
+    nodes.put(entityId, currentNode);
   }
 
-  private void checkLabelCandidates(final DirectedSparseGraph<Node, String> graph, final double threshholdTrigram,
-      final HashMap<String, Node> nodes, final NamedEntityInText entity, final String expandedSurfaceForm,
-      final boolean alternativeLabels, final String entities) throws IOException {
+  /**
+   * Looks up the candidates of a mention. Only reads the indexes, so the mentions of a document can be looked up
+   * concurrently.
+   *
+   * @param retry
+   *          whether to look the mention up once more among the surface forms if nothing was found.
+   * @return the candidate triples in the order their nodes are to be added to the graph, with the (redirected)
+   *         candidate URI as subject.
+   */
+  private List<Triple> fetchLabelCandidates(final double threshholdTrigram, final NamedEntityInText entity,
+      final String expandedSurfaceForm, final boolean alternativeLabels, final String entities, final boolean retry)
+      throws IOException {
 
-    
+    final List<Triple> found = new ArrayList<Triple>();
     List<Triple> toBeAdded;
     String surfaceForm = entity.getSurfaceForm();
-    // Check the cache
-    if (null == (toBeAdded = candidateCache.getIfPresent(surfaceForm))) {
+    // Check the cache, which is read and written with the surface form of the mention
+    if (null == (toBeAdded = candidateCache.getIfPresent(entity.getSurfaceForm()))) {
       List<Triple> candidates = new ArrayList<Triple>();
       List<Triple> acronymCandidatesTemp = new ArrayList<Triple>();
       List<Triple> acronymCandidatesTemp2 = new ArrayList<Triple>();
@@ -190,14 +288,14 @@ public class CandidateUtil {
       int countFinalCandidates = 0;
 
       // Surface form cleaning.
-      final PreprocessingNLP nlp = new PreprocessingNLP();
-
-      surfaceForm = corporationAffixCleaner.cleanLabelsfromCorporationIdentifier(surfaceForm);
+      surfaceForm = labelNormalizer.normalize(surfaceForm);
       LOGGER.trace("Clean label: {}", surfaceForm);
-      surfaceForm = nlp.preprocess(surfaceForm);
+      // The form the lookups ended with if they found no candidates before.
+      final String negativeKey = negativeKey(entity, expandedSurfaceForm, alternativeLabels);
+      final String missedSurfaceForm = negativeCandidateCache.getIfPresent(negativeKey);
       // label treatment finished ->
       // searchByAcronym
-      if (acronym == true) {
+      if ((acronym == true) && (missedSurfaceForm == null)) {
         if (surfaceForm.equals(surfaceForm.toUpperCase()) && (surfaceForm.length() <= 4)) {
           acronymCandidatesTemp = searchbyAcronym(surfaceForm, alternativeLabels, entity.getType());
           for (final Triple triple : acronymCandidatesTemp) {
@@ -208,17 +306,18 @@ public class CandidateUtil {
                 if (isDisambiguationResource(triple2.getSubject())) {
                   continue;
                 }
-                // follow redirect
-                triple2.setSubject(redirect(triple2.getSubject()));
+                // follow redirect, the triples of the index are shared and not changed
+                final Triple redirected = new Triple(redirect(triple2.getSubject()), triple2.getPredicate(),
+                    triple2.getObject());
                 if (commonEntities == true) {
-                  addNodeToGraph(graph, nodes, entity, triple2, triple2.getSubject());
-                  LOGGER.trace("Entity {} with url {} was added to the graph.", entity, triple2.getSubject());
+                  found.add(redirected);
+                  LOGGER.trace("Entity {} with url {} was added to the graph.", entity, redirected.getSubject());
                   countFinalCandidates++;
                 } else {
-                  if (preDisambiguationDomainWhiteLister.fitsIntoDomain(triple2.getSubject(),
-                      Optional.of(entity.getType()))) {
-                    addNodeToGraph(graph, nodes, entity, triple2, triple2.getSubject());
-                    LOGGER.trace("Entity {} with url {} was added to the graph.", entity, triple2.getSubject());
+                  if (preDisambiguationDomainWhiteLister.fitsIntoDomain(redirected.getSubject(),
+                      Optional.ofNullable(entity.getType()))) {
+                    found.add(redirected);
+                    LOGGER.trace("Entity {} with url {} was added to the graph.", entity, redirected.getSubject());
                     countFinalCandidates++;
                   }
                 }
@@ -233,78 +332,37 @@ public class CandidateUtil {
 
       // Search by standard label
       if (countFinalCandidates == 0) {
-        candidates = searchCandidatesByLabel(surfaceForm, alternativeLabels, entity.getType(), popularity);
-        if (alternativeLabels) {
-          LOGGER.debug("Found {} surface form candidates for label '{}'.", candidates.size(), surfaceForm);
+        if (missedSurfaceForm != null) {
+          // the lookups below found nothing before
+          LOGGER.trace("Negative candidate cache hit!");
+          surfaceForm = missedSurfaceForm;
         } else {
-          LOGGER.debug("Found {} candidates for label '{}'.", candidates.size(), surfaceForm);
-        }
-
-        if (candidates.size() == 0) {
-          if (surfaceForm.endsWith("'s")) {
-            // removing genitive s
-            surfaceForm = surfaceForm.substring(0, surfaceForm.lastIndexOf("'s"));
-            candidates = searchCandidatesByLabel(surfaceForm, alternativeLabels, entity.getType(), popularity);
-            LOGGER.debug("No candidates founds after removing genitive.");
-          } else if (surfaceForm.endsWith("s")) {
-            // removing plural s
-            surfaceForm = surfaceForm.substring(0, surfaceForm.lastIndexOf("s"));
-            candidates = searchCandidatesByLabel(surfaceForm, alternativeLabels, entity.getType(), popularity);
-            LOGGER.debug("No candidates founds for singularized label.");
-          }
-        }
-
-        // If the set of candidates is still empty, try chopping the label by camelcase.
-        if (candidates.isEmpty() && (surfaceForm.split(" ").length == 1)) {
-          final String camelSplit = StringUtils.join(StringUtils.splitByCharacterTypeCamelCase(surfaceForm), " ");
-          surfaceForm = camelSplit;
-          candidates = searchCandidatesByLabel(camelSplit, alternativeLabels, entity.getType(), popularity);
-          if (!candidates.isEmpty()) {
-            LOGGER.debug("Found '{}' candidates by splitting '{}' into '{}'.", candidates.size(), surfaceForm,
-                camelSplit);
-          }
-        }
-
-        if (candidates.isEmpty() && !surfaceForm.equals(expandedSurfaceForm)) {
-          candidates = searchCandidatesByLabel(expandedSurfaceForm, alternativeLabels, entity.getType(), popularity);
-          LOGGER.debug("Found {} candidates for expanded label  '{}' of label '{}'.", candidates.size(), expandedSurfaceForm,
-              surfaceForm);
-        }
-
-        // If the set of candidates is still empty, here we apply stemming
-        // technique
-        if (candidates.isEmpty()) {
-          final String temp = entity.getStemmedSurfaceForm();//stemmer.stemming(surfaceForm);
-          if (StringUtils.isNotBlank(temp)) {
-            candidates = searchCandidatesByLabel(temp, alternativeLabels, entity.getType(), popularity);
-          }
-          LOGGER.debug("Found {} candidates for stem  {} of label {}.", candidates.size(), temp, surfaceForm);
+          // all fallbacks (genitive, plural, camel case, expansion, stem) are looked up at once, the first one with
+          // candidates is kept
+          final List<Variant> variants = variantGenerator.generate(surfaceForm, expandedSurfaceForm,
+              entity.getStemmedSurfaceForm());
+          final int kept = searchCandidatesByVariants(variants, alternativeLabels, entity.getType(), candidates);
+          surfaceForm = variants.get((kept >= 0) ? kept : (variants.size() - 1)).getSurfaceForm();
+          LOGGER.debug("Found {} candidates for label '{}' ({}).", candidates.size(), surfaceForm,
+              (kept >= 0) ? variants.get(kept) : variants);
         }
 
         // Prune candidates using string similarity.
         toBeAdded = Lists.newLinkedList();
         boolean added = false;
+        final String lowerCaseSurfaceForm = surfaceForm.toLowerCase();
+        final String lowerCaseExpandedSurfaceForm = expandedSurfaceForm.toLowerCase();
         for (Triple c : candidates) {
           LOGGER.trace("Candidate triple to check: " + c);
           String candidateURL = c.getSubject();
-          String cleanLabel = c.getObject();
-
-          // FIXME: This is a workaround for the aggressive cleaning of the labels in the index.
-          if (!c.getSubject().contains("/fhai/")) {
-            cleanLabel = StringUtils.normalizeSpace(
-                StringUtils.replaceChars(StringUtils.substringAfter(c.getSubject(), "resource/"), "_()", "   "));
-          }
-          // End of the fix.
-
-          cleanLabel = corporationAffixCleaner.cleanLabelsfromCorporationIdentifier(cleanLabel);
-          cleanLabel = nlp.preprocess(cleanLabel);
+          final CleanLabel cleanLabel = cleanLabel(c);
 
           // rule of thumb: no year numbers in candidates
           if (candidateURL.startsWith(nodeType)) {
             // Trigram similarity.
-            if ((metric.getDistance(cleanLabel.toLowerCase(), surfaceForm.toLowerCase()) < threshholdTrigram)) {
-              if (expandedSurfaceForm.equals(cleanLabel)
-                  || (metric.getDistance(cleanLabel.toLowerCase(), expandedSurfaceForm.toLowerCase()) < threshholdTrigram)) {
+            if ((metric.getDistance(cleanLabel.lowerCase, lowerCaseSurfaceForm) < threshholdTrigram)) {
+              if (expandedSurfaceForm.equals(cleanLabel.label)
+                  || (metric.getDistance(cleanLabel.lowerCase, lowerCaseExpandedSurfaceForm) < threshholdTrigram)) {
                 continue;
               }
 
@@ -318,9 +376,9 @@ public class CandidateUtil {
             final String redirectedURL = redirect(candidateURL);
             if (!candidateURL.equals(redirectedURL)) {
               // Replace with the redirected triple.
-              final List<Triple> redirected = index.search(redirectedURL, c.getPredicate(), null);
-              if (!redirected.isEmpty()) {
-                c = redirected.get(0);
+              final Triple redirected = redirectedTriple(redirectedURL, c.getPredicate());
+              if (redirected != null) {
+                c = redirected;
                 candidateURL = c.getSubject();
               }
             }
@@ -333,7 +391,7 @@ public class CandidateUtil {
               LOGGER.trace("Entity {} with url {} was added to the graph.", entity, candidateURL);
               countFinalCandidates++;
             } else {
-              if (preDisambiguationDomainWhiteLister.fitsIntoDomain(candidateURL, Optional.of(entity.getType()))) {
+              if (preDisambiguationDomainWhiteLister.fitsIntoDomain(candidateURL, Optional.ofNullable(entity.getType()))) {
                 if (!toBeAdded.contains(c)) {
                   toBeAdded.add(c);
                 }
@@ -344,6 +402,9 @@ public class CandidateUtil {
             }
           }
         }
+        if ((missedSurfaceForm == null) && toBeAdded.isEmpty()) {
+          negativeCandidateCache.put(negativeKey, surfaceForm);
+        }
         // Looking by context starts here.
         if (!added && !alternativeLabels && AGDISTISConfiguration.INSTANCE.getUseContext()) {
           LOGGER.debug("searchByContext");
@@ -368,7 +429,7 @@ public class CandidateUtil {
             LOGGER.trace("Candidate triple to check: " + c);
             String candidateURL = c.getSubject();
             String cleanCandidateURL = candidateURL.replace(nodeType, "");
-            cleanCandidateURL = nlp.preprocess(cleanCandidateURL);
+            cleanCandidateURL = labelNormalizer.preprocess(cleanCandidateURL);
             if (candidateURL.startsWith(nodeType)) {
               // trigram similarity over the URIS
               if (metric.getDistance(cleanCandidateURL, surfaceForm) >= 0.3) {
@@ -392,12 +453,12 @@ public class CandidateUtil {
               candidateURL = redirect(candidateURL);
               // Enabling more types of entities as the previous step.
               if (commonEntities == true) {
-                addNodeToGraph(graph, nodes, entity, c, candidateURL);
+                found.add(new Triple(candidateURL, c.getPredicate(), c.getObject()));
                 added = true;
                 countFinalCandidates++;
               } else {
-                if (preDisambiguationDomainWhiteLister.fitsIntoDomain(candidateURL, Optional.of(entity.getType()))) {
-                  addNodeToGraph(graph, nodes, entity, c, candidateURL);
+                if (preDisambiguationDomainWhiteLister.fitsIntoDomain(candidateURL, Optional.ofNullable(entity.getType()))) {
+                  found.add(new Triple(candidateURL, c.getPredicate(), c.getObject()));
                   added = true;
                   countFinalCandidates++;
                 }
@@ -406,13 +467,16 @@ public class CandidateUtil {
             linkedsbyContext.clear();
           }
         }
-        // Cache the results
-        candidateCache.put(surfaceForm, toBeAdded);
+        // Cache the results, misses are kept in the negative cache
+        if (!toBeAdded.isEmpty()) {
+          candidateCache.put(entity.getSurfaceForm(), toBeAdded);
+        }
 
-        // Looking for the given label among the set of surface forms.
-        if (!added && alternativeLabels) {
+        // Looking for the given label among the set of surface forms. Misses are no longer cached as empty candidate
+        // lists, so the retry must not retry again.
+        if (!added && alternativeLabels && retry) {
           LOGGER.debug("Search using SF from disambiguation, redirects and from anchors web pages");
-          checkLabelCandidates(graph, threshholdTrigram, nodes, entity, expandedSurfaceForm, true, entities);
+          found.addAll(fetchLabelCandidates(threshholdTrigram, entity, expandedSurfaceForm, true, entities, false));
         }
 
       }
@@ -421,10 +485,154 @@ public class CandidateUtil {
     }
     
     // Add surviving candidates to the graph
-    for (final Triple t : toBeAdded) {
-      addNodeToGraph(graph, nodes, entity, t, t.getSubject());
+    found.addAll(toBeAdded);
+    return found;
+  }
+
+  // Everything the label lookups of a mention depend on.
+  private static String negativeKey(final NamedEntityInText entity, final String expandedSurfaceForm,
+      final boolean alternativeLabels) {
+    return StringUtils.join(new Object[] { entity.getSurfaceForm(), expandedSurfaceForm, entity.getType(),
+        entity.getStemmedSurfaceForm(), alternativeLabels }, '\u0000');
+  }
+
+  /**
+   * @return the normalized label of a candidate, the label of its URI unless it is an FHAI entity.
+   */
+  private CleanLabel cleanLabel(final Triple candidate) {
+    final String uri = candidate.getSubject();
+    // FIXME: This is a workaround for the aggressive cleaning of the labels in the index.
+    if (uri.contains("/fhai/")) {
+      return new CleanLabel(labelNormalizer.normalize(candidate.getObject()));
+    }
+    CleanLabel cleanLabel = normalizedLabelCache.getIfPresent(uri);
+    if (cleanLabel == null) {
+      final int id = (normalizedLabels != null) ? index.getUriDictionary().find(uri) : UriDictionary.NO_ID;
+      final String label = (normalizedLabels != null) ? normalizedLabels.getLabel(id) : null;
+      cleanLabel = (label != null) ? new CleanLabel(label, normalizedLabels.getLowerCase(id))
+          : new CleanLabel(labelNormalizer.normalizeResource(uri));
+      normalizedLabelCache.put(uri, cleanLabel);
+    }
+    return cleanLabel;
+  }
+
+  private static final class CleanLabel {
+    private final String label;
+    private final String lowerCase;
+
+    CleanLabel(final String label) {
+      this(label, label.toLowerCase());
+    }
+
+    CleanLabel(final String label, final String lowerCase) {
+      this.label = label;
+      this.lowerCase = lowerCase;
+    }
+  }
+
+  /**
+   * Looks up the candidates of all variants of a mention and keeps those of the first variant that has any.
+   * Exact matches come from the label dictionary. The variants before the first exact match are probed in the
+   * triple index by one query per label predicate, and only the first one with hits is then searched. The exact
+   * matches of a kept variant are followed by the other hits of its token query (e.g., "Barack Obama" for "Obama")
+   * if {@link AGDISTISConfiguration#getLabelTokenMatches()} is set.
+   *
+   * @return the index of the kept variant, or -1 if no variant has candidates.
+   */
+  private int searchCandidatesByVariants(final List<Variant> variants, final boolean searchAlternativeLabels,
+      final String type, final List<Triple> candidates) {
+    if (popularity) {
+      // the popularity ranking is computed per label, so the variants are looked up one after the other
+      for (int i = 0; i < variants.size(); i++) {
+        final List<Triple> found = searchCandidatesByLabel(variants.get(i).getLabel(), searchAlternativeLabels, type,
+            true);
+        if (!found.isEmpty()) {
+          candidates.addAll(found);
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    int kept = variants.size();
+    List<Triple> exact = null;
+    if (labelIndex != null) {
+      try {
+        for (int i = 0; i < variants.size(); i++) {
+          final String label = variants.get(i).getLabel();
+          if (StringUtils.isBlank(label)) {
+            continue;
+          }
+          final List<Triple> found = labelIndex.search(label, searchAlternativeLabels, _MAX_CANDIDATE_LOOKUPS);
+          if (!found.isEmpty()) {
+            kept = i;
+            exact = found;
+            break;
+          }
+        }
+      } catch (final IOException ioe) {
+        LOGGER.error("Unable to read the label dictionary. StackTrace: {}", ExceptionUtils.getStackTrace(ioe));
+      }
+    }
+    if (kept > 0) {
+      final List<String> labels = new ArrayList<String>(kept);
+      for (final Variant variant : variants.subList(0, kept)) {
+        labels.add(variant.getLabel());
+      }
+      final boolean[] byLabel = index.matchingLiterals(LabelIndex.LABEL_PREDICATE, labels, _MAX_CANDIDATE_LOOKUPS);
+      final boolean[] byAlternativeLabel = searchAlternativeLabels
+          ? index.matchingLiterals(LabelIndex.ALT_LABEL_PREDICATE, labels, _MAX_CANDIDATE_LOOKUPS) : null;
+      for (int i = 0; i < kept; i++) {
+        if (byLabel[i] || ((byAlternativeLabel != null) && byAlternativeLabel[i])) {
+          final Set<Triple> found = new LinkedHashSet<Triple>(index.search(null, LabelIndex.LABEL_PREDICATE,
+              labels.get(i), _MAX_CANDIDATE_LOOKUPS));
+          if (byAlternativeLabel != null) {
+            found.addAll(index.search(null, LabelIndex.ALT_LABEL_PREDICATE, labels.get(i), _MAX_CANDIDATE_LOOKUPS));
+          }
+          candidates.addAll(found);
+          return i;
+        }
+      }
+    }
+    if (exact != null) {
+      candidates.addAll(addTokenMatches(exact, variants.get(kept).getLabel(), searchAlternativeLabels));
+      return kept;
+    }
+    return -1;
+  }
+
+  /**
+   * @return the exact matches of a label, followed by the other hits of the token query of the triple index, at most
+   *         {@link #_MAX_CANDIDATE_LOOKUPS} per label predicate like the token query alone. Without
+   *         {@link AGDISTISConfiguration#getLabelTokenMatches()} the exact matches only.
+   */
+  private List<Triple> addTokenMatches(final List<Triple> exact, final String label,
+      final boolean searchAlternativeLabels) {
+    if (!labelTokenMatches) {
+      return exact;
+    }
+    final Set<Triple> labels = new LinkedHashSet<Triple>();
+    final Set<Triple> altLabels = new LinkedHashSet<Triple>();
+    for (final Triple t : exact) {
+      (LabelIndex.ALT_LABEL_PREDICATE.equals(t.getPredicate()) ? altLabels : labels).add(t);
+    }
+    addUpToMax(labels, index.search(null, LabelIndex.LABEL_PREDICATE, label, _MAX_CANDIDATE_LOOKUPS));
+    if (searchAlternativeLabels) {
+      addUpToMax(altLabels, index.search(null, LabelIndex.ALT_LABEL_PREDICATE, label, _MAX_CANDIDATE_LOOKUPS));
+    }
+    final List<Triple> merged = new ArrayList<Triple>(labels.size() + altLabels.size());
+    merged.addAll(labels);
+    merged.addAll(altLabels);
+    return merged;
+  }
+
+  private static void addUpToMax(final Set<Triple> matches, final List<Triple> found) {
+    for (final Triple t : found) {
+      if (matches.size() >= _MAX_CANDIDATE_LOOKUPS) {
+        return;
+      }
+      matches.add(t);
     }
-    
   }
 
   private List<Triple> searchCandidatesByLabel(final String label, final boolean searchAlternativeLabels,
@@ -436,12 +644,12 @@ public class CandidateUtil {
       final List<Triple> tmp2 = Lists.newLinkedList();
       final List<Triple> finalTmp = Lists.newLinkedList();
       ArrayList<Triple> candidatesScore = new ArrayList<Triple>();
-      tmp.addAll(index.search(null, "http://www.w3.org/2000/01/rdf-schema#label", label, _MAX_CANDIDATE_LOOKUPS));
+      // copies, as the scores replace the predicate and object
+      tmp.addAll(copies(index.search(null, "http://www.w3.org/2000/01/rdf-schema#label", label,
+          _MAX_CANDIDATE_LOOKUPS)));
       if (searchAlternativeLabels) {
-        for (final Triple t : index.search(null, "http://www.w3.org/2004/02/skos/core#altLabel", label,
-            _MAX_CANDIDATE_LOOKUPS)) {
-          tmp.add(t);
-        }
+        tmp.addAll(copies(index.search(null, "http://www.w3.org/2004/02/skos/core#altLabel", label,
+            _MAX_CANDIDATE_LOOKUPS)));
       }
 
       for (final Triple c : tmp) {
@@ -483,6 +691,17 @@ public class CandidateUtil {
       }
       return Lists.newLinkedList(finalTmp);
     } else {
+      // Exact (normalized) matches from the label dictionary, if available, then the token query if enabled.
+      if (labelIndex != null) {
+        try {
+          final List<Triple> exact = labelIndex.search(label, searchAlternativeLabels, _MAX_CANDIDATE_LOOKUPS);
+          if (!exact.isEmpty()) {
+            return Lists.newLinkedList(addTokenMatches(exact, label, searchAlternativeLabels));
+          }
+        } catch (final IOException ioe) {
+          LOGGER.error("Unable to read the label dictionary. StackTrace: {}", ExceptionUtils.getStackTrace(ioe));
+        }
+      }
       final Set<Triple> tmp = new LinkedHashSet<Triple>();
       tmp.addAll(index.search(null, "http://www.w3.org/2000/01/rdf-schema#label", label, _MAX_CANDIDATE_LOOKUPS));
       if (searchAlternativeLabels) {
@@ -518,6 +737,17 @@ public class CandidateUtil {
     return tmp;
   }
 
+  /**
+   * @return copies of the triples, which may be changed without changing those cached by the index.
+   */
+  private static List<Triple> copies(final List<Triple> triples) {
+    final List<Triple> copies = new ArrayList<Triple>(triples.size());
+    for (final Triple t : triples) {
+      copies.add(new Triple(t.getSubject(), t.getPredicate(), t.getObject()));
+    }
+    return copies;
+  }
+
   List<Triple> searchbyConnections(final String uri, final String uri2) {
     return index.search(uri, null, uri2, _MAX_RETRIEVED_CONNECTIONS);
   }
@@ -529,7 +759,8 @@ public class CandidateUtil {
     ArrayList<Triple> candidatesScore = new ArrayList<Triple>();
 
     if (popularity) {
-      final List<Triple> tmp = index.search(url, "http://www.w3.org/2000/01/rdf-schema#label", null, 10);
+      // copies, as the scores replace the predicate and object
+      final List<Triple> tmp = copies(index.search(url, "http://www.w3.org/2000/01/rdf-schema#label", null, 10));
 
       for (final Triple c : tmp) {
         tmp2.add(new Triple(c.getSubject(), c.getPredicate(), c.getObject()));
@@ -578,12 +809,21 @@ public class CandidateUtil {
     final List<String> types = Lists.newLinkedList();
 
     // get the type from the redirection.
-    final List<Triple> triples = index.search(redirect(entityURI), "http://www.w3.org/1999/02/22-rdf-syntax-ns#type",
-        null, 20);
+    final TypeIndex typeIndex = index.getTypes();
+    if (typeIndex != null) {
+      final int entityId = index.getId(redirect(entityURI));
+      for (int i = typeIndex.start(entityId); i < typeIndex.end(entityId); i++) {
+        if (typeIndex.isOntologyType(typeIndex.type(i))) {
+          types.add(index.getUri(typeIndex.type(i)));
+        }
+      }
+      return types;
+    }
+    final List<Triple> triples = index.search(redirect(entityURI), TypeIndex.TYPE_PREDICATE, null, 20);
 
     for (final Triple triple : triples) {
       final String typeURI = triple.getObject();
-      if (!typeURI.equals(THING_TYPE) && typeURI.startsWith(DBPEDIA_TYPE_PREFIX)) {
+      if (!typeURI.equals(TypeIndex.THING_TYPE) && typeURI.startsWith(TypeIndex.DBPEDIA_TYPE_PREFIX)) {
         types.add(typeURI);
       }
     }
@@ -591,6 +831,9 @@ public class CandidateUtil {
   }
 
   private boolean isDisambiguationResource(final String candidateURL) {
+    if (redirects != null) {
+      return redirects.isDisambiguation(index.getId(candidateURL));
+    }
 
     final Boolean in = disambiguationPageCache.getIfPresent(candidateURL);
     if (in != null) {
@@ -607,10 +850,30 @@ public class CandidateUtil {
     }
   }
 
+  /**
+   * @return the first triple of the redirect target with the given predicate, in the order of the triple index, or
+   *         <code>null</code> if there is none. Labels are read from the label dictionary if there is one.
+   */
+  private Triple redirectedTriple(final String redirectedURL, final String predicate) {
+    if (labelIndex != null) {
+      final Optional<Triple> first = labelIndex.firstLabel(index.getUriDictionary().find(redirectedURL), predicate);
+      if (first != null) {
+        return first.orElse(null);
+      }
+    }
+    final List<Triple> redirected = index.search(redirectedURL, predicate, null);
+    return redirected.isEmpty() ? null : redirected.get(0);
+  }
+
   private String redirect(final String candidateURL) {
     if (candidateURL == null) {
       return candidateURL;
     }
+    if (redirects != null) {
+      final int candidateId = index.getId(candidateURL);
+      final int targetId = redirects.resolve(candidateId);
+      return (targetId == candidateId) ? candidateURL : index.getUri(targetId);
+    }
     final List<Triple> redirect = index.search(candidateURL, "http://dbpedia.org/ontology/wikiPageRedirects", null, 1);
     if (redirect.size() == 1) {
       return redirect.get(0).getObject();
@@ -622,7 +885,17 @@ public class CandidateUtil {
     }
   }
 
+  /**
+   * @return hit and miss counts of the cache of mentions without candidates.
+   */
+  public CacheStats getNegativeCandidateCacheStats() {
+    return negativeCandidateCache.stats();
+  }
+
   public void close() throws IOException {
+    if (candidateExecutor != null) {
+      candidateExecutor.shutdown();
+    }
     index.close();
   }
 
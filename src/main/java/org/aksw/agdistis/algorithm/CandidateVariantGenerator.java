@@ -0,0 +1,101 @@
+package org.aksw.agdistis.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Derives the labels under which the candidates of a mention are looked up, best first: the surface form itself, the
+ * surface form without a genitive or plural s, a single token split at case changes, the heuristic expansion, and the
+ * stem. The candidates of a variant are only used if no variant before it has any, so all variants can be looked up at
+ * once and the first non-empty one kept.
+ * <p>
+ * Each variant also carries the surface form the remaining candidate selection compares candidates against if the
+ * variant is the one kept. If no variant has candidates, that is the form of the last variant.
+ */
+public class CandidateVariantGenerator {
+
+  public enum Kind {
+    LABEL, GENITIVE, PLURAL, CAMEL_CASE, EXPANDED, STEM
+  }
+
+  public static final class Variant {
+    private final Kind kind;
+    private final String label;
+    private final String surfaceForm;
+
+    Variant(final Kind kind, final String label, final String surfaceForm) {
+      this.kind = kind;
+      this.label = label;
+      this.surfaceForm = surfaceForm;
+    }
+
+    public Kind getKind() {
+      return kind;
+    }
+
+    /**
+     * @return the label to look up.
+     */
+    public String getLabel() {
+      return label;
+    }
+
+    /**
+     * @return the surface form candidates are compared against if this variant is kept.
+     */
+    public String getSurfaceForm() {
+      return surfaceForm;
+    }
+
+    @Override
+    public String toString() {
+      return kind + ":" + label;
+    }
+  }
+
+  /**
+   * @param surfaceForm
+   *          the cleaned surface form of the mention.
+   * @param expandedSurfaceForm
+   *          the heuristic expansion of the mention, or its label.
+   * @param stem
+   *          the stemmed surface form, may be blank.
+   * @return the variants, best first. A variant whose label equals that of a better one is left out, as it would find
+   *         the same candidates.
+   */
+  public List<Variant> generate(final String surfaceForm, final String expandedSurfaceForm, final String stem) {
+    final List<Variant> variants = new ArrayList<Variant>();
+    add(variants, Kind.LABEL, surfaceForm, surfaceForm);
+
+    String form = surfaceForm;
+    if (form.endsWith("'s")) {
+      form = form.substring(0, form.lastIndexOf("'s"));
+      add(variants, Kind.GENITIVE, form, form);
+    } else if (form.endsWith("s")) {
+      form = form.substring(0, form.lastIndexOf("s"));
+      add(variants, Kind.PLURAL, form, form);
+    }
+    if (form.split(" ").length == 1) {
+      form = StringUtils.join(StringUtils.splitByCharacterTypeCamelCase(form), " ");
+      add(variants, Kind.CAMEL_CASE, form, form);
+    }
+    if (!form.equals(expandedSurfaceForm)) {
+      add(variants, Kind.EXPANDED, expandedSurfaceForm, form);
+    }
+    if (StringUtils.isNotBlank(stem)) {
+      add(variants, Kind.STEM, stem, form);
+    }
+    return variants;
+  }
+
+  private static void add(final List<Variant> variants, final Kind kind, final String label, final String form) {
+    for (final Variant v : variants) {
+      if (v.label.equals(label)) {
+        return;
+      }
+    }
+    variants.add(new Variant(kind, label, form));
+  }
+}
@@ -2,7 +2,9 @@ package org.aksw.agdistis.algorithm;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Set;
 
 import org.aksw.agdistis.AGDISTISConfiguration;
 import org.apache.commons.io.IOUtils;
@@ -29,4 +31,8 @@ public class CorporationAffixCleaner {
     return label.trim();
   }
 
+  public Set<String> getCorporationAffixes() {
+    return Collections.unmodifiableSet(corporationAffixes);
+  }
+
 }
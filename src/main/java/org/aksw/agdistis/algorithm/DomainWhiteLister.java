@@ -4,28 +4,57 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.aksw.agdistis.AGDISTISConfiguration;
+import org.aksw.agdistis.util.IntObjectHashMap;
 import org.aksw.agdistis.util.Triple;
 import org.aksw.agdistis.util.TripleIndex;
+import org.aksw.agdistis.util.TypeIndex;
+import org.aksw.agdistis.util.UriDictionary;
+import org.apache.lucene.util.FixedBitSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 
 import net.logstash.logback.encoder.org.apache.commons.lang.StringUtils;
 import smile.data.parser.IOUtils;
 
+/**
+ * Decides whether a candidate entity belongs to the domain defined by a whitelist of URIs and types, given the NER
+ * type of the mention.
+ * <p>
+ * If the index has a type column, the whitelist and the NER2NED mapping are compiled at construction into one bitset
+ * of admissible entity ids per NER type, and {@link #fitsIntoDomain} is a single bit test. Otherwise, the verdict is
+ * computed from the <code>rdf:type</code> triples of the candidate and cached per (NER type, entity).
+ */
 public class DomainWhiteLister {
   private static Logger log = LoggerFactory.getLogger(DomainWhiteLister.class);
 
   private final TripleIndex index;
   private final HashSet<String> whiteList = new HashSet<String>();
-  // The size of this cache should be the same as the size of the candidate cache.
-  private final Cache<String, Boolean> whiteListCache = CacheBuilder.newBuilder()
+  private final boolean forceNER2NEDMapping;
+  private final Map<String, String> ner2ned;
+  private final String edgeType;
+
+  // Compiled verdicts, null if the index has no type column.
+  private final FixedBitSet withoutNerType;
+  private final FixedBitSet otherNerType;
+  private final Map<String, FixedBitSet> byNerType;
+
+  // The size of this cache should be the same as the size of the candidate cache. Keyed by NER type and URI id.
+  private final Cache<Long, Boolean> whiteListCache = CacheBuilder.newBuilder()
       .maximumSize(AGDISTISConfiguration.INSTANCE.getCandidateCacheSize()).build();
+  private final ConcurrentMap<String, Integer> nerTypeKeys = new ConcurrentHashMap<>();
+  private final AtomicInteger nextNerTypeKey = new AtomicInteger(1);
 
   public DomainWhiteLister(final TripleIndex index, final Path whiteListPath) {
 
@@ -35,47 +64,149 @@ public class DomainWhiteLister {
       log.error("Unable to load whitelist content from {}. Proceed with an empty whitelist.", whiteListPath.toString());
     }
     this.index = index;
+    forceNER2NEDMapping = AGDISTISConfiguration.INSTANCE.getForceNER2NEDMapping();
+    ner2ned = ImmutableMap.copyOf(AGDISTISConfiguration.INSTANCE.getNER2NEDMapping());
+    edgeType = AGDISTISConfiguration.INSTANCE.getEdgeType().toString();
+
+    final TypeIndex types = index.getTypes();
+    if (types == null) {
+      withoutNerType = null;
+      otherNerType = null;
+      byNerType = null;
+      return;
+    }
+    final long start = System.currentTimeMillis();
+    final int size = index.getUriDictionary().size();
+    withoutNerType = new FixedBitSet(size);
+    otherNerType = new FixedBitSet(size);
+    byNerType = Maps.newHashMap();
+    for (final String nerType : ner2ned.values()) {
+      byNerType.put(nerType, new FixedBitSet(size));
+    }
+    if (whiteList.isEmpty()) {
+      // Any typed entity is admissible. Without a NER type (or without forced mapping) every entity is, but that
+      // case does not need a bitset.
+      for (int entityId = 0; entityId < size; entityId++) {
+        if (types.end(entityId) > types.start(entityId)) {
+          setAll(entityId);
+        }
+      }
+    } else {
+      // The NER type each whitelisted type requires, or the empty string if it is compatible with all NER types.
+      final IntObjectHashMap<String> whiteListedTypes = new IntObjectHashMap<String>();
+      for (final String entry : whiteList) {
+        final int id = index.getUriDictionary().find(entry);
+        if ((id != UriDictionary.NO_ID) && (id < size)) {
+          final String required = requiredNerType(entry);
+          whiteListedTypes.put(id, required == null ? "" : required);
+          // whitelisted entities
+          setAll(id);
+        }
+      }
+      for (int entityId = 0; entityId < size; entityId++) {
+        for (int i = types.start(entityId); i < types.end(entityId); i++) {
+          final String required = whiteListedTypes.get(types.type(i));
+          if (required == null) {
+            continue;
+          }
+          if (required.isEmpty()) {
+            setAll(entityId);
+          } else {
+            byNerType.get(required).set(entityId);
+            withoutNerType.set(entityId);
+          }
+        }
+      }
+    }
+    log.info("Compiled the whitelist {} in {} msecs. {} entities are admissible without NER type.", whiteListPath,
+        System.currentTimeMillis() - start, withoutNerType.cardinality());
+  }
+
+  private void setAll(final int entityId) {
+    withoutNerType.set(entityId);
+    otherNerType.set(entityId);
+    for (final FixedBitSet bits : byNerType.values()) {
+      bits.set(entityId);
+    }
+  }
+
+  public boolean fitsIntoDomain(final String candidateURL, final Optional<String> nerType) {
+    return fitsIntoDomain(index.getId(candidateURL), candidateURL, nerType);
+  }
+
+  public boolean fitsIntoDomain(final int candidateId, final Optional<String> nerType) {
+    return fitsIntoDomain(candidateId, null, nerType);
   }
 
-  public boolean fitsIntoDomain(final String candidateURL, Optional<String> nerType) {
+  private boolean fitsIntoDomain(final int candidateId, String candidateURL, final Optional<String> nerType) {
+    if (whiteList.isEmpty() && (!nerType.isPresent() || !forceNER2NEDMapping)) {
+      return true;
+    }
+    if (byNerType != null) {
+      if ((candidateId >= 0) && (candidateId < withoutNerType.length())) {
+        return verdicts(nerType).get(candidateId);
+      }
+      // Not in the index, so there are no types either.
+      if (candidateURL == null) {
+        candidateURL = index.getUri(candidateId);
+      }
+      return whiteList.contains(candidateURL);
+    }
 
-    final Boolean present = whiteListCache.getIfPresent(candidateURL);
+    if (candidateURL == null) {
+      candidateURL = index.getUri(candidateId);
+    }
+    final long cacheKey = ((long) nerTypeKey(nerType) << 32) | (candidateId & 0xffffffffL);
+    final Boolean present = whiteListCache.getIfPresent(cacheKey);
     if (present != null) {
       log.trace("Whitelisting cache hit.");
       return present;
     }
-    if (whiteList.contains(candidateURL) || (whiteList.isEmpty()
-        && ((!nerType.isPresent()) || (AGDISTISConfiguration.INSTANCE.getForceNER2NEDMapping() == false)))) {
-      whiteListCache.put(candidateURL, true);
-      return true;
+    final boolean fits = whiteList.contains(candidateURL) || fitsByTypes(candidateURL, nerType);
+    whiteListCache.put(cacheKey, fits);
+    return fits;
+  }
+
+  private FixedBitSet verdicts(final Optional<String> nerType) {
+    if (!nerType.isPresent()) {
+      return withoutNerType;
     }
-    final List<Triple> tmp = index.search(candidateURL, "http://www.w3.org/1999/02/22-rdf-syntax-ns#type", null, 20);
-    if (tmp.isEmpty()) {
-      whiteListCache.put(candidateURL, false);
-      return false;
+    final FixedBitSet bits = byNerType.get(nerType.get());
+    return (bits != null) ? bits : otherNerType;
+  }
+
+  private int nerTypeKey(final Optional<String> nerType) {
+    if (!nerType.isPresent()) {
+      return 0;
     }
+    return nerTypeKeys.computeIfAbsent(nerType.get(), t -> nextNerTypeKey.getAndIncrement());
+  }
+
+  private boolean fitsByTypes(final String candidateURL, final Optional<String> nerType) {
+    final List<Triple> tmp = index.search(candidateURL, TypeIndex.TYPE_PREDICATE, null, 20);
     for (final Triple triple : tmp) {
       if (!triple.getObject().contains("wordnet") && !triple.getObject().contains("wikicategory")) {
-        if ((whiteList.contains(triple.getObject()) && isNERCompliant(nerType.get(), triple.getObject()))
-            || whiteList.isEmpty()) {
-          whiteListCache.put(candidateURL, true);
+        if (whiteList.isEmpty() || (whiteList.contains(triple.getObject())
+            && isNERCompliant(nerType, triple.getObject()))) {
           return true;
         }
       }
     }
-    whiteListCache.put(candidateURL, false);
     return false;
   }
 
-  private boolean isNERCompliant(final String nerType, final String nedURI) {
-    if (AGDISTISConfiguration.INSTANCE.getForceNER2NEDMapping()) {
-      final String nedType = StringUtils.substringAfter(nedURI,
-          AGDISTISConfiguration.INSTANCE.getEdgeType().toString());
-      if (AGDISTISConfiguration.INSTANCE.getNER2NEDMapping().containsKey(nedType)) {
-        return nerType.equals(AGDISTISConfiguration.INSTANCE.getNER2NEDMapping().get(nedType));
-      }
-      return true;
+  private boolean isNERCompliant(final Optional<String> nerType, final String nedURI) {
+    final String required = requiredNerType(nedURI);
+    return (required == null) || !nerType.isPresent() || nerType.get().equals(required);
+  }
+
+  /**
+   * @return the NER type an entity of the given type must have, or <code>null</code> if any NER type is compatible.
+   */
+  private String requiredNerType(final String nedURI) {
+    if (forceNER2NEDMapping) {
+      return ner2ned.get(StringUtils.substringAfter(nedURI, edgeType));
     }
-    return true;
+    return null;
   }
 }
@@ -0,0 +1,327 @@
+package org.aksw.agdistis.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.aksw.agdistis.util.Hasher;
+import org.aksw.agdistis.util.IntObjectHashMap;
+import org.aksw.agdistis.util.PreprocessingNLP;
+import org.aksw.agdistis.util.Word2num;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Normalizes surface forms and candidate labels exactly like {@link CorporationAffixCleaner} followed by
+ * {@link PreprocessingNLP#preprocess(String)}, but in a few passes over a buffer of the calling thread instead of a
+ * chain of intermediate strings. Only the result is allocated.
+ * <p>
+ * Labels with lowercase number words or magnitudes ("two", "thousand", "point", ...) are rare and still go through
+ * {@link Word2num}. Labels with non-ASCII characters are cased by {@link String} methods, as their upper and lower case
+ * forms may differ in length. Instances are thread-safe.
+ */
+public class LabelNormalizer {
+
+  // to be increased whenever the output of the normalization changes
+  private static final int _VERSION = 1;
+  private static final String[] _MAGNITUDES = { Word2num.MAGNITUDES[1], Word2num.MAGNITUDES[2],
+      Word2num.MAGNITUDES[3] };
+  private static final char _ZERO_WIDTH_SPACE = (char) 8203;
+  private static final char _NO_BREAK_SPACE = (char) 160;
+
+  private final Words corporationAffixes;
+  private final Words numberWords;
+  private final Word2num word2num = new Word2num();
+  // the default locale cases ASCII letters like the root locale
+  private final boolean asciiCasing;
+  private final long fingerprint;
+  private final ThreadLocal<char[][]> buffers = ThreadLocal.withInitial(() -> new char[][] { new char[64] });
+
+  public LabelNormalizer(final Collection<String> corporationAffixes) {
+    this.corporationAffixes = new Words(corporationAffixes);
+    final List<String> words = new ArrayList<String>(Arrays.asList(Word2num.DIGITS));
+    for (final String tens : Word2num.TENS) {
+      if (tens != null) {
+        words.add(tens);
+      }
+    }
+    numberWords = new Words(words);
+    final String language = Locale.getDefault().getLanguage();
+    asciiCasing = !"tr".equals(language) && !"az".equals(language) && !"lt".equals(language);
+    final List<String> affixes = new ArrayList<String>(corporationAffixes);
+    Collections.sort(affixes);
+    fingerprint = Hasher.hash(_VERSION + "\u0000" + Locale.getDefault().toLanguageTag() + "\u0000"
+        + StringUtils.join(affixes, '\u0000'));
+  }
+
+  /**
+   * @return identifies the output of this normalizer, which depends on the corporation affixes and the default
+   *         locale.
+   */
+  public long getFingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * @return the label without a trailing corporation affix, preprocessed.
+   */
+  public String normalize(final String label) {
+    final char[] buf = buffer(label.length());
+    label.getChars(0, label.length(), buf, 0);
+    return preprocess(buf, stripCorporationAffix(buf, label.length()));
+  }
+
+  /**
+   * @return the label like {@link PreprocessingNLP#preprocess(String)} returns it.
+   */
+  public String preprocess(final String label) {
+    final char[] buf = buffer(label.length());
+    label.getChars(0, label.length(), buf, 0);
+    return preprocess(buf, label.length());
+  }
+
+  /**
+   * @return the label of a resource, taken from its URI: the part after "resource/", with underscores and parentheses
+   *         replaced by spaces, normalized like {@link #normalize(String)}.
+   */
+  public String normalizeResource(final String uri) {
+    final int start = uri.indexOf("resource/");
+    if (start < 0) {
+      return normalize("");
+    }
+    final int from = start + "resource/".length();
+    final char[] buf = buffer(uri.length() - from);
+    int length = 0;
+    for (int i = from; i < uri.length(); i++) {
+      final char c = uri.charAt(i);
+      buf[length++] = ((c == '_') || (c == '(') || (c == ')')) ? ' ' : c;
+    }
+    length = normalizeSpace(buf, length);
+    length = stripCorporationAffix(buf, length);
+    return preprocess(buf, length);
+  }
+
+  private String preprocess(char[] buf, int length) {
+    if (hasNumberWords(buf, length)) {
+      final String numbers = word2num.replaceNumbers(new String(buf, 0, length));
+      if (!numbers.equals("000")) {
+        buf = buffer(numbers.length());
+        numbers.getChars(0, numbers.length(), buf, 0);
+        length = numbers.length();
+      }
+    }
+    length = normalizeSpace(buf, length);
+
+    // the special characters, all single characters that do not occur in their replacements
+    int count = 0;
+    boolean ascii = true;
+    boolean lowerCase = false;
+    boolean upperCase = false;
+    for (int i = 0; i < length; i++) {
+      char c = buf[i];
+      if ((c == '#') || (c == ',') || (c == '.') || (c == _ZERO_WIDTH_SPACE)) {
+        continue;
+      }
+      if (c == '_') {
+        c = ' ';
+      }
+      ascii &= c < 128;
+      lowerCase |= (c >= 'a') && (c <= 'z');
+      upperCase |= (c >= 'A') && (c <= 'Z');
+      buf[count++] = c;
+    }
+    length = count;
+
+    if (!ascii || !asciiCasing) {
+      return legacyCase(new String(buf, 0, length));
+    }
+    if (length > 4) {
+      if (!lowerCase) {
+        // all upper case, the first character is kept
+        for (int i = 1; i < length; i++) {
+          if ((buf[i] >= 'A') && (buf[i] <= 'Z')) {
+            buf[i] += 'a' - 'A';
+          }
+        }
+      } else if (!upperCase && (buf[0] >= 'a') && (buf[0] <= 'z')) {
+        buf[0] -= 'a' - 'A';
+      }
+    }
+    return new String(buf, 0, length);
+  }
+
+  // The case treatment of PreprocessingNLP.
+  private static String legacyCase(String label) {
+    if (label.equals(label.toUpperCase()) && (label.length() > 4)) {
+      label = label.substring(0, 1).toUpperCase() + label.substring(1).toLowerCase();
+    }
+    if (label.equals(label.toLowerCase()) && (label.length() > 4)) {
+      label = label.substring(0, 1).toUpperCase() + label.substring(1);
+    }
+    return label;
+  }
+
+  // Removes commas and a trailing corporation affix token, like CorporationAffixCleaner.
+  private int stripCorporationAffix(final char[] buf, final int length) {
+    int count = 0;
+    for (int i = 0; i < length; i++) {
+      if (buf[i] != ',') {
+        buf[count++] = buf[i];
+      }
+    }
+    // the last token, tokens are separated by spaces
+    int end = count;
+    while ((end > 0) && (buf[end - 1] == ' ')) {
+      end--;
+    }
+    int start = end;
+    while ((start > 0) && (buf[start - 1] != ' ')) {
+      start--;
+    }
+    if ((start < end) && corporationAffixes.contains(buf, start, end)) {
+      // the other tokens, joined by single spaces
+      final int tokens = start;
+      count = 0;
+      boolean space = false;
+      for (int i = 0; i < tokens; i++) {
+        if (buf[i] == ' ') {
+          space = count > 0;
+        } else {
+          if (space) {
+            buf[count++] = ' ';
+            space = false;
+          }
+          buf[count++] = buf[i];
+        }
+      }
+    }
+    return trim(buf, count);
+  }
+
+  // Whether Word2num could read the label as a number.
+  private boolean hasNumberWords(final char[] buf, final int length) {
+    for (final String magnitude : _MAGNITUDES) {
+      if (indexOf(buf, length, magnitude) >= 0) {
+        return true;
+      }
+    }
+    // the tokens of a StringTokenizer
+    int start = -1;
+    for (int i = 0; i <= length; i++) {
+      final boolean delimiter = (i == length) || (buf[i] == ' ') || (buf[i] == '\t') || (buf[i] == '\n')
+          || (buf[i] == '\r') || (buf[i] == '\f');
+      if (!delimiter) {
+        if (start < 0) {
+          start = i;
+        }
+      } else if (start >= 0) {
+        if (numberWords.contains(buf, start, i)) {
+          return true;
+        }
+        start = -1;
+      }
+    }
+    return false;
+  }
+
+  // Like StringUtils.normalizeSpace: trims, collapses whitespace to single spaces and replaces no-break spaces.
+  private static int normalizeSpace(final char[] buf, final int length) {
+    int count = 0;
+    int whitespaces = 0;
+    boolean leading = true;
+    for (int i = 0; i < length; i++) {
+      final char c = buf[i];
+      if (Character.isWhitespace(c)) {
+        if ((whitespaces == 0) && !leading) {
+          buf[count++] = ' ';
+        }
+        whitespaces++;
+      } else {
+        leading = false;
+        buf[count++] = (c == _NO_BREAK_SPACE) ? ' ' : c;
+        whitespaces = 0;
+      }
+    }
+    if (leading) {
+      return 0;
+    }
+    return trim(buf, count - ((whitespaces > 0) ? 1 : 0));
+  }
+
+  // Like String.trim.
+  private static int trim(final char[] buf, int length) {
+    int start = 0;
+    while ((start < length) && (buf[start] <= ' ')) {
+      start++;
+    }
+    while ((length > start) && (buf[length - 1] <= ' ')) {
+      length--;
+    }
+    if (start > 0) {
+      System.arraycopy(buf, start, buf, 0, length - start);
+    }
+    return length - start;
+  }
+
+  private static int indexOf(final char[] buf, final int length, final String s) {
+    outer: for (int i = 0; i <= (length - s.length()); i++) {
+      for (int j = 0; j < s.length(); j++) {
+        if (buf[i + j] != s.charAt(j)) {
+          continue outer;
+        }
+      }
+      return i;
+    }
+    return -1;
+  }
+
+  private char[] buffer(final int length) {
+    final char[][] holder = buffers.get();
+    if (holder[0].length < length) {
+      holder[0] = new char[Math.max(length, 2 * holder[0].length)];
+    }
+    return holder[0];
+  }
+
+  /**
+   * A set of words that can be probed with a range of characters.
+   */
+  private static final class Words {
+    private final IntObjectHashMap<List<String>> byHash = new IntObjectHashMap<List<String>>();
+
+    Words(final Collection<String> words) {
+      for (final String word : words) {
+        List<String> bucket = byHash.get(word.hashCode());
+        if (bucket == null) {
+          byHash.put(word.hashCode(), bucket = new ArrayList<String>(1));
+        }
+        bucket.add(word);
+      }
+    }
+
+    boolean contains(final char[] buf, final int start, final int end) {
+      int hash = 0;
+      for (int i = start; i < end; i++) {
+        hash = (31 * hash) + buf[i];
+      }
+      final List<String> bucket = byHash.get(hash);
+      if (bucket == null) {
+        return false;
+      }
+      outer: for (final String word : bucket) {
+        if (word.length() != (end - start)) {
+          continue;
+        }
+        for (int i = 0; i < word.length(); i++) {
+          if (word.charAt(i) != buf[start + i]) {
+            continue outer;
+          }
+        }
+        return true;
+      }
+      return false;
+    }
+  }
+}
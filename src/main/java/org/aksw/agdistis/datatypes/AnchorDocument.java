@@ -2,6 +2,10 @@ package org.aksw.agdistis.datatypes;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
+
+import org.aksw.agdistis.util.InlinkBitmap;
+import org.aksw.agdistis.util.InlinkSketch;
 
 
 
@@ -17,7 +21,12 @@ public class AnchorDocument implements Comparable<AnchorDocument>{
     
     private double score;
     
-    public List<Integer> inLinks = new ArrayList<Integer>();
+    // the ids of the entities linking to this one, null until they are read
+    private InlinkBitmap inLinkBitmap;
+    // reads the inlinks if they are only needed where the sketches are not precise enough
+    private Supplier<int[]> inLinkLoader;
+    // MinHash sketch of the inlinks, null if the index has none
+    public InlinkSketch inLinkSketch;
     public List<Integer> relatedDocumentIds;
     
     public int linkedMentionIndex;
@@ -77,6 +86,33 @@ public class AnchorDocument implements Comparable<AnchorDocument>{
         
     }
     
+    /**
+     * Sets the inlinks, which have to be sorted and distinct. Only their compressed bitmap is kept.
+     */
+    public void setInLinks(final int[] sortedInLinks) {
+        inLinkBitmap = InlinkBitmap.of(sortedInLinks);
+    }
+
+    /**
+     * Sets where the inlinks are read from on first use, if they were not set.
+     */
+    public void setInLinkLoader(final Supplier<int[]> inLinkLoader) {
+        this.inLinkLoader = inLinkLoader;
+    }
+
+    /**
+     * @return the inlinks as a compressed bitmap, read on first use if only a loader was set.
+     */
+    public InlinkBitmap getInLinkBitmap() {
+        InlinkBitmap bitmap = inLinkBitmap;
+        if (bitmap == null) {
+            final Supplier<int[]> loader = inLinkLoader;
+            bitmap = (loader == null) ? InlinkBitmap.EMPTY : InlinkBitmap.of(loader.get());
+            inLinkBitmap = bitmap;
+        }
+        return bitmap;
+    }
+
     public String getIdTypeString() {
         return idTypeString;
     }
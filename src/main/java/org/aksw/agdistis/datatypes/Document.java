@@ -11,6 +11,9 @@ public class Document {
   private NamedEntitiesInText nes;
   private long disambiguationTime;
   private long candidateSelectionTime;
+  private int scoringIterations;
+  private int neighbourhoodCacheHits;
+  private int neighbourhoodCacheMisses;
   private String agdistisVersion;
 
   public Document() {
@@ -90,6 +93,48 @@ public class Document {
     this.candidateSelectionTime = candidateSelectionTime;
   }
 
+  /**
+   * @return the number of HITS or PageRank iterations run on the disambiguation graph
+   */
+  public int getScoringIterations() {
+    return scoringIterations;
+  }
+
+  /**
+   * @param scoringIterations the scoringIterations to set
+   */
+  public void setScoringIterations(final int scoringIterations) {
+    this.scoringIterations = scoringIterations;
+  }
+
+  /**
+   * @return the number of entities whose outgoing edges the graph expansion found in the neighbourhood cache
+   */
+  public int getNeighbourhoodCacheHits() {
+    return neighbourhoodCacheHits;
+  }
+
+  /**
+   * @param neighbourhoodCacheHits the neighbourhoodCacheHits to set
+   */
+  public void setNeighbourhoodCacheHits(final int neighbourhoodCacheHits) {
+    this.neighbourhoodCacheHits = neighbourhoodCacheHits;
+  }
+
+  /**
+   * @return the number of entities whose outgoing edges the graph expansion looked up in the index
+   */
+  public int getNeighbourhoodCacheMisses() {
+    return neighbourhoodCacheMisses;
+  }
+
+  /**
+   * @param neighbourhoodCacheMisses the neighbourhoodCacheMisses to set
+   */
+  public void setNeighbourhoodCacheMisses(final int neighbourhoodCacheMisses) {
+    this.neighbourhoodCacheMisses = neighbourhoodCacheMisses;
+  }
+
   /**
    * @return the agdistisVersion
    */
@@ -1,65 +1,446 @@
 package org.aksw.agdistis.graph;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.UnsupportedEncodingException;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Queue;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import org.aksw.agdistis.AGDISTISConfiguration;
 import org.aksw.agdistis.Algorithm;
+import org.aksw.agdistis.util.AdjacencyIndex;
+import org.aksw.agdistis.graph.NeighbourhoodCache.Neighbourhood;
+import org.aksw.agdistis.util.EntityPriors;
+import org.aksw.agdistis.util.IntArrayList;
+import org.aksw.agdistis.util.IntObjectHashMap;
 import org.aksw.agdistis.util.Triple;
 import org.aksw.agdistis.util.TripleIndex;
-import org.apache.commons.lang3.StringUtils;
-
-import edu.uci.ics.jung.graph.DirectedSparseGraph;
+import org.aksw.agdistis.util.UriDictionary;
 
+/**
+ * Expands the candidate graph level by level. The outgoing triples of a whole level are looked up in one batch, which
+ * is split across an executor if one is given.
+ * <p>
+ * With entity priors in the index, the outgoing edges kept per node are those to the targets with the highest prior,
+ * and targets with a prior above the hub degree threshold get proportionally smaller HITS weights. Without priors, the
+ * first edges in index order are kept. The expansion stops adding nodes or edges once the per-document budgets are
+ * used up.
+ */
 public class BreadthFirstSearch {
-  private final HashMap<String, Node> findNode = new HashMap<String, Node>();
+  // Nodes of the graph keyed by the dictionary id of their URI.
+  private final IntObjectHashMap<Node> findNode = new IntObjectHashMap<Node>();
+  // Predicate URIs keyed by dictionary id, so that the nodes reached over the same predicate share the string.
+  private final IntObjectHashMap<String> predicateNames = new IntObjectHashMap<String>();
   private final TripleIndex index;
   private final Algorithm algorithm;
-  private final int _MAX_OUTGOING_NODES = 100;
+  private final ExecutorService executor;
+  private final NeighbourhoodCache neighbourhoods;
+  private final EntityPriors priors;
+  private final int maxOutgoing;
+  private final int maxNodes;
+  private final int maxEdges;
+  private final int hubDegreeThreshold;
+  // outgoing edges of the entity being looked up
+  private final IntArrayList targetIds = new IntArrayList();
+  private final IntArrayList predicateIds = new IntArrayList();
+  // lookups of this search answered by the neighbourhood cache, and those that were not
+  private int neighbourhoodCacheHits;
+  private int neighbourhoodCacheMisses;
+  // How many more triples than kept edges are fetched per node to select from when priors are available.
+  private static final int _FETCH_FACTOR = 4;
+  // Smallest number of nodes handed to a thread of the executor.
+  private static final int _BATCH_SIZE = 64;
+  // The expanded level of a node that was not expanded, above every level.
+  private static final int _NOT_EXPANDED = Integer.MAX_VALUE;
 
   public BreadthFirstSearch(final TripleIndex index, final Algorithm algorithm) {
+    this(index, algorithm, null, null);
+  }
+
+  /**
+   * @param executor
+   *          runs the index lookups of large levels in parallel, <code>null</code> to run them on the calling thread.
+   * @param neighbourhoods
+   *          the outgoing edges known from previous documents, <code>null</code> to look up every node.
+   */
+  public BreadthFirstSearch(final TripleIndex index, final Algorithm algorithm, final ExecutorService executor,
+      final NeighbourhoodCache neighbourhoods) {
     this.index = index;
     this.algorithm = algorithm;
+    this.executor = executor;
+    this.neighbourhoods = neighbourhoods;
+    priors = index.getPriors();
+    maxOutgoing = AGDISTISConfiguration.INSTANCE.getBfsMaxOutgoing();
+    maxNodes = AGDISTISConfiguration.INSTANCE.getBfsMaxNodes();
+    maxEdges = AGDISTISConfiguration.INSTANCE.getBfsMaxEdges();
+    hubDegreeThreshold = AGDISTISConfiguration.INSTANCE.getHubDegreeThreshold();
   }
 
-  @SuppressWarnings("unchecked")
- public void run(final int maxDepth, final DirectedSparseGraph<Node, String> graph, final String edgeType,
+  public void run(final int maxDepth, final DisambiguationGraph graph, final String edgeType,
       final String nodeType) throws UnsupportedEncodingException, IOException {
-    final Queue<Node> q = new LinkedList<Node>();
+    List<Node> level = new ArrayList<Node>();
     for (final Node node : graph.getVertices()) {
-      findNode.put(node.getCandidateURI(), node);
-      q.add(node);
-    }
-    while (!q.isEmpty()) {
-      final Node currentNode = q.poll();
-      final int level = currentNode.getLevel();
-      if (level < maxDepth) {
-        List<Triple> outgoingNodes = null;
-        outgoingNodes = index.search(currentNode.getCandidateURI(), null, null, _MAX_OUTGOING_NODES);
-        if (outgoingNodes == null) {
-          continue;
+      if (node.getEntityId() == UriDictionary.NO_ID) {
+        node.setEntityId(index.getId(node.getCandidateURI()));
+      }
+      findNode.put(node.getEntityId(), node);
+      level.add(node);
+    }
+    while (!level.isEmpty() && !edgeBudgetUsed(graph)) {
+      final IntArrayList expanded = new IntArrayList(level.size());
+      for (final Node node : level) {
+        if (node.getLevel() < maxDepth) {
+          expanded.add(node.getEntityId());
         }
-        for (final Triple targetNode : outgoingNodes) {
-          if ((targetNode.getPredicate() == null) && (targetNode.getObject() == null)) {
+      }
+      final Neighbourhood[] outgoing = neighbourhoods(expanded, edgeType, nodeType);
+      final List<Node> nextLevel = new ArrayList<Node>();
+      for (int i = 0; (i < expanded.size()) && !edgeBudgetUsed(graph); i++) {
+        final Node currentNode = findNode.get(expanded.get(i));
+        for (int edge = 0; edge < outgoing[i].size(); edge++) {
+          addEdge(graph, nextLevel, currentNode, outgoing[i].target(edge), outgoing[i].predicate(edge));
+        }
+      }
+      level = nextLevel;
+    }
+  }
+
+  /**
+   * Looks up the outgoing edges of the given entities that pass the edge and node type filter, and keeps the most
+   * important ones. The edges of entities missing in the neighbourhood cache are read from the adjacency, or from one
+   * batch of index lookups.
+   */
+  Neighbourhood[] neighbourhoods(final IntArrayList entityIds, final String edgeType, final String nodeType)
+      throws IOException {
+    final Neighbourhood[] result = new Neighbourhood[entityIds.size()];
+    final IntArrayList missing = new IntArrayList();
+    for (int i = 0; i < result.length; i++) {
+      result[i] = (neighbourhoods != null) ? neighbourhoods.get(entityIds.get(i)) : null;
+      if (result[i] == null) {
+        missing.add(i);
+      }
+    }
+    if (neighbourhoods != null) {
+      neighbourhoodCacheHits += result.length - missing.size();
+      neighbourhoodCacheMisses += missing.size();
+    }
+    if (missing.isEmpty()) {
+      return result;
+    }
+    final AdjacencyIndex adjacency = index.getAdjacency();
+    final boolean useAdjacency = (adjacency != null) && adjacency.covers(edgeType, nodeType);
+    List<List<Triple>> outgoing = null;
+    if (!useAdjacency) {
+      final List<String> uris = new ArrayList<String>(missing.size());
+      for (int i = 0; i < missing.size(); i++) {
+        // null if the id denotes no URI, such an entity has no outgoing edges
+        uris.add(index.getUri(entityIds.get(missing.get(i))));
+      }
+      outgoing = searchOutgoing(uris);
+    }
+    for (int i = 0; i < missing.size(); i++) {
+      final int entityId = entityIds.get(missing.get(i));
+      collectOutgoing(entityId, useAdjacency ? adjacency : null, useAdjacency ? null : outgoing.get(i), edgeType,
+          nodeType);
+      final int[] kept = selectOutgoing(targetIds);
+      final int[] targets = new int[kept.length];
+      final int[] predicates = new int[kept.length];
+      for (int edge = 0; edge < kept.length; edge++) {
+        targets[edge] = targetIds.get(kept[edge]);
+        predicates[edge] = predicateIds.get(kept[edge]);
+      }
+      result[missing.get(i)] = new Neighbourhood(targets, predicates);
+      if (neighbourhoods != null) {
+        neighbourhoods.put(entityId, result[missing.get(i)]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the number of entities whose outgoing edges this search found in the neighbourhood cache.
+   */
+  public int getNeighbourhoodCacheHits() {
+    return neighbourhoodCacheHits;
+  }
+
+  /**
+   * @return the number of entities whose outgoing edges this search looked up as they were not in the neighbourhood
+   *         cache.
+   */
+  public int getNeighbourhoodCacheMisses() {
+    return neighbourhoodCacheMisses;
+  }
+
+  /**
+   * Fills the neighbourhood cache with the entities of the highest prior, in batches like a BFS level.
+   *
+   * @return the number of entities looked up.
+   */
+  public int warmUp(final int numEntities, final String edgeType, final String nodeType) throws IOException {
+    if ((neighbourhoods == null) || (priors == null)) {
+      return 0;
+    }
+    final int[] top = priors.top(numEntities);
+    for (int from = 0; from < top.length; from += _BATCH_SIZE) {
+      final IntArrayList batch = new IntArrayList(_BATCH_SIZE);
+      for (int i = from; i < Math.min(top.length, from + _BATCH_SIZE); i++) {
+        batch.add(top[i]);
+      }
+      neighbourhoods(batch, edgeType, nodeType);
+    }
+    return top.length;
+  }
+
+  /**
+   * Expands the graph by spreading activation. The candidates start with their activation, a node passes its
+   * activation times <code>decay</code> on to its successors, and the most activated node is expanded next. The
+   * expansion stops when no node below <code>maxDepth</code> has an activation of at least <code>threshold</code>, or
+   * when the budgets are used up. A node reached several times keeps the highest activation and the level of the
+   * shortest path to it. A node whose level drops after its expansion is expanded again, which only lowers the levels
+   * of the nodes it reaches and adds the nodes that are new.
+   */
+  public void runActivation(final int maxDepth, final DisambiguationGraph graph, final String edgeType,
+      final String nodeType, final double decay, final double threshold) throws IOException {
+    // the most activated first, then in the order of insertion
+    final PriorityQueue<Activation> queue = new PriorityQueue<Activation>();
+    // the level each node was expanded at, by graph id, _NOT_EXPANDED for nodes not expanded yet
+    final IntArrayList expandedLevels = new IntArrayList();
+    for (final Node node : graph.getVertices()) {
+      if (node.getEntityId() == UriDictionary.NO_ID) {
+        node.setEntityId(index.getId(node.getCandidateURI()));
+      }
+      findNode.put(node.getEntityId(), node);
+      queue.add(new Activation(node, queue.size()));
+    }
+    final IntArrayList single = new IntArrayList(1);
+    final List<Node> created = new ArrayList<Node>();
+    int sequence = queue.size();
+    while (!queue.isEmpty() && !edgeBudgetUsed(graph)) {
+      final Activation head = queue.poll();
+      final Node currentNode = head.node;
+      if (head.activation < threshold) {
+        break;
+      }
+      // skip nodes that were expanded at the same level before
+      final int expandedLevel = expandedLevel(expandedLevels, currentNode.getGraphId());
+      if ((currentNode.getLevel() >= maxDepth) || (currentNode.getLevel() >= expandedLevel)) {
+        continue;
+      }
+      final boolean expandedBefore = expandedLevel != _NOT_EXPANDED;
+      while (expandedLevels.size() <= currentNode.getGraphId()) {
+        expandedLevels.add(_NOT_EXPANDED);
+      }
+      expandedLevels.set(currentNode.getGraphId(), currentNode.getLevel());
+      single.clear();
+      single.add(currentNode.getEntityId());
+      final Neighbourhood outgoing = neighbourhoods(single, edgeType, nodeType)[0];
+      final double spread = head.activation * decay;
+      final int level = currentNode.getLevel() + 1;
+      for (int edge = 0; edge < outgoing.size(); edge++) {
+        Node target = expandedBefore ? findNode.get(outgoing.target(edge)) : null;
+        if (target == null) {
+          // the edges to the nodes that existed were added by the first expansion
+          created.clear();
+          target = addEdge(graph, created, currentNode, outgoing.target(edge), outgoing.predicate(edge));
+          if (target == null) {
             continue;
           }
-          if (targetNode.getPredicate().startsWith(edgeType) && targetNode.getObject().startsWith(nodeType)) {
-            final int levelNow = level + 1;
-            Node node = null;
-            if (findNode.containsKey(targetNode.getObject())) {
-              node = findNode.get(targetNode.getObject());
-            } else {
-              node = new Node(targetNode.getObject(),targetNode.getPredicate(), targetNode.getObject(), 0, levelNow, algorithm);
-              findNode.put(targetNode.getObject(), node);
-              q.add(node);
-            }
-            graph.addEdge(StringUtils.join(graph.getEdgeCount(), ";", targetNode.getPredicate()), currentNode, node);
+          if (!created.isEmpty()) {
+            target.setActivation(spread);
+            queue.add(new Activation(target, sequence++));
+            continue;
           }
         }
+        final boolean raised = (spread > target.getActivation())
+            && (expandedLevel(expandedLevels, target.getGraphId()) == _NOT_EXPANDED);
+        final boolean lowered = level < target.getLevel();
+        if (raised) {
+          target.setActivation(spread);
+        }
+        if (lowered) {
+          target.setLevel(level);
+        }
+        if (raised || lowered) {
+          queue.add(new Activation(target, sequence++));
+        }
+      }
+    }
+  }
+
+  private static int expandedLevel(final IntArrayList expandedLevels, final int graphId) {
+    return (graphId < expandedLevels.size()) ? expandedLevels.get(graphId) : _NOT_EXPANDED;
+  }
+
+  /**
+   * Fills {@link #targetIds} and {@link #predicateIds} with the outgoing edges of an entity, read from the adjacency if
+   * given or else from its triples.
+   */
+  private void collectOutgoing(final int entityId, final AdjacencyIndex adjacency, final List<Triple> triples,
+      final String edgeType, final String nodeType) {
+    targetIds.clear();
+    predicateIds.clear();
+    if (adjacency != null) {
+      // the adjacency file only contains edges that pass the edge and node type filter.
+      final int start = adjacency.start(entityId);
+      int end = adjacency.end(entityId);
+      if (priors == null) {
+        end = Math.min(end, start + maxOutgoing);
+      }
+      for (int edge = start; edge < end; edge++) {
+        targetIds.add(adjacency.target(edge));
+        predicateIds.add(adjacency.predicate(edge));
+      }
+    } else if (triples != null) {
+      for (final Triple targetNode : triples) {
+        if ((targetNode.getPredicate() == null) && (targetNode.getObject() == null)) {
+          continue;
+        }
+        if (targetNode.getPredicate().startsWith(edgeType) && targetNode.getObject().startsWith(nodeType)) {
+          targetIds.add(index.getId(targetNode.getObject()));
+          predicateIds.add(index.getId(targetNode.getPredicate()));
+        }
+      }
+    }
+  }
+
+  /**
+   * Chooses the outgoing edges to keep, the most important first.
+   *
+   * @return positions in <code>targetIds</code>.
+   */
+  private int[] selectOutgoing(final IntArrayList targetIds) {
+    final int n = targetIds.size();
+    if ((priors == null) || (n <= maxOutgoing)) {
+      final int[] kept = new int[Math.min(n, maxOutgoing)];
+      for (int i = 0; i < kept.length; i++) {
+        kept[i] = i;
+      }
+      return kept;
+    }
+    // Priors are non-negative, so their bits sort like the floats. Ties go to the earlier edge.
+    final long[] keys = new long[n];
+    for (int i = 0; i < n; i++) {
+      keys[i] = ((long) Float.floatToIntBits(priors.get(targetIds.get(i))) << 32) | (~i & 0xffffffffL);
+    }
+    Arrays.sort(keys);
+    final int[] kept = new int[maxOutgoing];
+    for (int i = 0; i < maxOutgoing; i++) {
+      kept[i] = ~(int) keys[n - 1 - i];
+    }
+    return kept;
+  }
+
+  private boolean edgeBudgetUsed(final DisambiguationGraph graph) {
+    return (maxEdges > 0) && (graph.getEdgeCount() >= maxEdges);
+  }
+
+  /**
+   * Looks up the outgoing triples of the given entities.
+   */
+  private List<List<Triple>> searchOutgoing(final List<String> uris) throws IOException {
+    if ((executor == null) || (uris.size() <= _BATCH_SIZE)) {
+      return index.searchSubjects(uris, fetchLimit());
+    }
+    final List<Future<List<List<Triple>>>> batches = new ArrayList<Future<List<List<Triple>>>>();
+    for (int from = 0; from < uris.size(); from += _BATCH_SIZE) {
+      final List<String> batch = uris.subList(from, Math.min(uris.size(), from + _BATCH_SIZE));
+      batches.add(executor.submit(() -> index.searchSubjects(batch, fetchLimit())));
+    }
+    final List<List<Triple>> outgoing = new ArrayList<List<Triple>>(uris.size());
+    try {
+      for (final Future<List<List<Triple>>> batch : batches) {
+        outgoing.addAll(batch.get());
       }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while expanding the graph.");
+    } catch (final ExecutionException e) {
+      throw new IOException("Unable to expand the graph.", e.getCause());
+    }
+    return outgoing;
+  }
+
+  private int fetchLimit() {
+    return (priors != null) ? (maxOutgoing * _FETCH_FACTOR) : maxOutgoing;
+  }
+
+  /**
+   * Adds an edge to the target, creating the target node unless it exists. New nodes are appended to
+   * <code>newNodes</code>.
+   *
+   * @return the target node, or <code>null</code> if a budget prevented adding the edge or the target id denotes no
+   *         URI.
+   */
+  private Node addEdge(final DisambiguationGraph graph, final List<Node> newNodes, final Node currentNode,
+      final int targetId, final int predicateId) throws IOException {
+    if (edgeBudgetUsed(graph)) {
+      return null;
+    }
+    Node node = findNode.get(targetId);
+    if (node == null) {
+      if ((maxNodes > 0) && (graph.getVertexCount() >= maxNodes)) {
+        return null;
+      }
+      final String uri = index.getUri(targetId);
+      if (uri == null) {
+        return null;
+      }
+      node = new Node(uri, targetId, predicateName(predicateId), uri, 0, currentNode.getLevel() + 1, algorithm);
+      downWeightHub(node);
+      findNode.put(targetId, node);
+      newNodes.add(node);
+    }
+    graph.addEdge(currentNode, node, predicateId);
+    return node;
+  }
+
+  private String predicateName(final int predicateId) {
+    String name = predicateNames.get(predicateId);
+    if (name == null) {
+      name = index.getUri(predicateId);
+      predicateNames.put(predicateId, name);
+    }
+    return name;
+  }
+
+  private static final class Activation implements Comparable<Activation> {
+    private final Node node;
+    // the activation when queued, the node may be raised and queued again later
+    private final double activation;
+    private final int sequence;
+
+    Activation(final Node node, final int sequence) {
+      this.node = node;
+      activation = node.getActivation();
+      this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(final Activation other) {
+      final int cmp = Double.compare(other.activation, activation);
+      return (cmp != 0) ? cmp : Integer.compare(sequence, other.sequence);
+    }
+  }
+
+  /**
+   * Scales the HITS weights of an entity whose prior, i.e. its in-degree in the knowledge graph, exceeds the hub degree
+   * threshold by <code>threshold / prior</code>.
+   */
+  private void downWeightHub(final Node node) {
+    if ((hubDegreeThreshold <= 0) || (priors == null)) {
+      return;
+    }
+    final float degree = priors.get(node.getEntityId());
+    if (degree > hubDegreeThreshold) {
+      final double factor = hubDegreeThreshold / degree;
+      node.setAuthorityWeightForCalculation(node.getAuthorityWeightForCalculation() * factor);
+      node.setHubWeightForCalculation(node.getHubWeightForCalculation() * factor);
     }
   }
 }
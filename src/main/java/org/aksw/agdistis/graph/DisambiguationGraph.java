@@ -0,0 +1,381 @@
+package org.aksw.agdistis.graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+import org.aksw.agdistis.util.IntArrayList;
+import org.aksw.agdistis.util.IntObjectHashMap;
+
+/**
+ * The directed graph of candidates and their neighbourhood that is scored by {@link HITS} and {@link PageRank}.
+ * <p>
+ * Nodes are numbered in insertion order and edges are labelled with the dictionary id of their predicate. While the
+ * graph is built, edges are only appended. {@link #freeze()} then sorts them once into compressed in- and outgoing
+ * adjacency arrays, so that the scoring algorithms iterate over plain int arrays. As in a JUNG
+ * <code>DirectedSparseGraph</code>, there is at most one edge from a node to another.
+ * <p>
+ * The graph also indexes the candidates of every mention, so that the result of a mention is picked among its own
+ * candidates rather than among all nodes.
+ */
+public class DisambiguationGraph {
+
+  // by score as in Node#compareTo, ties in insertion order
+  private static final Comparator<Node> _RANKING = Comparator.<Node> naturalOrder()
+      .thenComparingInt(Node::getGraphId);
+
+  private final List<Node> nodes = new ArrayList<Node>();
+  // graph ids of the candidates of each mention, keyed by the start position of the mention
+  private final IntObjectHashMap<IntArrayList> candidates = new IntObjectHashMap<IntArrayList>();
+  private final IntFunction<String> predicateNames;
+
+  private IntArrayList sources = new IntArrayList();
+  private IntArrayList targets = new IntArrayList();
+  private IntArrayList predicates = new IntArrayList();
+
+  // compressed adjacency, null until frozen
+  private int[] outOffsets;
+  private int[] outTargets;
+  private int[] outPredicates;
+  private int[] inOffsets;
+  private int[] inSources;
+
+  /**
+   * @param predicateNames
+   *          resolves predicate ids to URIs, needed to restrict edges by predicate.
+   */
+  public DisambiguationGraph(final IntFunction<String> predicateNames) {
+    this.predicateNames = predicateNames;
+  }
+
+  /**
+   * Adds a node unless it already belongs to the graph.
+   *
+   * @return <code>true</code> if the node was added.
+   */
+  public boolean addVertex(final Node node) {
+    checkNotFrozen();
+    if (node.getGraphId() >= 0) {
+      return false;
+    }
+    node.setGraphId(nodes.size());
+    nodes.add(node);
+    return true;
+  }
+
+  /**
+   * Makes a node a candidate of the mention starting at the given position, adding the node if needed.
+   */
+  public void addCandidate(final Node node, final int mention) {
+    checkNotFrozen();
+    addVertex(node);
+    if (node.containsId(mention)) {
+      return;
+    }
+    node.addId(mention);
+    IntArrayList ids = candidates.get(mention);
+    if (ids == null) {
+      ids = new IntArrayList();
+      candidates.put(mention, ids);
+    }
+    ids.add(node.getGraphId());
+  }
+
+  /**
+   * @return the candidates of the mention, in the order they were added.
+   */
+  public List<Node> getCandidates(final int mention) {
+    final IntArrayList ids = candidates.get(mention);
+    if (ids == null) {
+      return Collections.emptyList();
+    }
+    final List<Node> result = new ArrayList<Node>(ids.size());
+    for (int i = 0; i < ids.size(); i++) {
+      result.add(nodes.get(ids.get(i)));
+    }
+    return result;
+  }
+
+  /**
+   * Makes a node the only candidate of a mention. The other candidates are no longer candidates of the mention, and
+   * those that are no candidate of any other mention are removed from the graph. Nodes keep their relative order.
+   *
+   * @throws IllegalStateException
+   *           if edges were added already.
+   */
+  public void fixCandidate(final int mention, final Node keep) {
+    checkNotFrozen();
+    if (!sources.isEmpty()) {
+      throw new IllegalStateException("Candidates cannot be fixed once the graph has edges.");
+    }
+    final IntArrayList ids = candidates.get(mention);
+    if ((ids == null) || !keep.containsId(mention) || (ids.size() == 1)) {
+      return;
+    }
+    final boolean[] dropped = new boolean[nodes.size()];
+    boolean removed = false;
+    for (int i = 0; i < ids.size(); i++) {
+      final Node node = nodes.get(ids.get(i));
+      if (node != keep) {
+        node.removeId(mention);
+        if (!node.isCandidate()) {
+          dropped[ids.get(i)] = true;
+          removed = true;
+        }
+      }
+    }
+    ids.clear();
+    ids.add(keep.getGraphId());
+    if (!removed) {
+      return;
+    }
+
+    // renumber the remaining nodes
+    final int[] newIds = new int[nodes.size()];
+    final List<Node> remaining = new ArrayList<Node>(nodes.size());
+    for (int i = 0; i < nodes.size(); i++) {
+      final Node node = nodes.get(i);
+      if (!dropped[i]) {
+        newIds[i] = remaining.size();
+        node.setGraphId(remaining.size());
+        remaining.add(node);
+      } else {
+        newIds[i] = -1;
+        node.setGraphId(-1);
+      }
+    }
+    nodes.clear();
+    nodes.addAll(remaining);
+    for (final IntArrayList mentionIds : candidates) {
+      final int[] old = mentionIds.toArray();
+      mentionIds.clear();
+      for (final int id : old) {
+        if (newIds[id] >= 0) {
+          mentionIds.add(newIds[id]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Ranks the candidates of a mention once the graph is scored. Only the candidates of the mention are looked at, and
+   * if <code>k</code> is smaller than their number, only the best <code>k</code> are kept in a bounded heap and sorted.
+   *
+   * @param k
+   *          the number of candidates to return, 0 or less for all of them.
+   * @return the candidates of the mention, the best first.
+   */
+  public List<Node> rankCandidates(final int mention, final int k) {
+    final IntArrayList ids = candidates.get(mention);
+    if (ids == null) {
+      return Collections.emptyList();
+    }
+    final List<Node> ranked;
+    if ((k <= 0) || (k >= ids.size())) {
+      ranked = getCandidates(mention);
+    } else {
+      // the worst of the best k so far on top
+      final PriorityQueue<Node> heap = new PriorityQueue<Node>(k + 1, _RANKING.reversed());
+      for (int i = 0; i < ids.size(); i++) {
+        heap.add(nodes.get(ids.get(i)));
+        if (heap.size() > k) {
+          heap.poll();
+        }
+      }
+      ranked = new ArrayList<Node>(heap);
+    }
+    ranked.sort(_RANKING);
+    return ranked;
+  }
+
+  /**
+   * Adds an edge between two nodes, adding the nodes if needed.
+   */
+  public void addEdge(final Node source, final Node target, final int predicate) {
+    checkNotFrozen();
+    addVertex(source);
+    addVertex(target);
+    sources.add(source.getGraphId());
+    targets.add(target.getGraphId());
+    predicates.add(predicate);
+  }
+
+  /**
+   * Builds the adjacency arrays. No nodes or edges can be added afterwards. Calling it again has no effect.
+   */
+  public void freeze() {
+    if (outOffsets != null) {
+      return;
+    }
+    final int n = nodes.size();
+    final int m = sources.size();
+    // counting sort by source, then by target within a source
+    final int[] byTarget = countingSort(targets, n, null);
+    final int[] order = countingSort(sources, n, byTarget);
+
+    outOffsets = new int[n + 1];
+    final IntArrayList uniqueTargets = new IntArrayList(m);
+    final IntArrayList uniquePredicates = new IntArrayList(m);
+    int previousSource = -1;
+    int previousTarget = -1;
+    for (final int edge : order) {
+      final int source = sources.get(edge);
+      final int target = targets.get(edge);
+      // the first edge between two nodes wins
+      if ((source == previousSource) && (target == previousTarget)) {
+        continue;
+      }
+      uniqueTargets.add(target);
+      uniquePredicates.add(predicates.get(edge));
+      outOffsets[source + 1]++;
+      previousSource = source;
+      previousTarget = target;
+    }
+    for (int i = 0; i < n; i++) {
+      outOffsets[i + 1] += outOffsets[i];
+    }
+    outTargets = uniqueTargets.toArray();
+    outPredicates = uniquePredicates.toArray();
+    buildIncoming();
+  }
+
+  /**
+   * Derives the incoming adjacency from the outgoing one.
+   */
+  private void buildIncoming() {
+    final int n = nodes.size();
+    inOffsets = new int[n + 1];
+    for (final int target : outTargets) {
+      inOffsets[target + 1]++;
+    }
+    for (int i = 0; i < n; i++) {
+      inOffsets[i + 1] += inOffsets[i];
+    }
+    inSources = new int[outTargets.length];
+    final int[] next = new int[n];
+    System.arraycopy(inOffsets, 0, next, 0, n);
+    for (int source = 0; source < n; source++) {
+      for (int e = outOffsets[source]; e < outOffsets[source + 1]; e++) {
+        inSources[next[outTargets[e]]++] = source;
+      }
+    }
+    sources = null;
+    targets = null;
+    predicates = null;
+  }
+
+  /**
+   * Returns a stable permutation of the edges sorted by <code>keys</code>, applied on top of <code>order</code> (or
+   * of the insertion order if <code>null</code>).
+   */
+  private static int[] countingSort(final IntArrayList keys, final int numKeys, final int[] order) {
+    final int m = keys.size();
+    final int[] counts = new int[numKeys + 1];
+    for (int i = 0; i < m; i++) {
+      counts[keys.get(i) + 1]++;
+    }
+    for (int i = 0; i < numKeys; i++) {
+      counts[i + 1] += counts[i];
+    }
+    final int[] sorted = new int[m];
+    for (int i = 0; i < m; i++) {
+      final int edge = (order == null) ? i : order[i];
+      sorted[counts[keys.get(edge)]++] = edge;
+    }
+    return sorted;
+  }
+
+  /**
+   * Returns a copy of the graph without the edges whose predicate matches <code>restricted</code>.
+   */
+  public DisambiguationGraph withoutEdges(final IntPredicate restricted) {
+    freeze();
+    final DisambiguationGraph copy = new DisambiguationGraph(predicateNames);
+    copy.nodes.addAll(nodes);
+    copy.outOffsets = new int[nodes.size() + 1];
+    final IntArrayList keptTargets = new IntArrayList(outTargets.length);
+    final IntArrayList keptPredicates = new IntArrayList(outTargets.length);
+    for (int source = 0; source < nodes.size(); source++) {
+      for (int e = outOffsets[source]; e < outOffsets[source + 1]; e++) {
+        if (!restricted.test(outPredicates[e])) {
+          keptTargets.add(outTargets[e]);
+          keptPredicates.add(outPredicates[e]);
+        }
+      }
+      copy.outOffsets[source + 1] = keptTargets.size();
+    }
+    copy.outTargets = keptTargets.toArray();
+    copy.outPredicates = keptPredicates.toArray();
+    copy.buildIncoming();
+    return copy;
+  }
+
+  private void checkNotFrozen() {
+    if (outOffsets != null) {
+      throw new IllegalStateException("The graph is frozen.");
+    }
+  }
+
+  public int getVertexCount() {
+    return nodes.size();
+  }
+
+  /**
+   * @return the number of distinct edges once frozen, the number of added edges before.
+   */
+  public int getEdgeCount() {
+    return (outTargets != null) ? outTargets.length : sources.size();
+  }
+
+  public Collection<Node> getVertices() {
+    return Collections.unmodifiableList(nodes);
+  }
+
+  public Node getNode(final int id) {
+    return nodes.get(id);
+  }
+
+  /**
+   * @return the URI of a predicate id.
+   */
+  public String getPredicateName(final int predicate) {
+    return predicateNames.apply(predicate);
+  }
+
+  public int outStart(final int node) {
+    return outOffsets[node];
+  }
+
+  public int outEnd(final int node) {
+    return outOffsets[node + 1];
+  }
+
+  public int outDegree(final int node) {
+    return outOffsets[node + 1] - outOffsets[node];
+  }
+
+  public int target(final int edge) {
+    return outTargets[edge];
+  }
+
+  public int predicate(final int edge) {
+    return outPredicates[edge];
+  }
+
+  public int inStart(final int node) {
+    return inOffsets[node];
+  }
+
+  public int inEnd(final int node) {
+    return inOffsets[node + 1];
+  }
+
+  public int source(final int inEdge) {
+    return inSources[inEdge];
+  }
+}
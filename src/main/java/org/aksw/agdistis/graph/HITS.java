@@ -71,6 +71,93 @@ public class HITS {
 		}
 	}
 
+	/**
+	 * Runs <code>k</code> iterations of HITS on a disambiguation graph.
+	 */
+	public void runHits(final DisambiguationGraph graph, int k) {
+		runHits(graph, k, 0);
+	}
+
+	/**
+	 * Runs HITS on a disambiguation graph until the L1 distance between the
+	 * scores of two iterations, authorities and hubs together, is at most
+	 * <code>tolerance</code>, or for at most <code>maxIterations</code>
+	 * iterations. Scores are kept in arrays during the iterations and
+	 * written to the nodes at the end.
+	 * 
+	 * @return the number of iterations run.
+	 */
+	public int runHits(final DisambiguationGraph graph, int maxIterations, double tolerance) {
+		graph.freeze();
+		DisambiguationGraph g = graph;
+		if (restrictedEdges != null) {
+			g = graph.withoutEdges(predicate -> {
+				String edgeString = graph.getPredicateName(predicate);
+				for (String restrict : restrictedEdges) {
+					if (edgeString != null && edgeString.contains(restrict)) {
+						return true;
+					}
+				}
+				return false;
+			});
+		}
+		int numNodes = g.getVertexCount();
+		// x - authority weight
+		// y - hub weight
+		double[] x = new double[numNodes];
+		double[] y = new double[numNodes];
+		double[] unnormalizedX = new double[numNodes];
+		double[] unnormalizedY = new double[numNodes];
+		double[] xForCalculation = new double[numNodes];
+		double[] yForCalculation = new double[numNodes];
+		for (int i = 0; i < numNodes; i++) {
+			Node n = g.getNode(i);
+			x[i] = n.getAuthorityWeight();
+			y[i] = n.getHubWeight();
+			unnormalizedX[i] = n.getUnnormalizedAuthorityWeight();
+			unnormalizedY[i] = n.getUnnormalizedHubWeight();
+			xForCalculation[i] = n.getAuthorityWeightForCalculation();
+			yForCalculation[i] = n.getHubWeightForCalculation();
+		}
+		int iter = 0;
+		double delta = Double.POSITIVE_INFINITY;
+		while (iter < maxIterations && !(delta <= tolerance)) {
+			double sumX = 0;
+			double sumY = 0;
+			for (int i = 0; i < numNodes; i++) {
+				double authority = 0;
+				for (int e = g.inStart(i); e < g.inEnd(i); e++) {
+					authority += y[g.source(e)];
+				}
+				double hub = 0;
+				for (int e = g.outStart(i); e < g.outEnd(i); e++) {
+					hub += x[g.target(e)];
+				}
+				unnormalizedX[i] = authority * xForCalculation[i];
+				unnormalizedY[i] = hub * yForCalculation[i];
+				sumX += unnormalizedX[i];
+				sumY += unnormalizedY[i];
+			}
+			delta = 0;
+			for (int i = 0; i < numNodes; i++) {
+				double newX = unnormalizedX[i] / sumX;
+				double newY = unnormalizedY[i] / sumY;
+				delta += Math.abs(newX - x[i]) + Math.abs(newY - y[i]);
+				x[i] = newX;
+				y[i] = newY;
+			}
+			iter++;
+		}
+		for (int i = 0; i < numNodes; i++) {
+			Node n = g.getNode(i);
+			n.setUnnormalizedAuthorityWeight(unnormalizedX[i]);
+			n.setUnnormalizedHubWeight(unnormalizedY[i]);
+			n.setAuthorityWeight(x[i]);
+			n.setHubWeight(y[i]);
+		}
+		return iter;
+	}
+
 	public void restrictEdges(HashSet<String> restrictedEdges) {
 		this.restrictedEdges = restrictedEdges;
 
@@ -0,0 +1,73 @@
+package org.aksw.agdistis.graph;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * The outgoing edges the graph expansion keeps for an entity, shared by all documents and threads.
+ * <p>
+ * An entry holds the edges after the edge and node type filter and after the selection of the most important targets,
+ * so it is only valid for the configuration it was computed with. The cache is bounded by the total number of edges it
+ * holds.
+ */
+public class NeighbourhoodCache {
+
+  /**
+   * The kept outgoing edges of an entity, as dictionary ids.
+   */
+  public static final class Neighbourhood {
+    private final int[] targets;
+    private final int[] predicates;
+
+    public Neighbourhood(final int[] targets, final int[] predicates) {
+      this.targets = targets;
+      this.predicates = predicates;
+    }
+
+    public int size() {
+      return targets.length;
+    }
+
+    public int target(final int edge) {
+      return targets[edge];
+    }
+
+    public int predicate(final int edge) {
+      return predicates[edge];
+    }
+  }
+
+  private final Cache<Integer, Neighbourhood> cache;
+
+  /**
+   * @param maxEdges
+   *          the number of edges the cache may hold.
+   */
+  public NeighbourhoodCache(final long maxEdges) {
+    cache = CacheBuilder.newBuilder().maximumWeight(maxEdges)
+        .weigher((final Integer id, final Neighbourhood n) -> 1 + n.size()).recordStats().build();
+  }
+
+  /**
+   * @return the cached neighbourhood of the entity, or <code>null</code>.
+   */
+  public Neighbourhood get(final int entityId) {
+    return cache.getIfPresent(entityId);
+  }
+
+  public void put(final int entityId, final Neighbourhood neighbourhood) {
+    cache.put(entityId, neighbourhood);
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  /**
+   * @return hit and miss counts since the cache was created.
+   */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+}
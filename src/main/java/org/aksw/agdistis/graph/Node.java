@@ -2,16 +2,32 @@ package org.aksw.agdistis.graph;
 
 import java.io.IOException;
 import java.text.DecimalFormat;
-import java.util.HashSet;
+import java.util.Arrays;
 
 import org.aksw.agdistis.Algorithm;
+import org.aksw.agdistis.util.UriDictionary;
 import org.apache.commons.lang3.StringUtils;
 
+/**
+ * A candidate or an entity reached by the graph expansion. Nodes are identified by their URI, so that two nodes for
+ * the same entity are equal and nodes for different entities never are.
+ * <p>
+ * A node is created for every entity a document touches, so it is kept small: it holds the start positions of the
+ * mentions it is a candidate of in a plain int array, and the adjacency lives in the {@link DisambiguationGraph}.
+ */
 public class Node implements Comparable<Node> {
 
-  private final HashSet<Integer> ids;
+  private static final int[] _NO_IDS = new int[0];
+
+  // start positions of the mentions this node is a candidate of, the first numIds are used
+  private int[] ids = _NO_IDS;
+  private int numIds;
   private double activation;
-  private String candidateURI;
+  private final String candidateURI;
+  // Dictionary id of candidateURI (see TripleIndex#getId).
+  private int entityId = UriDictionary.NO_ID;
+  // Position in the DisambiguationGraph, -1 if the node is in none.
+  private int graphId = -1;
   private String candidateType;
   private String labelString;
   private int level;
@@ -25,21 +41,16 @@ public class Node implements Comparable<Node> {
   private double pageRankNew;
   private final Algorithm algorithm;
 
-  private final HashSet<Node> predecessors;
-  private final HashSet<Node> successors;
-
-  public Node(final String uri,final String candidateType, final String labelString, final double activation, final int level, final Algorithm algorithm)
-      throws IOException {
+  public Node(final String uri, final int entityId, final String candidateType, final String labelString,
+      final double activation, final int level, final Algorithm algorithm) throws IOException {
     candidateURI = uri;
+    this.entityId = entityId;
     this.candidateType = candidateType;
     this.labelString = labelString;
     this.activation = activation;
     this.level = level;
     hubWeight = 1;
     authorityWeight = 1;
-    ids = new HashSet<Integer>();
-    successors = new HashSet<Node>();
-    predecessors = new HashSet<Node>();
     pageRank = 0;
     this.algorithm = algorithm;
   }
@@ -51,9 +62,6 @@ public class Node implements Comparable<Node> {
         this.level = level;
         hubWeight = 1;
         authorityWeight = 1;
-        ids = new HashSet<Integer>();
-        successors = new HashSet<Node>();
-        predecessors = new HashSet<Node>();
         pageRank = 0;
         this.algorithm = algorithm;
       }
@@ -73,11 +81,13 @@ public class Node implements Comparable<Node> {
 
   @Override
   public boolean equals(final Object o) {
-    if (hashCode() == o.hashCode()) {
+    if (this == o) {
       return true;
-    } else {
+    }
+    if (!(o instanceof Node)) {
       return false;
     }
+    return candidateURI.equals(((Node) o).candidateURI);
   }
 
   @Override
@@ -95,7 +105,7 @@ public class Node implements Comparable<Node> {
       } else {
         return -1;
       }
-    } else if (m.algorithm == Algorithm.PAGERANK) {
+    } else if ((m.algorithm == Algorithm.PAGERANK) || (m.algorithm == Algorithm.PERSONALIZED_PAGERANK)) {
       // System.out.println("PageRank compareTo");
       if (m.getPageRank() == getPageRank()) {
         return 0;
@@ -110,23 +120,67 @@ public class Node implements Comparable<Node> {
   }
 
   public boolean containsId(final int id) {
-    return ids.contains(id);
+    // nodes are candidates of one or a few mentions
+    for (int i = 0; i < numIds; i++) {
+      if (ids[i] == id) {
+        return true;
+      }
+    }
+    return false;
   }
 
   public void addId(final int id) {
-    ids.add(id);
+    if (containsId(id)) {
+      return;
+    }
+    if (numIds == ids.length) {
+      ids = Arrays.copyOf(ids, Math.max(1, numIds * 2));
+    }
+    ids[numIds++] = id;
+  }
+
+  void removeId(final int id) {
+    for (int i = 0; i < numIds; i++) {
+      if (ids[i] == id) {
+        System.arraycopy(ids, i + 1, ids, i, numIds - i - 1);
+        numIds--;
+        return;
+      }
+    }
+  }
+
+  /**
+   * @return the start positions of the mentions this node is a candidate of.
+   */
+  public int[] getIds() {
+    return Arrays.copyOf(ids, numIds);
   }
 
-  public HashSet<Integer> getId() {
-    return ids;
+  /**
+   * @return <code>true</code> if the node is a candidate of at least one mention.
+   */
+  public boolean isCandidate() {
+    return numIds > 0;
   }
 
   public String getCandidateURI() {
     return candidateURI;
   }
 
-  public void setCandidateURI(final String uri) {
-    candidateURI = uri;
+  public int getEntityId() {
+    return entityId;
+  }
+
+  public void setEntityId(final int entityId) {
+    this.entityId = entityId;
+  }
+  
+  public int getGraphId() {
+    return graphId;
+  }
+
+  void setGraphId(final int graphId) {
+    this.graphId = graphId;
   }
   
   public String getLabelString() {
@@ -173,34 +227,6 @@ public class Node implements Comparable<Node> {
 
   }
 
-  public Integer[] getLabels() {
-    return ids.toArray(new Integer[ids.size()]);
-  }
-
-  public HashSet<Node> getSuccessors() {
-    return successors;
-  }
-
-  public HashSet<Node> getPredecessors() {
-    return predecessors;
-  }
-
-  public void addPredecessor(final Node first) {
-    predecessors.add(first);
-  }
-
-  public void addSuccesor(final Node second) {
-    successors.add(second);
-  }
-
-  public void removeSuccesor(final Node right) {
-    successors.remove(right);
-  }
-
-  public void removePredecessor(final Node left) {
-    predecessors.remove(left);
-  }
-
   public double getHubWeightForCalculation() {
     return hubWeightForCalculation;
   }
@@ -1,5 +1,6 @@
 package org.aksw.agdistis.graph;
 
+import java.util.Arrays;
 import java.util.Collection;
 
 import edu.uci.ics.jung.graph.Graph;
@@ -104,6 +105,67 @@ public class PageRank {
 
 	}
 
+	/**
+	 * Runs PageRank on a disambiguation graph. Ranks are kept in arrays during
+	 * the iterations and written to the nodes at the end.
+	 * 
+	 * @return the number of iterations run.
+	 */
+	public int runPr(DisambiguationGraph g, int maxIteration, double threshold) {
+		g.freeze();
+		int numNodes = g.getVertexCount();
+		if (numNodes == 0) {
+			return 0;
+		}
+		double w = 0.85; // standard weight
+		double[] pageRank = new double[numNodes];
+		double[] pageRankNew = new double[numNodes];
+		// initialize PR set every value to 1/numNodes
+		Arrays.fill(pageRank, (double) 1 / numNodes);
+
+		int numIteration = 0;
+		double distance;
+		do {
+			double randomWalker = 0;
+			for (int i = 0; i < numNodes; i++) {
+				int outDegree = g.outDegree(i);
+				// if n has outgoing edges, spread the weight
+				if (outDegree > 0) {
+					double pr = pageRank[i] / outDegree;
+					for (int e = g.outStart(i); e < g.outEnd(i); e++) {
+						pageRankNew[g.target(e)] += pr;
+					}
+				} else {
+					randomWalker += pageRank[i] / numNodes;
+				}
+			}
+			// distribute randomWalker and get distance
+			distance = 0;
+			for (int i = 0; i < numNodes; i++) {
+				pageRankNew[i] = (w * (pageRankNew[i] + randomWalker)) + ((1 - w) / numNodes);
+				distance += Math.abs(pageRank[i] - pageRankNew[i]);
+			}
+			// update and normalize
+			double sumPr = 0;
+			for (int i = 0; i < numNodes; i++) {
+				pageRank[i] = pageRankNew[i];
+				pageRankNew[i] = 0;
+				sumPr += pageRank[i];
+			}
+			for (int i = 0; i < numNodes; i++) {
+				pageRank[i] /= sumPr;
+			}
+			numIteration += 1;
+		} while ((distance > threshold) && numIteration < maxIteration);
+
+		for (int i = 0; i < numNodes; i++) {
+			Node n = g.getNode(i);
+			n.setPageRank(pageRank[i]);
+			n.setPageRankNew(0);
+		}
+		return numIteration;
+	}
+
 	@SuppressWarnings("rawtypes")
 	private double computeDistance(Graph g) {
 		Node n;
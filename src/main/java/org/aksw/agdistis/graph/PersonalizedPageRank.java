@@ -0,0 +1,104 @@
+package org.aksw.agdistis.graph;
+
+/**
+ * PageRank that restarts at the candidate nodes only, i.e. the nodes carrying the id of a mention, rather than at any
+ * node of the graph.
+ * <p>
+ * The ranks are approximated by local pushes (Andersen, Chung and Lang, 2006): every node keeps a residual, starting
+ * with the restart distribution, and a node whose residual exceeds <code>epsilon</code> times its out-degree keeps
+ * <code>1 - damping</code> of it as rank and passes the rest on to its successors. Only nodes reached with a
+ * non-negligible residual are touched, and the total work is bounded by about <code>1 / ((1 - damping) * epsilon)</code>
+ * pushes regardless of the size of the graph. When it stops, the residual left at any node, i.e. the rank mass not
+ * yet distributed, is at most <code>epsilon</code> times its out-degree.
+ */
+public class PersonalizedPageRank {
+
+  private static final double _DAMPING = 0.85;
+
+  /**
+   * Ranks the nodes of the graph. Nodes that are never reached get a rank of 0.
+   *
+   * @return the number of pushes.
+   */
+  public int runPpr(final DisambiguationGraph g, final double epsilon) {
+    g.freeze();
+    final int numNodes = g.getVertexCount();
+    final double[] rank = new double[numNodes];
+    final double[] residual = new double[numNodes];
+
+    int numSeeds = 0;
+    for (int i = 0; i < numNodes; i++) {
+      if (g.getNode(i).isCandidate()) {
+        numSeeds++;
+      }
+    }
+    final int[] seeds = new int[numSeeds];
+    numSeeds = 0;
+    for (int i = 0; i < numNodes; i++) {
+      if (g.getNode(i).isCandidate()) {
+        seeds[numSeeds++] = i;
+      }
+    }
+
+    // circular queue of the nodes above the threshold, each node is queued at most once
+    final int[] queue = new int[numNodes];
+    final boolean[] queued = new boolean[numNodes];
+    int head = 0;
+    int size = 0;
+    for (final int seed : seeds) {
+      residual[seed] = 1.0 / seeds.length;
+      if (exceeds(g, residual, seed, epsilon)) {
+        queue[(head + size++) % numNodes] = seed;
+        queued[seed] = true;
+      }
+    }
+
+    int pushes = 0;
+    while (size > 0) {
+      final int u = queue[head];
+      head = (head + 1) % numNodes;
+      size--;
+      queued[u] = false;
+
+      final double r = residual[u];
+      residual[u] = 0;
+      rank[u] += (1 - _DAMPING) * r;
+      pushes++;
+
+      final int outDegree = g.outDegree(u);
+      if (outDegree > 0) {
+        final double share = (_DAMPING * r) / outDegree;
+        for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+          final int v = g.target(e);
+          residual[v] += share;
+          if (!queued[v] && exceeds(g, residual, v, epsilon)) {
+            queue[(head + size++) % numNodes] = v;
+            queued[v] = true;
+          }
+        }
+      } else {
+        // the random walker restarts at a candidate
+        final double share = (_DAMPING * r) / seeds.length;
+        for (final int v : seeds) {
+          residual[v] += share;
+          if (!queued[v] && exceeds(g, residual, v, epsilon)) {
+            queue[(head + size++) % numNodes] = v;
+            queued[v] = true;
+          }
+        }
+      }
+    }
+
+    for (int i = 0; i < numNodes; i++) {
+      final Node n = g.getNode(i);
+      n.setPageRank(rank[i]);
+      n.setPageRankNew(0);
+    }
+    return pushes;
+  }
+
+  private static boolean exceeds(final DisambiguationGraph g, final double[] residual, final int node,
+      final double epsilon) {
+    return residual[node] > (epsilon * Math.max(1, g.outDegree(node)));
+  }
+}
@@ -0,0 +1,184 @@
+package org.aksw.agdistis.util;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.util.Bits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Entity-to-entity edges of the knowledge graph in compressed-sparse-row form, keyed by URI id (see
+ * {@link UriDictionary}).
+ * <p>
+ * Only edges whose predicate starts with the edge type and whose object starts with the node type are kept, i.e., the
+ * same filter the breadth-first search applies. The outgoing edges of entity <code>i</code> are the positions
+ * <code>[start(i), end(i))</code> of the target and predicate columns.
+ * <p>
+ * File layout: <code>magic, version, edgeType, nodeType, N, E, offsets[N + 1], targets[E], predicates[E]</code>.
+ */
+public class AdjacencyIndex {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AdjacencyIndex.class);
+
+  private static final int _MAGIC = 0x41474345; // "AGCE"
+  private static final int _VERSION = 2;
+
+  private final String edgeType;
+  private final String nodeType;
+  private final int numNodes;
+  private final int numEdges;
+  private final IntBuffer offsets;
+  private final IntBuffer targets;
+  private final IntBuffer predicates;
+
+  private AdjacencyIndex(final String edgeType, final String nodeType, final int numNodes, final int numEdges,
+      final IntBuffer offsets, final IntBuffer targets, final IntBuffer predicates) {
+    this.edgeType = edgeType;
+    this.nodeType = nodeType;
+    this.numNodes = numNodes;
+    this.numEdges = numEdges;
+    this.offsets = offsets;
+    this.targets = targets;
+    this.predicates = predicates;
+  }
+
+  /**
+   * Loads the adjacency file. Returns <code>null</code> if it does not exist.
+   */
+  public static AdjacencyIndex open(final Path file, final long buildId) throws IOException {
+    final ByteBuffer buffer = Sidecar.map(file);
+    if (buffer == null) {
+      LOGGER.info("No adjacency file found at {}. Graph expansion will query the triple index.", file);
+      return null;
+    }
+    Sidecar.checkHeader(buffer, _MAGIC, _VERSION, buildId, file);
+    final String edgeType = Sidecar.readString(buffer);
+    final String nodeType = Sidecar.readString(buffer);
+    final int numNodes = buffer.getInt();
+    final int numEdges = buffer.getInt();
+    int position = buffer.position();
+    final IntBuffer offsets = Sidecar.slice(buffer, position, (numNodes + 1) * 4).asIntBuffer();
+    position += (numNodes + 1) * 4;
+    final IntBuffer targets = Sidecar.slice(buffer, position, numEdges * 4).asIntBuffer();
+    position += numEdges * 4;
+    final IntBuffer predicates = Sidecar.slice(buffer, position, numEdges * 4).asIntBuffer();
+    LOGGER.info("Loaded {} edges between {} entities from {}", numEdges, numNodes, file);
+    return new AdjacencyIndex(edgeType, nodeType, numNodes, numEdges, offsets, targets, predicates);
+  }
+
+  /**
+   * @return <code>true</code> if the file was built with the given edge and node type filter.
+   */
+  public boolean covers(final String edgeType, final String nodeType) {
+    return this.edgeType.equals(edgeType) && this.nodeType.equals(nodeType);
+  }
+
+  public int start(final int entityId) {
+    return ((entityId >= 0) && (entityId < numNodes)) ? offsets.get(entityId) : 0;
+  }
+
+  public int end(final int entityId) {
+    return ((entityId >= 0) && (entityId < numNodes)) ? offsets.get(entityId + 1) : 0;
+  }
+
+  public int degree(final int entityId) {
+    return end(entityId) - start(entityId);
+  }
+
+  public int target(final int edge) {
+    return targets.get(edge);
+  }
+
+  public int predicate(final int edge) {
+    return predicates.get(edge);
+  }
+
+  public int numEdges() {
+    return numEdges;
+  }
+
+  /**
+   * Extracts the edges from the triple index and writes them to <code>file</code>.
+   *
+   * @return the number of edges written.
+   */
+  public static int build(final DirectoryReader reader, final UriDictionary dictionary, final Path file,
+      final long buildId, final String edgeType, final String nodeType) throws IOException {
+    final Set<String> fields = Sets.newHashSet(TripleIndex.FIELD_NAME_SUBJECT, TripleIndex.FIELD_NAME_PREDICATE,
+        TripleIndex.FIELD_NAME_OBJECT_URI);
+    final Bits liveDocs = MultiFields.getLiveDocs(reader);
+    final IntArrayList sources = new IntArrayList();
+    final IntArrayList edgeTargets = new IntArrayList();
+    final IntArrayList edgePredicates = new IntArrayList();
+    for (int docId = 0; docId < reader.maxDoc(); docId++) {
+      if ((liveDocs != null) && !liveDocs.get(docId)) {
+        continue;
+      }
+      final Document doc = reader.document(docId, fields);
+      final String predicate = doc.get(TripleIndex.FIELD_NAME_PREDICATE);
+      final String object = doc.get(TripleIndex.FIELD_NAME_OBJECT_URI);
+      if ((predicate == null) || (object == null) || !predicate.startsWith(edgeType)
+          || !object.startsWith(nodeType)) {
+        continue;
+      }
+      final int source = dictionary.find(doc.get(TripleIndex.FIELD_NAME_SUBJECT));
+      final int target = dictionary.find(object);
+      final int predicateId = dictionary.find(predicate);
+      if ((source == UriDictionary.NO_ID) || (target == UriDictionary.NO_ID)
+          || (predicateId == UriDictionary.NO_ID)) {
+        continue;
+      }
+      sources.add(source);
+      edgeTargets.add(target);
+      edgePredicates.add(predicateId);
+    }
+
+    // Counting sort by source, stable w.r.t. the index order.
+    final int numNodes = dictionary.size();
+    final int numEdges = sources.size();
+    final int[] offsets = new int[numNodes + 1];
+    for (int i = 0; i < numEdges; i++) {
+      offsets[sources.get(i) + 1]++;
+    }
+    for (int i = 0; i < numNodes; i++) {
+      offsets[i + 1] += offsets[i];
+    }
+    final int[] next = new int[numNodes];
+    System.arraycopy(offsets, 0, next, 0, numNodes);
+    final int[] sortedTargets = new int[numEdges];
+    final int[] sortedPredicates = new int[numEdges];
+    for (int i = 0; i < numEdges; i++) {
+      final int position = next[sources.get(i)]++;
+      sortedTargets[position] = edgeTargets.get(i);
+      sortedPredicates[position] = edgePredicates.get(i);
+    }
+
+    try (DataOutputStream out = Sidecar.create(file, _MAGIC, _VERSION, buildId)) {
+      Sidecar.writeString(out, edgeType);
+      Sidecar.writeString(out, nodeType);
+      out.writeInt(numNodes);
+      out.writeInt(numEdges);
+      for (final int offset : offsets) {
+        out.writeInt(offset);
+      }
+      for (final int target : sortedTargets) {
+        out.writeInt(target);
+      }
+      for (final int predicate : sortedPredicates) {
+        out.writeInt(predicate);
+      }
+    }
+    LOGGER.info("Wrote {} edges to {}", numEdges, file);
+    return numEdges;
+  }
+}
@@ -13,6 +13,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.aksw.agdistis.AGDISTISConfiguration;
+import org.aksw.agdistis.RelatednessMode;
 import org.aksw.agdistis.datatypes.AnchorDocument;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
@@ -21,13 +22,19 @@ import org.apache.jena.ext.com.google.common.collect.Lists;
 import org.apache.lucene.analysis.core.KeywordAnalyzer;
 import org.apache.lucene.analysis.core.SimpleAnalyzer;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocsEnum;
+import org.apache.lucene.index.MultiFields;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.queryparser.classic.QueryParserBase;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.NumericRangeQuery;
 import org.apache.lucene.search.Query;
@@ -36,6 +43,7 @@ import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopScoreDocCollector;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.BytesRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,6 +68,9 @@ public class CandidateSearcher {
     public static final String FIELD_NAME_OBJECT_LITERAL = "object_literal";
     public static final String FIELD_NAME_INLINKCOUNT = "inlink_count";
     public static final String FIELD_NAME_INLINKSTRING = "inlink_string";
+    public static final String FIELD_NAME_INLINKSKETCH = "inlink_sketch";
+    // marks the one document of an entity that holds its inlink columns
+    public static final String FIELD_NAME_INLINK_OWNER = "inlink_owner";
 
     public static final String warmUpQueryPredicate = "http://www.w3.org/2000/01/rdf-schema#label";
 
@@ -81,6 +92,12 @@ public class CandidateSearcher {
     private final DirectoryReader ireader;
     private final UrlValidator urlValidator;
     private final Cache<BooleanQuery, List<AnchorDocument>> cache;
+    private final DocValueColumns columns;
+    private final boolean hasColumns;
+    // older indexes hold the inlink columns on every document
+    private final boolean hasInLinkOwners;
+    // the exact relatedness needs the inlinks of every hit, the estimated one their sketches
+    private final RelatednessMode relatednessMode = AGDISTISConfiguration.INSTANCE.getRelatednessMode();
     StringUtils isInt = new StringUtils();
 
     public CandidateSearcher() throws IOException {
@@ -93,6 +110,12 @@ public class CandidateSearcher {
         log.info("Index loaded in {} msec", System.currentTimeMillis() - start);
         isearcher = new IndexSearcher(ireader);
         urlValidator = new UrlValidator();
+        columns = new DocValueColumns(ireader);
+        hasColumns = columns.covers(FIELD_NAME_ID, FIELD_NAME_SUBJECT, FIELD_NAME_PREDICATE, FIELD_NAME_INLINKSTRING);
+        if (!hasColumns) {
+            log.info("The index has no doc values. Hits will be read from the stored documents.");
+        }
+        hasInLinkOwners = MultiFields.getTerms(ireader, FIELD_NAME_INLINK_OWNER) != null;
 
         cache = CacheBuilder
                 .newBuilder()
@@ -275,48 +298,10 @@ public class CandidateSearcher {
             final ScoreDoc[] hits = collector.topDocs().scoreDocs;
 
             
-            String idStr, idTypeStr, s, p, o, probStr, pageRankStr, inlinkString;
             for (final ScoreDoc hit : hits) {
-                final Document hitDoc = isearcher.doc(hit.doc);
-                idStr = hitDoc.get(FIELD_NAME_ID);
-                idTypeStr = hitDoc.get(FIELD_NAME_IDTYPE);
-                s = hitDoc.get(FIELD_NAME_SUBJECT);
-                p = hitDoc.get(FIELD_NAME_PREDICATE);
-                o = hitDoc.get(FIELD_NAME_OBJECT_URI);
-                if (o == null) {
-                    o = hitDoc.get(FIELD_NAME_OBJECT_LITERAL);
-                }
-                
-                int id = -1;
-                try {
-                    id = Integer.parseInt(idStr);
-                } catch (NumberFormatException e) {
-                    id = -1;
-                }
-                double anchorProb = 0d;
-                probStr = hitDoc.get(FIELD_NAME_ANCHOR_PROB);
-                if(null != probStr){
-                    try {
-                        anchorProb = Double.parseDouble(probStr);
-                    } catch (NumberFormatException e) {
-                        anchorProb = 0d;
-                    }
-                }
-                double pageRank = 0d;
-                pageRankStr = hitDoc.get(FIELD_NAME_PAGE_RANK);
-                if(null != pageRankStr){
-                    try {
-                        pageRank = Double.parseDouble(pageRankStr);
-                    } catch (NumberFormatException e) {
-                        pageRank = 0d;
-                    }
-                }
-                
-                inlinkString = hitDoc.get(FIELD_NAME_INLINKSTRING);
-                final AnchorDocument triple = new AnchorDocument(id, idTypeStr, s, p, o, anchorProb, pageRank);
-                for(String linkid:inlinkString.split(" ")){
-                    if(linkid.trim().isEmpty())continue;
-                    triple.inLinks.add(Integer.parseInt(linkid));
+                AnchorDocument triple = hasColumns ? readColumns(hit.doc) : null;
+                if (triple == null) {
+                    triple = readStored(hit.doc);
                 }
                 triples.add(triple);
             }
@@ -328,6 +313,123 @@ public class CandidateSearcher {
         return triples;
     }
 
+    /**
+     * Reads a hit from the doc values. Returns <code>null</code> if a value was too long to have a column.
+     */
+    private AnchorDocument readColumns(final int docId) throws IOException {
+        final String s = columns.getString(docId, FIELD_NAME_SUBJECT);
+        final String p = columns.getString(docId, FIELD_NAME_PREDICATE);
+        String o = columns.getString(docId, FIELD_NAME_OBJECT_URI);
+        if (o == null) {
+            final BytesRef literal = columns.getBinary(docId, FIELD_NAME_OBJECT_LITERAL);
+            o = (literal == null) ? null : literal.utf8ToString();
+        }
+        if (s == null || p == null || o == null) {
+            return null;
+        }
+        final int id = (int) columns.getLong(docId, FIELD_NAME_ID, -1);
+        final String idTypeStr = columns.getString(docId, FIELD_NAME_IDTYPE);
+        final double anchorProb = columns.getDouble(docId, FIELD_NAME_ANCHOR_PROB, 0d);
+        final double pageRank = columns.getDouble(docId, FIELD_NAME_PAGE_RANK, 0d);
+        final AnchorDocument triple = new AnchorDocument(id, idTypeStr, s, p, o, anchorProb, pageRank);
+        final int ownerId = inLinkOwner(id, docId);
+        if (relatednessMode == RelatednessMode.EXACT) {
+            final int[] inLinks = columns.getSortedInts(ownerId, FIELD_NAME_INLINKSTRING);
+            if (inLinks != null) {
+                triple.setInLinks(inLinks);
+            }
+            return triple;
+        }
+        final BytesRef sketch = columns.getBinary(ownerId, FIELD_NAME_INLINKSKETCH);
+        if (sketch != null) {
+            triple.inLinkSketch = InlinkSketch.read(sketch);
+        }
+        // the exact relatedness is only computed for pairs whose sketches are missing or too coarse
+        triple.setInLinkLoader(() -> readInLinks(ownerId));
+        return triple;
+    }
+
+    /**
+     * @return the document that holds the inlink columns of the entity with the given id, or <code>docId</code> if the
+     *         index holds them on every document.
+     */
+    private int inLinkOwner(final int id, final int docId) throws IOException {
+        if (!hasInLinkOwners) {
+            return docId;
+        }
+        final BytesRef term = new BytesRef(Integer.toString(id));
+        for (final AtomicReaderContext leaf : ireader.leaves()) {
+            final Terms terms = leaf.reader().terms(FIELD_NAME_INLINK_OWNER);
+            if (terms == null) {
+                continue;
+            }
+            final TermsEnum termsEnum = terms.iterator(null);
+            if (termsEnum.seekExact(term)) {
+                final DocsEnum docs = termsEnum.docs(leaf.reader().getLiveDocs(), null, DocsEnum.FLAG_NONE);
+                final int doc = docs.nextDoc();
+                if (doc != DocIdSetIterator.NO_MORE_DOCS) {
+                    return leaf.docBase + doc;
+                }
+            }
+        }
+        return docId;
+    }
+
+    private int[] readInLinks(final int docId) {
+        try {
+            final int[] inLinks = columns.getSortedInts(docId, FIELD_NAME_INLINKSTRING);
+            return (inLinks == null) ? new int[0] : inLinks;
+        } catch (final IOException ioe) {
+            log.error("Unable to read the inlinks of document {}. StackTrace {}", docId,
+                    ExceptionUtils.getStackTrace(ioe));
+            return new int[0];
+        }
+    }
+
+    private AnchorDocument readStored(final int docId) throws IOException {
+        final Document hitDoc = isearcher.doc(docId);
+        final String idStr = hitDoc.get(FIELD_NAME_ID);
+        final String idTypeStr = hitDoc.get(FIELD_NAME_IDTYPE);
+        final String s = hitDoc.get(FIELD_NAME_SUBJECT);
+        final String p = hitDoc.get(FIELD_NAME_PREDICATE);
+        String o = hitDoc.get(FIELD_NAME_OBJECT_URI);
+        if (o == null) {
+            o = hitDoc.get(FIELD_NAME_OBJECT_LITERAL);
+        }
+        
+        int id = -1;
+        try {
+            id = Integer.parseInt(idStr);
+        } catch (NumberFormatException e) {
+            id = -1;
+        }
+        double anchorProb = 0d;
+        final String probStr = hitDoc.get(FIELD_NAME_ANCHOR_PROB);
+        if(null != probStr){
+            try {
+                anchorProb = Double.parseDouble(probStr);
+            } catch (NumberFormatException e) {
+                anchorProb = 0d;
+            }
+        }
+        double pageRank = 0d;
+        final String pageRankStr = hitDoc.get(FIELD_NAME_PAGE_RANK);
+        if(null != pageRankStr){
+            try {
+                pageRank = Double.parseDouble(pageRankStr);
+            } catch (NumberFormatException e) {
+                pageRank = 0d;
+            }
+        }
+        
+        final String inlinkString = hitDoc.get(FIELD_NAME_INLINKSTRING);
+        final AnchorDocument triple = new AnchorDocument(id, idTypeStr, s, p, o, anchorProb, pageRank);
+        if (inlinkString != null) {
+            triple.setInLinks(IndexCreator.parseInLinks(inlinkString));
+        }
+        return triple;
+    }
+
     public void close() throws IOException {
         ireader.close();
         directory.close();
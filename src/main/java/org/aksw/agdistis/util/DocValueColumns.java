@@ -0,0 +1,178 @@
+package org.aksw.agdistis.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * Column-wise access to the doc values of an index, so that a hit can be read without decompressing its stored
+ * document.
+ * <p>
+ * Values are looked up in the segment of the document. Lucene caches doc values per segment and thread, so an
+ * instance can be shared between threads. A returned {@link BytesRef} is only valid until the next call on the same
+ * thread.
+ */
+public class DocValueColumns {
+
+  /**
+   * Longest value a sorted column can hold. Longer values are only stored.
+   */
+  public static final int MAX_SORTED_LENGTH = 32766;
+
+  private final List<AtomicReaderContext> leaves;
+  private final FieldInfos fieldInfos;
+
+  public DocValueColumns(final DirectoryReader reader) {
+    leaves = reader.leaves();
+    fieldInfos = MultiFields.getMergedFieldInfos(reader);
+  }
+
+  /**
+   * @return <code>true</code> if every given field has doc values in the index.
+   */
+  public boolean covers(final String... fields) {
+    for (final String field : fields) {
+      final FieldInfo info = fieldInfos.fieldInfo(field);
+      if ((info == null) || !info.hasDocValues()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the value of a sorted column as a string, or <code>null</code> if the document has no value.
+   */
+  public String getString(final int docId, final String field) throws IOException {
+    final AtomicReaderContext leaf = leaf(docId);
+    final SortedDocValues values = leaf.reader().getSortedDocValues(field);
+    if (values == null) {
+      return null;
+    }
+    final int ord = values.getOrd(docId - leaf.docBase);
+    return (ord < 0) ? null : values.lookupOrd(ord).utf8ToString();
+  }
+
+  /**
+   * @return the value of a binary column, or <code>null</code> if the document has no value.
+   */
+  public BytesRef getBinary(final int docId, final String field) throws IOException {
+    final AtomicReaderContext leaf = leaf(docId);
+    final AtomicReader reader = leaf.reader();
+    final BinaryDocValues values = reader.getBinaryDocValues(field);
+    if ((values == null) || !reader.getDocsWithField(field).get(docId - leaf.docBase)) {
+      return null;
+    }
+    return values.get(docId - leaf.docBase);
+  }
+
+  /**
+   * @return the value of a numeric column, or <code>defaultValue</code> if the document has no value.
+   */
+  public long getLong(final int docId, final String field, final long defaultValue) throws IOException {
+    final AtomicReaderContext leaf = leaf(docId);
+    final AtomicReader reader = leaf.reader();
+    final NumericDocValues values = reader.getNumericDocValues(field);
+    if ((values == null) || !reader.getDocsWithField(field).get(docId - leaf.docBase)) {
+      return defaultValue;
+    }
+    return values.get(docId - leaf.docBase);
+  }
+
+  /**
+   * @return the value of a column written as a {@link org.apache.lucene.document.DoubleDocValuesField}, or
+   *         <code>defaultValue</code> if the document has no value.
+   */
+  public double getDouble(final int docId, final String field, final double defaultValue) throws IOException {
+    final AtomicReaderContext leaf = leaf(docId);
+    final AtomicReader reader = leaf.reader();
+    final NumericDocValues values = reader.getNumericDocValues(field);
+    if ((values == null) || !reader.getDocsWithField(field).get(docId - leaf.docBase)) {
+      return defaultValue;
+    }
+    return Double.longBitsToDouble(values.get(docId - leaf.docBase));
+  }
+
+  /**
+   * @return the values of a column written with {@link #addSortedInts}, or <code>null</code> if the document has no
+   *         value.
+   */
+  public int[] getSortedInts(final int docId, final String field) throws IOException {
+    final BytesRef bytes = getBinary(docId, field);
+    if (bytes == null) {
+      return null;
+    }
+    final ByteArrayDataInput in = new ByteArrayDataInput(bytes.bytes, bytes.offset, bytes.length);
+    final int[] values = new int[in.readVInt()];
+    int previous = 0;
+    for (int i = 0; i < values.length; i++) {
+      previous += in.readVInt();
+      values[i] = previous;
+    }
+    return values;
+  }
+
+  private AtomicReaderContext leaf(final int docId) {
+    return leaves.get(ReaderUtil.subIndex(docId, leaves));
+  }
+
+  /**
+   * Adds a sorted column for the value unless it is too long, in which case the value is only available as a stored
+   * field.
+   *
+   * @return <code>true</code> if the column was added.
+   */
+  public static boolean addSorted(final Document doc, final String field, final String value) {
+    final BytesRef bytes = new BytesRef(value);
+    if (bytes.length > MAX_SORTED_LENGTH) {
+      return false;
+    }
+    doc.add(new SortedDocValuesField(field, bytes));
+    return true;
+  }
+
+  /**
+   * Adds a binary column holding the UTF-8 bytes of the value.
+   */
+  public static void addBinary(final Document doc, final String field, final String value) {
+    doc.add(new BinaryDocValuesField(field, new BytesRef(value.getBytes(StandardCharsets.UTF_8))));
+  }
+
+  /**
+   * Adds a binary column holding a sorted list of non-negative ints, written as the variable-length encoded count
+   * followed by the variable-length encoded gaps between consecutive values.
+   */
+  public static void addSortedInts(final Document doc, final String field, final int[] values) {
+    final byte[] bytes = new byte[5 * (values.length + 1)];
+    final ByteArrayDataOutput out = new ByteArrayDataOutput(bytes);
+    try {
+      out.writeVInt(values.length);
+      int previous = 0;
+      for (final int value : values) {
+        out.writeVInt(value - previous);
+        previous = value;
+      }
+    } catch (final IOException e) {
+      // Cannot happen, the buffer is large enough.
+      throw new IllegalStateException(e);
+    }
+    doc.add(new BinaryDocValuesField(field, new BytesRef(bytes, 0, out.getPosition())));
+  }
+}
@@ -0,0 +1,94 @@
+package org.aksw.agdistis.util;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+import java.util.PriorityQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A popularity prior per entity, keyed by URI id. The prior is the number of incoming entity-to-entity edges in the
+ * knowledge graph (see {@link AdjacencyIndex}), so it is available for every index regardless of whether anchor
+ * statistics exist.
+ * <p>
+ * File layout: <code>magic, version, N, priors[N]</code>.
+ */
+public class EntityPriors {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(EntityPriors.class);
+
+  private static final int _MAGIC = 0x41475052; // "AGPR"
+  private static final int _VERSION = 2;
+
+  private final int size;
+  private final FloatBuffer priors;
+
+  private EntityPriors(final int size, final FloatBuffer priors) {
+    this.size = size;
+    this.priors = priors;
+  }
+
+  /**
+   * Loads the priors. Returns <code>null</code> if the file does not exist.
+   */
+  public static EntityPriors open(final Path file, final long buildId) throws IOException {
+    final ByteBuffer buffer = Sidecar.map(file);
+    if (buffer == null) {
+      return null;
+    }
+    Sidecar.checkHeader(buffer, _MAGIC, _VERSION, buildId, file);
+    final int size = buffer.getInt();
+    return new EntityPriors(size, Sidecar.slice(buffer, buffer.position(), size * 4).asFloatBuffer());
+  }
+
+  /**
+   * @return the prior of the entity or 0 if the entity is unknown.
+   */
+  public float get(final int entityId) {
+    return ((entityId >= 0) && (entityId < size)) ? priors.get(entityId) : 0f;
+  }
+
+  /**
+   * @return the ids of the <code>n</code> entities with the highest prior, the highest first.
+   */
+  public int[] top(final int n) {
+    // Priors are non-negative, so their bits sort like the floats.
+    final PriorityQueue<Long> smallest = new PriorityQueue<Long>();
+    for (int id = 0; id < size; id++) {
+      final long key = ((long) Float.floatToIntBits(priors.get(id)) << 32) | id;
+      if (smallest.size() < n) {
+        smallest.add(key);
+      } else if ((n > 0) && (key > smallest.peek())) {
+        smallest.poll();
+        smallest.add(key);
+      }
+    }
+    final int[] top = new int[smallest.size()];
+    for (int i = top.length - 1; i >= 0; i--) {
+      top[i] = (int) (long) smallest.poll();
+    }
+    return top;
+  }
+
+  /**
+   * Computes the in-degree of every entity of the adjacency and writes it to <code>file</code>.
+   */
+  public static void build(final AdjacencyIndex adjacency, final int numEntities, final Path file,
+      final long buildId) throws IOException {
+    final float[] priors = new float[numEntities];
+    for (int edge = 0; edge < adjacency.numEdges(); edge++) {
+      priors[adjacency.target(edge)]++;
+    }
+    try (DataOutputStream out = Sidecar.create(file, _MAGIC, _VERSION, buildId)) {
+      out.writeInt(numEntities);
+      for (final float prior : priors) {
+        out.writeFloat(prior);
+      }
+    }
+    LOGGER.info("Wrote priors of {} entities to {}", numEntities, file);
+  }
+}
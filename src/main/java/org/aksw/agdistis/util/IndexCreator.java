@@ -11,10 +11,13 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.aksw.agdistis.AGDISTISConfiguration;
 import org.apache.commons.io.FilenameUtils;
@@ -22,10 +25,13 @@ import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.core.KeywordAnalyzer;
 import org.apache.lucene.analysis.core.SimpleAnalyzer;
 import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoubleDocValuesField;
 import org.apache.lucene.document.DoubleField;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.IntField;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.DirectoryReader;
@@ -74,7 +80,9 @@ public class IndexCreator {
     private Map<Integer, Map<String,Double>> idToAnchorTextToProb;
     private Map<Integer, Double> idToPageRank;
     private Map<Integer, String[]> idToInLinks; // id,{inlinkCount, inlinkStr} // eg:for "1 2 3" --> 1, {"2", "2 3"}
-    public static final int  INLINK_LIMIT = 500;
+    private Map<Integer, int[]> idToInLinkIds; // id, all inlink ids, sorted
+    public static final int  INLINK_LIMIT = 500; // for the text field only
+    private final Set<Integer> inLinkOwners = new HashSet<Integer>(); // ids whose inlink columns are written
     
     public static void main(String[] args){
         
@@ -218,6 +226,7 @@ public class IndexCreator {
     
     private void readInLinks(String inLinksFilePath) throws IOException{
         idToInLinks = new HashMap<Integer, String[]>();
+        idToInLinkIds = new HashMap<Integer, int[]>();
         InputStream is = new FileInputStream(inLinksFilePath);
         InputStreamReader isr = new InputStreamReader(is, "UTF-8");
         LineNumberReader lnr = new LineNumberReader(isr);
@@ -250,6 +259,7 @@ public class IndexCreator {
             String inlinkStr = buff.toString();
             if(!idToInLinks.containsKey(id)){
                 idToInLinks.put(id, new String[]{inlinkCount.toString(), inlinkStr});
+                idToInLinkIds.put(id, parseInLinks(line.substring(parts[0].length())));
             }
         }
         lnr.close();
@@ -365,6 +375,27 @@ public class IndexCreator {
             doc.add(new DoubleField(CandidateSearcher.FIELD_NAME_INLINKCOUNT, Double.parseDouble(inlinkInfo[0]), Store.YES));
             doc.add(new TextField(CandidateSearcher.FIELD_NAME_INLINKSTRING, inlinkInfo[1], Store.YES));
             
+            // columns read by the CandidateSearcher
+            doc.add(new NumericDocValuesField(CandidateSearcher.FIELD_NAME_ID, idAndType.id));
+            DocValueColumns.addSorted(doc, CandidateSearcher.FIELD_NAME_IDTYPE, idAndType.typeString);
+            TripleIndexCreator.addColumns(doc, subject, predicate, object, isUri);
+            if(predicate.equals(anchorTextURI)){
+                doc.add(new DoubleDocValuesField(CandidateSearcher.FIELD_NAME_ANCHOR_PROB, anchorProb));
+            }
+            doc.add(new DoubleDocValuesField(CandidateSearcher.FIELD_NAME_PAGE_RANK, pageRank));
+            // the column holds all inlinks, relatedness is computed on the full sets. It is written once per entity,
+            // on its first document, which the CandidateSearcher finds by FIELD_NAME_INLINK_OWNER.
+            if (inLinkOwners.add(idAndType.id)) {
+                int[] inLinkIds = idToInLinkIds.get(idAndType.id);
+                if (inLinkIds == null) {
+                    inLinkIds = new int[0];
+                }
+                doc.add(new StringField(CandidateSearcher.FIELD_NAME_INLINK_OWNER, idAndType.id.toString(), Store.NO));
+                DocValueColumns.addSortedInts(doc, CandidateSearcher.FIELD_NAME_INLINKSTRING, inLinkIds);
+                doc.add(new BinaryDocValuesField(CandidateSearcher.FIELD_NAME_INLINKSKETCH,
+                        InlinkSketch.of(inLinkIds, InlinkSketch.DEFAULT_SIZE).toBytesRef()));
+            }
+            
             try {
                 iwriter.addDocument(doc);
             } catch (Exception e) {
@@ -377,6 +408,27 @@ public class IndexCreator {
       
 
 
+    /**
+     * @return the sorted, distinct ids of a space separated inlink string.
+     */
+    static int[] parseInLinks(String inlinkStr) {
+        IntArrayList inLinks = new IntArrayList();
+        for(String linkid: inlinkStr.split(" ")){
+            if(linkid.trim().isEmpty())continue;
+            inLinks.add(Integer.parseInt(linkid.trim()));
+        }
+        int[] sorted = inLinks.toArray();
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for(int i=0; i<sorted.length; i++){
+            if(i == 0 || sorted[i] != sorted[i-1]){
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+
+
     private String[] idtoInlink(Integer id) {
         return idToInLinks.get(id);
     }
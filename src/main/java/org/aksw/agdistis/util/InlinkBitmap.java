@@ -0,0 +1,160 @@
+package org.aksw.agdistis.util;
+
+import java.util.Arrays;
+
+/**
+ * An immutable compressed set of non-negative ints, laid out like a Roaring bitmap: values are grouped by their high
+ * 16 bits and every group is stored either as a sorted array of its low 16 bits (sparse groups) or as a 65536-bit
+ * bitmap (dense groups). Intersections are computed group by group, so their cost depends on the number of groups and
+ * their density rather than on the number of values.
+ */
+public final class InlinkBitmap {
+
+  // Groups with more values than this are stored as bitmaps, which are then not larger than the array would be.
+  private static final int _MAX_ARRAY_SIZE = 4096;
+  private static final int _BITMAP_WORDS = 1 << 10;
+
+  public static final InlinkBitmap EMPTY = new InlinkBitmap(new char[0], new Object[0], new int[0], 0);
+
+  private final char[] keys;
+  // char[] for array groups, long[] for bitmap groups
+  private final Object[] containers;
+  private final int[] sizes;
+  private final int cardinality;
+
+  private InlinkBitmap(final char[] keys, final Object[] containers, final int[] sizes, final int cardinality) {
+    this.keys = keys;
+    this.containers = containers;
+    this.sizes = sizes;
+    this.cardinality = cardinality;
+  }
+
+  /**
+   * Creates the set of the given values, which have to be sorted and distinct.
+   */
+  public static InlinkBitmap of(final int[] sortedValues) {
+    if (sortedValues.length == 0) {
+      return EMPTY;
+    }
+    int groups = 1;
+    for (int i = 1; i < sortedValues.length; i++) {
+      if ((sortedValues[i] >>> 16) != (sortedValues[i - 1] >>> 16)) {
+        groups++;
+      }
+    }
+    final char[] keys = new char[groups];
+    final Object[] containers = new Object[groups];
+    final int[] sizes = new int[groups];
+    int start = 0;
+    for (int group = 0; group < groups; group++) {
+      final int key = sortedValues[start] >>> 16;
+      int end = start + 1;
+      while ((end < sortedValues.length) && ((sortedValues[end] >>> 16) == key)) {
+        end++;
+      }
+      keys[group] = (char) key;
+      sizes[group] = end - start;
+      if (sizes[group] > _MAX_ARRAY_SIZE) {
+        final long[] bits = new long[_BITMAP_WORDS];
+        for (int i = start; i < end; i++) {
+          final int low = sortedValues[i] & 0xffff;
+          bits[low >>> 6] |= 1L << low;
+        }
+        containers[group] = bits;
+      } else {
+        final char[] lows = new char[sizes[group]];
+        for (int i = start; i < end; i++) {
+          lows[i - start] = (char) sortedValues[i];
+        }
+        containers[group] = lows;
+      }
+      start = end;
+    }
+    return new InlinkBitmap(keys, containers, sizes, sortedValues.length);
+  }
+
+  public int cardinality() {
+    return cardinality;
+  }
+
+  public boolean contains(final int value) {
+    final int group = Arrays.binarySearch(keys, (char) (value >>> 16));
+    if ((value < 0) || (group < 0)) {
+      return false;
+    }
+    return contains(containers[group], (char) value);
+  }
+
+  /**
+   * @return the number of values contained in both sets.
+   */
+  public int andCardinality(final InlinkBitmap other) {
+    int common = 0;
+    int i = 0;
+    int j = 0;
+    while ((i < keys.length) && (j < other.keys.length)) {
+      if (keys[i] < other.keys[j]) {
+        i++;
+      } else if (keys[i] > other.keys[j]) {
+        j++;
+      } else {
+        common += andCardinality(containers[i], sizes[i], other.containers[j], other.sizes[j]);
+        i++;
+        j++;
+      }
+    }
+    return common;
+  }
+
+  private static int andCardinality(final Object a, final int sizeA, final Object b, final int sizeB) {
+    if (a instanceof long[]) {
+      if (b instanceof long[]) {
+        final long[] bitsA = (long[]) a;
+        final long[] bitsB = (long[]) b;
+        int common = 0;
+        for (int w = 0; w < _BITMAP_WORDS; w++) {
+          common += Long.bitCount(bitsA[w] & bitsB[w]);
+        }
+        return common;
+      }
+      return andCardinality((char[]) b, sizeB, (long[]) a);
+    }
+    if (b instanceof long[]) {
+      return andCardinality((char[]) a, sizeA, (long[]) b);
+    }
+    final char[] lowsA = (char[]) a;
+    final char[] lowsB = (char[]) b;
+    int common = 0;
+    int i = 0;
+    int j = 0;
+    while ((i < sizeA) && (j < sizeB)) {
+      if (lowsA[i] < lowsB[j]) {
+        i++;
+      } else if (lowsA[i] > lowsB[j]) {
+        j++;
+      } else {
+        common++;
+        i++;
+        j++;
+      }
+    }
+    return common;
+  }
+
+  private static int andCardinality(final char[] lows, final int size, final long[] bits) {
+    int common = 0;
+    for (int i = 0; i < size; i++) {
+      if ((bits[lows[i] >>> 6] & (1L << lows[i])) != 0) {
+        common++;
+      }
+    }
+    return common;
+  }
+
+  private static boolean contains(final Object container, final char low) {
+    if (container instanceof long[]) {
+      return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+    }
+    return Arrays.binarySearch((char[]) container, low) >= 0;
+  }
+}
@@ -0,0 +1,177 @@
+package org.aksw.agdistis.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * A bottom-k MinHash sketch of an inlink set: the <code>k</code> smallest values of a hash of the inlink ids, together
+ * with the exact size of the set.
+ * <p>
+ * The Jaccard similarity of two sets is estimated from the <code>k</code> smallest hashes of their union, with a
+ * relative standard error of about <code>1 / sqrt(k)</code>. The estimate costs <code>O(k)</code> regardless of the
+ * size of the sets. Sets with at most <code>k</code> elements are held entirely, so their intersection is exact.
+ * <p>
+ * Encoding: <code>vint cardinality, vint k, vint gaps between the hashes (in unsigned order)</code>.
+ */
+public final class InlinkSketch {
+
+  public static final int DEFAULT_SIZE = 256;
+
+  private final int cardinality;
+  // sorted in unsigned order
+  private final int[] hashes;
+
+  private InlinkSketch(final int cardinality, final int[] hashes) {
+    this.cardinality = cardinality;
+    this.hashes = hashes;
+  }
+
+  /**
+   * Sketches the given distinct values.
+   */
+  public static InlinkSketch of(final int[] values, final int size) {
+    final int[] hashes = new int[values.length];
+    for (int i = 0; i < values.length; i++) {
+      // flip the sign bit so that signed sorting gives the unsigned order
+      hashes[i] = hash(values[i]) ^ Integer.MIN_VALUE;
+    }
+    Arrays.sort(hashes);
+    final int[] smallest = Arrays.copyOf(hashes, Math.min(size, hashes.length));
+    for (int i = 0; i < smallest.length; i++) {
+      smallest[i] ^= Integer.MIN_VALUE;
+    }
+    return new InlinkSketch(values.length, smallest);
+  }
+
+  /**
+   * @return the number of values of the sketched set.
+   */
+  public int cardinality() {
+    return cardinality;
+  }
+
+  /**
+   * @return the number of hashes kept.
+   */
+  public int size() {
+    return hashes.length;
+  }
+
+  /**
+   * @return <code>true</code> if the sketch holds the hashes of all values.
+   */
+  public boolean isComplete() {
+    return hashes.length == cardinality;
+  }
+
+  /**
+   * @return the relative standard error of estimates made with the given sketches, 0 if they are exact.
+   */
+  public static double standardError(final InlinkSketch a, final InlinkSketch b) {
+    if (a.isComplete() && b.isComplete()) {
+      return 0;
+    }
+    final int k = Math.min(a.isComplete() ? Integer.MAX_VALUE : a.size(), b.isComplete() ? Integer.MAX_VALUE
+        : b.size());
+    return 1.0 / Math.sqrt(Math.max(1, k));
+  }
+
+  /**
+   * @return an estimate of the number of values the two sketched sets have in common.
+   */
+  public static double estimateIntersection(final InlinkSketch a, final InlinkSketch b) {
+    if (a.isComplete() && b.isComplete()) {
+      return countCommon(a.hashes, a.size(), b.hashes, b.size());
+    }
+    // Walk the k smallest hashes of the union and count those present in both sketches. A hash below the largest
+    // hash of an incomplete sketch is in that sketch iff it is in the set.
+    final int k = Math.min(a.isComplete() ? Integer.MAX_VALUE : a.size(), b.isComplete() ? Integer.MAX_VALUE
+        : b.size());
+    int i = 0;
+    int j = 0;
+    int seen = 0;
+    int common = 0;
+    while ((seen < k) && ((i < a.size()) || (j < b.size()))) {
+      final int cmp = (i == a.size()) ? 1 : (j == b.size()) ? -1 : Integer.compareUnsigned(a.hashes[i], b.hashes[j]);
+      if (cmp < 0) {
+        i++;
+      } else if (cmp > 0) {
+        j++;
+      } else {
+        common++;
+        i++;
+        j++;
+      }
+      seen++;
+    }
+    if (seen == 0) {
+      return 0;
+    }
+    final double jaccard = (double) common / seen;
+    return (jaccard * (a.cardinality + b.cardinality)) / (1 + jaccard);
+  }
+
+  private static int countCommon(final int[] a, final int sizeA, final int[] b, final int sizeB) {
+    int i = 0;
+    int j = 0;
+    int common = 0;
+    while ((i < sizeA) && (j < sizeB)) {
+      final int cmp = Integer.compareUnsigned(a[i], b[j]);
+      if (cmp < 0) {
+        i++;
+      } else if (cmp > 0) {
+        j++;
+      } else {
+        common++;
+        i++;
+        j++;
+      }
+    }
+    return common;
+  }
+
+  public BytesRef toBytesRef() {
+    final byte[] bytes = new byte[5 * (hashes.length + 2)];
+    final ByteArrayDataOutput out = new ByteArrayDataOutput(bytes);
+    try {
+      out.writeVInt(cardinality);
+      out.writeVInt(hashes.length);
+      int previous = 0;
+      for (final int hash : hashes) {
+        // unsigned gaps, any 32 bit pattern is a valid vint
+        out.writeVInt(hash - previous);
+        previous = hash;
+      }
+    } catch (final IOException e) {
+      // Cannot happen, the buffer is large enough.
+      throw new IllegalStateException(e);
+    }
+    return new BytesRef(bytes, 0, out.getPosition());
+  }
+
+  public static InlinkSketch read(final BytesRef bytes) {
+    final ByteArrayDataInput in = new ByteArrayDataInput(bytes.bytes, bytes.offset, bytes.length);
+    final int cardinality = in.readVInt();
+    final int[] hashes = new int[in.readVInt()];
+    int previous = 0;
+    for (int i = 0; i < hashes.length; i++) {
+      previous += in.readVInt();
+      hashes[i] = previous;
+    }
+    return new InlinkSketch(cardinality, hashes);
+  }
+
+  // The finalizer of MurmurHash3, a bijection on ints.
+  private static int hash(int h) {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+}
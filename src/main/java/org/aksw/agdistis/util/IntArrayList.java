@@ -0,0 +1,60 @@
+package org.aksw.agdistis.util;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive <code>int</code>s. Not thread-safe.
+ */
+public class IntArrayList {
+
+  private int[] values;
+  private int size;
+
+  public IntArrayList() {
+    this(16);
+  }
+
+  public IntArrayList(final int initialCapacity) {
+    values = new int[Math.max(initialCapacity, 1)];
+  }
+
+  public void add(final int value) {
+    if (size == values.length) {
+      values = Arrays.copyOf(values, size + (size >> 1) + 1);
+    }
+    values[size++] = value;
+  }
+
+  public int get(final int index) {
+    if (index >= size) {
+      throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for size " + size);
+    }
+    return values[index];
+  }
+
+  public void set(final int index, final int value) {
+    if (index >= size) {
+      throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for size " + size);
+    }
+    values[index] = value;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * @return a copy of the content of the list.
+   */
+  public int[] toArray() {
+    return Arrays.copyOf(values, size);
+  }
+}
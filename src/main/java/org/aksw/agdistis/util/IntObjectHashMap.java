@@ -0,0 +1,149 @@
+package org.aksw.agdistis.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A minimal open-addressing hash map with primitive <code>int</code> keys. Used on the disambiguation hot paths where
+ * graph nodes are keyed by URI id, to avoid boxing the keys. Not thread-safe.
+ */
+public class IntObjectHashMap<V> implements Iterable<V> {
+
+  private static final int _FREE = Integer.MIN_VALUE;
+
+  private int[] keys;
+  private Object[] values;
+  private int size;
+  private int mask;
+
+  public IntObjectHashMap() {
+    this(16);
+  }
+
+  public IntObjectHashMap(final int expectedSize) {
+    int capacity = 16;
+    while (capacity < (expectedSize * 2)) {
+      capacity <<= 1;
+    }
+    allocate(capacity);
+  }
+
+  private void allocate(final int capacity) {
+    keys = new int[capacity];
+    Arrays.fill(keys, _FREE);
+    values = new Object[capacity];
+    mask = capacity - 1;
+  }
+
+  private int slot(final int key) {
+    // Murmur3 finalizer mix, so that consecutive ids do not cluster.
+    int h = key;
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    return h & mask;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(final int key) {
+    int i = slot(key);
+    while (keys[i] != _FREE) {
+      if (keys[i] == key) {
+        return (V) values[i];
+      }
+      i = (i + 1) & mask;
+    }
+    return null;
+  }
+
+  public boolean containsKey(final int key) {
+    return get(key) != null;
+  }
+
+  /**
+   * Associates the (non-null) value with the key.
+   * @return the previous value or <code>null</code>.
+   */
+  @SuppressWarnings("unchecked")
+  public V put(final int key, final V value) {
+    if (key == _FREE) {
+      throw new IllegalArgumentException("Key " + key + " is reserved.");
+    }
+    if (value == null) {
+      throw new NullPointerException("Null values are not supported.");
+    }
+    int i = slot(key);
+    while (keys[i] != _FREE) {
+      if (keys[i] == key) {
+        final V old = (V) values[i];
+        values[i] = value;
+        return old;
+      }
+      i = (i + 1) & mask;
+    }
+    keys[i] = key;
+    values[i] = value;
+    if (++size * 2 > keys.length) {
+      rehash();
+    }
+    return null;
+  }
+
+  private void rehash() {
+    final int[] oldKeys = keys;
+    final Object[] oldValues = values;
+    allocate(keys.length << 1);
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldKeys[j] != _FREE) {
+        int i = slot(oldKeys[j]);
+        while (keys[i] != _FREE) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+      }
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Iterates over the values, in no particular order.
+   */
+  @Override
+  public Iterator<V> iterator() {
+    return new Iterator<V>() {
+      private int next = advance(0);
+
+      private int advance(int i) {
+        while ((i < keys.length) && (keys[i] == _FREE)) {
+          i++;
+        }
+        return i;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return next < keys.length;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public V next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final V value = (V) values[next];
+        next = advance(next + 1);
+        return value;
+      }
+    };
+  }
+}
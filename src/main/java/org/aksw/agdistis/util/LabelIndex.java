@@ -0,0 +1,339 @@
+package org.aksw.agdistis.util;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.OutputStreamDataOutput;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IntsRef;
+import org.apache.lucene.util.Version;
+import org.apache.lucene.util.fst.Builder;
+import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.PositiveIntOutputs;
+import org.apache.lucene.util.fst.Util;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Dictionary of the <code>rdfs:label</code> and <code>skos:altLabel</code> literals of the knowledge graph.
+ * <p>
+ * Labels are normalized with the same analysis the triple index applies to literals (lower-casing, ASCII folding,
+ * splitting on non-letters). A finite state transducer maps every normalized label to the offset of its posting list
+ * in a memory-mapped file. A posting list holds the entities having that label, ordered by descending prior (see
+ * {@link EntityPriors}), so looking up an exact label is a walk over the transducer and a sequential read.
+ * <p>
+ * The postings are followed by the position of the first label and the first alternative label of every entity in the
+ * order of the triple index, so the triple that the triple index returns first for an entity and a label predicate is
+ * also a single read ({@link #firstLabel(int, String)}).
+ * <p>
+ * Postings layout: <code>(count, (entityId, flags, prior, literal)*)*, firstLabels[2N], firstLabelsOffset</code>.
+ */
+public class LabelIndex {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LabelIndex.class);
+
+  private static final int _MAGIC = 0x41474c42; // "AGLB"
+  private static final int _FST_MAGIC = 0x41474653; // "AGFS"
+  private static final int _VERSION = 3;
+
+  public static final String LABEL_PREDICATE = "http://www.w3.org/2000/01/rdf-schema#label";
+  public static final String ALT_LABEL_PREDICATE = "http://www.w3.org/2004/02/skos/core#altLabel";
+
+  private static final byte _FLAG_ALT_LABEL = 1;
+
+  // first label positions of the entities without such a label, and of those whose label has no indexable tokens
+  private static final int _NO_LABEL = -1;
+  private static final int _UNINDEXED_LABEL = -2;
+
+  private static final Analyzer _ANALYZER = new LiteralAnalyzer(Version.LUCENE_4_9);
+
+  private final FST<Long> fst;
+  private final ByteBuffer postings;
+  private final IntBuffer firstLabels;
+  private final UriDictionary dictionary;
+
+  private LabelIndex(final FST<Long> fst, final ByteBuffer postings, final IntBuffer firstLabels,
+      final UriDictionary dictionary) {
+    this.fst = fst;
+    this.postings = postings;
+    this.firstLabels = firstLabels;
+    this.dictionary = dictionary;
+  }
+
+  /**
+   * Loads the label dictionary. Returns <code>null</code> if either file does not exist.
+   */
+  public static LabelIndex open(final Path fstFile, final Path postingsFile, final long buildId,
+      final UriDictionary dictionary) throws IOException {
+    final ByteBuffer postings = Sidecar.map(postingsFile);
+    if ((postings == null) || !fstFile.toFile().isFile()) {
+      LOGGER.info("No label dictionary found at {}. Candidates will be searched in the triple index.", fstFile);
+      return null;
+    }
+    Sidecar.checkHeader(postings, _MAGIC, _VERSION, buildId, postingsFile);
+    final ByteBuffer fstBuffer = Sidecar.map(fstFile);
+    Sidecar.checkHeader(fstBuffer, _FST_MAGIC, _VERSION, buildId, fstFile);
+    final byte[] fstBytes = new byte[fstBuffer.remaining()];
+    fstBuffer.get(fstBytes);
+    final FST<Long> fst = new FST<Long>(new ByteArrayDataInput(fstBytes), PositiveIntOutputs.getSingleton());
+    final int firstLabelsOffset = postings.getInt(postings.limit() - 4);
+    final IntBuffer firstLabels = Sidecar.slice(postings, firstLabelsOffset, postings.limit() - 4 - firstLabelsOffset)
+        .asIntBuffer();
+    LOGGER.info("Loaded label dictionary ({} bytes) from {}", fst.ramBytesUsed(), fstFile);
+    return new LabelIndex(fst, postings, firstLabels, dictionary);
+  }
+
+  /**
+   * Normalizes a label the way the triple index analyzes literals. Returns the empty string if the label has no
+   * indexable tokens.
+   */
+  public static String normalize(final String label) {
+    final StringBuilder sb = new StringBuilder(label.length());
+    try (TokenStream stream = _ANALYZER.tokenStream(TripleIndex.FIELD_NAME_OBJECT_LITERAL, new StringReader(label))) {
+      final CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+      stream.reset();
+      while (stream.incrementToken()) {
+        if (sb.length() > 0) {
+          sb.append(' ');
+        }
+        sb.append(term.buffer(), 0, term.length());
+      }
+      stream.end();
+    } catch (final IOException e) {
+      // Cannot happen on a StringReader.
+      throw new IllegalStateException(e);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Finds the entities whose label (and, if requested, alternative label) equals the given one after normalization.
+   * Returns at most <code>max</code> label and <code>max</code> alternative label matches, labels first, as
+   * <code>(entity, predicate, literal)</code> triples.
+   */
+  public List<Triple> search(final String label, final boolean alternativeLabels, final int max)
+      throws IOException {
+    final List<Triple> labels = Lists.newLinkedList();
+    final String key = normalize(label);
+    if (key.isEmpty()) {
+      return labels;
+    }
+    final Long offset = Util.get(fst, new BytesRef(key));
+    if (offset == null) {
+      return labels;
+    }
+    final List<Triple> altLabels = Lists.newLinkedList();
+    final ByteBuffer buffer = postings.duplicate();
+    buffer.position(offset.intValue());
+    final int count = buffer.getInt();
+    for (int i = 0; i < count; i++) {
+      final int entityId = buffer.getInt();
+      final byte flags = buffer.get();
+      buffer.getFloat(); // prior, the list is already sorted by it.
+      final int length = buffer.getInt();
+      if ((flags & _FLAG_ALT_LABEL) == 0) {
+        if (labels.size() < max) {
+          labels.add(new Triple(dictionary.getUri(entityId), LABEL_PREDICATE, readUtf8(buffer, length)));
+          continue;
+        }
+      } else if (alternativeLabels && (altLabels.size() < max)) {
+        altLabels.add(new Triple(dictionary.getUri(entityId), ALT_LABEL_PREDICATE, readUtf8(buffer, length)));
+        continue;
+      }
+      buffer.position(buffer.position() + length);
+    }
+    labels.addAll(altLabels);
+    return labels;
+  }
+
+  /**
+   * Returns the first label (or alternative label) of the entity in the order of the triple index, i.e., the triple
+   * that a search of the triple index for the entity and the predicate returns first.
+   *
+   * @return the triple, an empty optional if the entity has no such label, or <code>null</code> if the dictionary
+   *         cannot tell and the triple index has to be searched.
+   */
+  public Optional<Triple> firstLabel(final int entityId, final String predicate) {
+    final int flag;
+    if (LABEL_PREDICATE.equals(predicate)) {
+      flag = 0;
+    } else if (ALT_LABEL_PREDICATE.equals(predicate)) {
+      flag = _FLAG_ALT_LABEL;
+    } else {
+      return null;
+    }
+    if ((entityId < 0) || (entityId >= (firstLabels.limit() / 2))) {
+      return null;
+    }
+    final int position = firstLabels.get((entityId * 2) + flag);
+    if (position == _NO_LABEL) {
+      return Optional.empty();
+    }
+    if (position == _UNINDEXED_LABEL) {
+      return null;
+    }
+    final ByteBuffer buffer = postings.duplicate();
+    buffer.position(position);
+    final int id = buffer.getInt();
+    buffer.get(); // flags
+    buffer.getFloat(); // prior
+    final int length = buffer.getInt();
+    return Optional.of(new Triple(dictionary.getUri(id), predicate, readUtf8(buffer, length)));
+  }
+
+  private static String readUtf8(final ByteBuffer buffer, final int length) {
+    final byte[] utf8 = new byte[length];
+    buffer.get(utf8);
+    return new String(utf8, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Extracts the labels and alternative labels from the triple index and writes the transducer and the postings.
+   *
+   * @return the number of distinct normalized labels.
+   */
+  public static int build(final DirectoryReader reader, final UriDictionary dictionary, final EntityPriors priors,
+      final Path fstFile, final Path postingsFile, final long buildId) throws IOException {
+    final Set<String> fields = Sets.newHashSet(TripleIndex.FIELD_NAME_SUBJECT, TripleIndex.FIELD_NAME_PREDICATE,
+        TripleIndex.FIELD_NAME_OBJECT_LITERAL);
+    final Bits liveDocs = MultiFields.getLiveDocs(reader);
+    final List<String> keys = Lists.newArrayList();
+    final List<String> literals = Lists.newArrayList();
+    final IntArrayList entities = new IntArrayList();
+    final IntArrayList flags = new IntArrayList();
+    // the first record of every entity and flag, in the order of the triple index
+    final int[] firstRecords = new int[2 * dictionary.size()];
+    Arrays.fill(firstRecords, _NO_LABEL);
+    for (int docId = 0; docId < reader.maxDoc(); docId++) {
+      if ((liveDocs != null) && !liveDocs.get(docId)) {
+        continue;
+      }
+      final Document doc = reader.document(docId, fields);
+      final String predicate = doc.get(TripleIndex.FIELD_NAME_PREDICATE);
+      final String literal = doc.get(TripleIndex.FIELD_NAME_OBJECT_LITERAL);
+      if ((literal == null) || !(LABEL_PREDICATE.equals(predicate) || ALT_LABEL_PREDICATE.equals(predicate))) {
+        continue;
+      }
+      final int entityId = dictionary.find(doc.get(TripleIndex.FIELD_NAME_SUBJECT));
+      if ((entityId == UriDictionary.NO_ID) || (entityId >= dictionary.size())) {
+        continue;
+      }
+      final String key = normalize(literal);
+      final int flag = ALT_LABEL_PREDICATE.equals(predicate) ? _FLAG_ALT_LABEL : 0;
+      if (firstRecords[(entityId * 2) + flag] == _NO_LABEL) {
+        firstRecords[(entityId * 2) + flag] = key.isEmpty() ? _UNINDEXED_LABEL : keys.size();
+      }
+      if (key.isEmpty()) {
+        continue;
+      }
+      keys.add(key);
+      literals.add(literal);
+      entities.add(entityId);
+      flags.add(flag);
+    }
+
+    // Sort by key (in the byte order of the transducer), then by descending prior.
+    final Integer[] order = new Integer[keys.size()];
+    final BytesRef[] keyBytes = new BytesRef[keys.size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+      keyBytes[i] = new BytesRef(keys.get(i));
+    }
+    Arrays.sort(order, (a, b) -> {
+      int cmp = keyBytes[a].compareTo(keyBytes[b]);
+      if (cmp == 0) {
+        cmp = Float.compare(prior(priors, entities.get(b)), prior(priors, entities.get(a)));
+      }
+      if (cmp == 0) {
+        cmp = Integer.compare(entities.get(a), entities.get(b));
+      }
+      if (cmp == 0) {
+        cmp = Integer.compare(flags.get(a), flags.get(b));
+      }
+      return (cmp == 0) ? literals.get(a).compareTo(literals.get(b)) : cmp;
+    });
+
+    final Builder<Long> builder = new Builder<Long>(FST.INPUT_TYPE.BYTE1, PositiveIntOutputs.getSingleton());
+    final IntsRef scratch = new IntsRef();
+    int distinct = 0;
+    // the position of every record in the postings, duplicates share the position of the record written
+    final int[] positions = new int[keys.size()];
+    try (DataOutputStream out = Sidecar.create(postingsFile, _MAGIC, _VERSION, buildId)) {
+      int i = 0;
+      while (i < order.length) {
+        int j = i + 1;
+        while ((j < order.length) && keyBytes[order[j]].bytesEquals(keyBytes[order[i]])) {
+          j++;
+        }
+        builder.add(Util.toIntsRef(keyBytes[order[i]], scratch), (long) out.size());
+        final List<Integer> group = Lists.newArrayList();
+        final IntArrayList duplicates = new IntArrayList();
+        for (int k = i; k < j; k++) {
+          // skip duplicated triples
+          if ((k == i) || (entities.get(order[k]) != entities.get(order[k - 1]))
+              || (flags.get(order[k]) != flags.get(order[k - 1]))
+              || !literals.get(order[k]).equals(literals.get(order[k - 1]))) {
+            group.add(order[k]);
+          } else {
+            duplicates.add(k);
+          }
+        }
+        out.writeInt(group.size());
+        for (final int entry : group) {
+          positions[entry] = out.size();
+          out.writeInt(entities.get(entry));
+          out.writeByte(flags.get(entry));
+          out.writeFloat(prior(priors, entities.get(entry)));
+          final byte[] utf8 = literals.get(entry).getBytes(StandardCharsets.UTF_8);
+          out.writeInt(utf8.length);
+          out.write(utf8);
+        }
+        if (out.size() < 0) {
+          throw new IOException("The label postings exceed 2GB.");
+        }
+        for (int d = 0; d < duplicates.size(); d++) {
+          positions[order[duplicates.get(d)]] = positions[order[duplicates.get(d) - 1]];
+        }
+        distinct++;
+        i = j;
+      }
+      final int firstLabelsOffset = out.size();
+      for (final int record : firstRecords) {
+        out.writeInt((record < 0) ? record : positions[record]);
+      }
+      out.writeInt(firstLabelsOffset);
+    }
+    final FST<Long> fst = builder.finish();
+    if (fst != null) {
+      try (DataOutputStream out = Sidecar.create(fstFile, _FST_MAGIC, _VERSION, buildId)) {
+        fst.save(new OutputStreamDataOutput(out));
+      }
+    }
+    LOGGER.info("Wrote {} labels ({} distinct) to {}", order.length, distinct, fstFile);
+    return distinct;
+  }
+
+  private static float prior(final EntityPriors priors, final int entityId) {
+    return (priors == null) ? 0f : priors.get(entityId);
+  }
+}
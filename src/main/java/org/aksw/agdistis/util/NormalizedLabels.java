@@ -0,0 +1,131 @@
+package org.aksw.agdistis.util;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The normalized label of every URI of the {@link UriDictionary} and its lower case, keyed by URI id. The candidate
+ * pruning compares these against the surface form, so they are computed once when the index is built instead of for
+ * every candidate of every mention.
+ * <p>
+ * The labels depend on the normalization they were computed with, which is identified by a fingerprint. A reader
+ * only uses them if its own normalization has the same fingerprint.
+ * <p>
+ * File layout: <code>magic, version, fingerprint, N, utf8 bytes, offsets[2N + 1]</code>, where the label of
+ * <code>i</code> spans the bytes from <code>offsets[2i]</code> to <code>offsets[2i + 1]</code> and its lower case
+ * those up to <code>offsets[2i + 2]</code>.
+ */
+public class NormalizedLabels {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(NormalizedLabels.class);
+
+  private static final int _MAGIC = 0x41474e4c; // "AGNL"
+  private static final int _VERSION = 2;
+
+  private final long fingerprint;
+  private final int size;
+  private final ByteBuffer bytes;
+  private final IntBuffer offsets;
+
+  private NormalizedLabels(final long fingerprint, final int size, final ByteBuffer bytes, final IntBuffer offsets) {
+    this.fingerprint = fingerprint;
+    this.size = size;
+    this.bytes = bytes;
+    this.offsets = offsets;
+  }
+
+  /**
+   * Loads the labels. Returns <code>null</code> if the file does not exist.
+   */
+  public static NormalizedLabels open(final Path file, final long buildId) throws IOException {
+    final ByteBuffer buffer = Sidecar.map(file);
+    if (buffer == null) {
+      LOGGER.info("No normalized labels found at {}. Candidate labels will be normalized on the fly.", file);
+      return null;
+    }
+    Sidecar.checkHeader(buffer, _MAGIC, _VERSION, buildId, file);
+    final long fingerprint = buffer.getLong();
+    final int size = buffer.getInt();
+    final int bytesStart = buffer.position();
+    final int offsetsStart = buffer.limit() - (((2 * size) + 1) * 4);
+    return new NormalizedLabels(fingerprint, size, Sidecar.slice(buffer, bytesStart, offsetsStart - bytesStart),
+        Sidecar.slice(buffer, offsetsStart, ((2 * size) + 1) * 4).asIntBuffer());
+  }
+
+  /**
+   * @return the fingerprint of the normalization the labels were computed with.
+   */
+  public long getFingerprint() {
+    return fingerprint;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the normalized label of the URI, or <code>null</code> if the id is unknown.
+   */
+  public String getLabel(final int id) {
+    return ((id >= 0) && (id < size)) ? string(2 * id) : null;
+  }
+
+  /**
+   * @return the lower case of the normalized label of the URI, or <code>null</code> if the id is unknown.
+   */
+  public String getLowerCase(final int id) {
+    return ((id >= 0) && (id < size)) ? string((2 * id) + 1) : null;
+  }
+
+  private String string(final int offset) {
+    final int start = offsets.get(offset);
+    final byte[] utf8 = new byte[offsets.get(offset + 1) - start];
+    for (int i = 0; i < utf8.length; i++) {
+      utf8[i] = bytes.get(start + i);
+    }
+    return new String(utf8, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Normalizes the label of every URI of the dictionary and writes the labels to <code>file</code>.
+   *
+   * @param normalizer
+   *          computes the label of a URI.
+   * @param fingerprint
+   *          identifies the normalization.
+   */
+  public static void build(final UriDictionary dictionary, final Function<String, String> normalizer,
+      final long fingerprint, final Path file, final long buildId) throws IOException {
+    final int size = dictionary.size();
+    final int[] offsets = new int[(2 * size) + 1];
+    try (DataOutputStream out = Sidecar.create(file, _MAGIC, _VERSION, buildId)) {
+      out.writeLong(fingerprint);
+      out.writeInt(size);
+      int offset = 0;
+      for (int id = 0; id < size; id++) {
+        final String label = normalizer.apply(dictionary.getUri(id));
+        final byte[] utf8 = label.getBytes(StandardCharsets.UTF_8);
+        out.write(utf8);
+        offsets[2 * id] = offset;
+        offset += utf8.length;
+        final byte[] lowerCase = label.toLowerCase().getBytes(StandardCharsets.UTF_8);
+        out.write(lowerCase);
+        offsets[(2 * id) + 1] = offset;
+        offset += lowerCase.length;
+      }
+      offsets[2 * size] = offset;
+      for (final int o : offsets) {
+        out.writeInt(o);
+      }
+    }
+    LOGGER.info("Wrote normalized labels of {} URIs to {}", size, file);
+  }
+}
@@ -0,0 +1,160 @@
+package org.aksw.agdistis.util;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocsEnum;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Redirects and disambiguation pages of the knowledge graph, keyed by URI id.
+ * <p>
+ * Redirects are resolved transitively at build time, so {@link #resolve(int)} is a single array access. Entities with
+ * more than one redirect follow the first one in the order of the triple index, which is the one the triple index
+ * based lookup fetched.
+ * <p>
+ * File layout: <code>magic, version, N, redirects[N], disambiguation bits[(N + 63) / 64]</code>, where
+ * <code>redirects[i] = -1</code> if <code>i</code> does not redirect.
+ */
+public class RedirectResolver {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RedirectResolver.class);
+
+  private static final int _MAGIC = 0x41475244; // "AGRD"
+  private static final int _VERSION = 3;
+
+  public static final String REDIRECT_PREDICATE = "http://dbpedia.org/ontology/wikiPageRedirects";
+  public static final String DISAMBIGUATION_PREDICATE = "http://dbpedia.org/ontology/wikiPageDisambiguates";
+
+  // Longest redirect chain that is followed at build time. Longer chains are cycles or data errors.
+  private static final int _MAX_HOPS = 8;
+
+  private final int size;
+  private final IntBuffer redirects;
+  private final LongBuffer disambiguations;
+
+  private RedirectResolver(final int size, final IntBuffer redirects, final LongBuffer disambiguations) {
+    this.size = size;
+    this.redirects = redirects;
+    this.disambiguations = disambiguations;
+  }
+
+  /**
+   * Loads the tables. Returns <code>null</code> if the file does not exist.
+   */
+  public static RedirectResolver open(final Path file, final long buildId) throws IOException {
+    final ByteBuffer buffer = Sidecar.map(file);
+    if (buffer == null) {
+      LOGGER.info("No redirect table found at {}. Redirects will be looked up in the triple index.", file);
+      return null;
+    }
+    Sidecar.checkHeader(buffer, _MAGIC, _VERSION, buildId, file);
+    final int size = buffer.getInt();
+    final int position = buffer.position();
+    final IntBuffer redirects = Sidecar.slice(buffer, position, size * 4).asIntBuffer();
+    final LongBuffer disambiguations = Sidecar.slice(buffer, position + (size * 4), ((size + 63) / 64) * 8)
+        .asLongBuffer();
+    return new RedirectResolver(size, redirects, disambiguations);
+  }
+
+  /**
+   * @return the final target of the redirects of the entity or the entity itself if it does not redirect.
+   */
+  public int resolve(final int entityId) {
+    if ((entityId < 0) || (entityId >= size)) {
+      return entityId;
+    }
+    final int target = redirects.get(entityId);
+    return (target < 0) ? entityId : target;
+  }
+
+  /**
+   * @return <code>true</code> if the entity is a disambiguation page.
+   */
+  public boolean isDisambiguation(final int entityId) {
+    if ((entityId < 0) || (entityId >= size)) {
+      return false;
+    }
+    return (disambiguations.get(entityId >>> 6) & (1L << (entityId & 63))) != 0;
+  }
+
+  /**
+   * Extracts redirects and disambiguation pages from the triple index and writes them to <code>file</code>.
+   */
+  public static void build(final DirectoryReader reader, final UriDictionary dictionary, final Path file,
+      final long buildId) throws IOException {
+    final int size = dictionary.size();
+    final int[] redirects = new int[size];
+    Arrays.fill(redirects, -1);
+    final Set<String> fields = Sets.newHashSet(TripleIndex.FIELD_NAME_SUBJECT, TripleIndex.FIELD_NAME_OBJECT_URI);
+
+    DocsEnum docs = MultiFields.getTermDocsEnum(reader, MultiFields.getLiveDocs(reader),
+        TripleIndex.FIELD_NAME_PREDICATE, new BytesRef(REDIRECT_PREDICATE));
+    int ambiguous = 0;
+    while ((docs != null) && (docs.nextDoc() != DocIdSetIterator.NO_MORE_DOCS)) {
+      final Document doc = reader.document(docs.docID(), fields);
+      final int source = dictionary.find(doc.get(TripleIndex.FIELD_NAME_SUBJECT));
+      final String object = doc.get(TripleIndex.FIELD_NAME_OBJECT_URI);
+      final int target = (object == null) ? UriDictionary.NO_ID : dictionary.find(object);
+      if ((source == UriDictionary.NO_ID) || (target == UriDictionary.NO_ID) || (source == target)) {
+        continue;
+      }
+      if (redirects[source] < 0) {
+        redirects[source] = target;
+      } else if (redirects[source] != target) {
+        // several redirects: keep the first, the documents are read in index order.
+        ambiguous++;
+      }
+    }
+
+    // Resolve chains transitively.
+    final int[] resolved = new int[size];
+    for (int i = 0; i < size; i++) {
+      int current = i;
+      int hops = 0;
+      while ((redirects[current] >= 0) && (redirects[current] != current) && (hops < _MAX_HOPS)) {
+        current = redirects[current];
+        hops++;
+      }
+      resolved[i] = ((current == i) || (hops == _MAX_HOPS)) ? -1 : current;
+    }
+
+    final FixedBitSet disambiguations = new FixedBitSet(size);
+    docs = MultiFields.getTermDocsEnum(reader, MultiFields.getLiveDocs(reader), TripleIndex.FIELD_NAME_PREDICATE,
+        new BytesRef(DISAMBIGUATION_PREDICATE));
+    while ((docs != null) && (docs.nextDoc() != DocIdSetIterator.NO_MORE_DOCS)) {
+      final int source = dictionary.find(reader.document(docs.docID(), fields).get(TripleIndex.FIELD_NAME_SUBJECT));
+      if (source != UriDictionary.NO_ID) {
+        disambiguations.set(source);
+      }
+    }
+
+    try (DataOutputStream out = Sidecar.create(file, _MAGIC, _VERSION, buildId)) {
+      out.writeInt(size);
+      for (final int target : resolved) {
+        out.writeInt(target);
+      }
+      final long[] bits = disambiguations.getBits();
+      for (int i = 0; i < ((size + 63) / 64); i++) {
+        out.writeLong(bits[i]);
+      }
+    }
+    LOGGER.info("Wrote redirects ({} ambiguous) and {} disambiguation pages to {}", ambiguous,
+        disambiguations.cardinality(), file);
+  }
+}
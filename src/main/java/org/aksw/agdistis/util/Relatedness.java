@@ -2,10 +2,11 @@ package org.aksw.agdistis.util;
 
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.aksw.agdistis.AGDISTISConfiguration;
+import org.aksw.agdistis.RelatednessMode;
 import org.aksw.agdistis.datatypes.AnchorDocument;
 
 public class Relatedness {
@@ -15,145 +16,78 @@ public class Relatedness {
     }
     
     final double KG_SIZE = 3682042;
-    public static final int INLINKS_LIMIT = 300;
-    private Map<String, Double> cache = new HashMap<String, Double>();
+    private final RelatednessMode mode = AGDISTISConfiguration.INSTANCE.getRelatednessMode();
+    private final double maxSketchError = AGDISTISConfiguration.INSTANCE.getRelatednessSketchError();
+    private final int sketchThreshold = AGDISTISConfiguration.INSTANCE.getRelatednessSketchThreshold();
+    private Map<Long, Double> cache = new HashMap<Long, Double>();
     public double getRelatedness(AnchorDocument A, AnchorDocument B){
             
         if(A == null || B == null)return 0d;
-        String key = A.id+"_"+B.id;
-        String inverseKey = B.id+"_"+A.id;
-        if(cache.containsKey(key)){
-            return cache.get(key);
+        // symmetric, so a pair is cached once regardless of the order
+        Long key = (A.id <= B.id) ? (((long) A.id << 32) | (B.id & 0xffffffffL)) : (((long) B.id << 32) | (A.id & 0xffffffffL));
+        Double cached = cache.get(key);
+        if(cached != null){
+            return cached;
         }
-        if(cache.containsKey(inverseKey)){
-            return cache.get(inverseKey);
-        }
-        double relatedNess = relatedNessFunction(A.inLinks.size(), B.inLinks.size(), A.inLinks, B.inLinks);
+        double relatedNess = useSketches(A, B) ? sketchedRelatedNess(A.inLinkSketch, B.inLinkSketch)
+                : relatedNessFunction(A.getInLinkBitmap(), B.getInLinkBitmap());
         cache.put(key, relatedNess);
         return relatedNess;
      }
     
     
     
+    private boolean useSketches(AnchorDocument A, AnchorDocument B) {
+        if (mode == RelatednessMode.EXACT || A.inLinkSketch == null || B.inLinkSketch == null) {
+            return false;
+        }
+        if (mode == RelatednessMode.AUTO
+                && Math.max(A.inLinkSketch.cardinality(), B.inLinkSketch.cardinality()) <= sketchThreshold) {
+            return false;
+        }
+        return InlinkSketch.standardError(A.inLinkSketch, B.inLinkSketch) <= maxSketchError;
+    }
     
-    private double relatedNessFunction(int countA, int countB, List<Integer> A, List<Integer> B) {
-        int i = 0;
-        int j = 0;
-        int countCommon = 0;
-        if ((INLINKS_LIMIT == -1) || ((countA <= INLINKS_LIMIT) && (countB <= INLINKS_LIMIT))) {
-          /**
-           * search in full id ranges
-           */
-          while ((i < countA) && (j < countB)) {
-            final int diff = A.get(i) - B.get(j);
-            if (diff < 0) {
-              i++;
-            } else if (diff > 0) {
-              j++;
-            } else {
-              countCommon++;
-              i++;
-              j++;
-            }
-          }
-          return distance(countA, countB, countCommon);
-        } else {
-          /**
-           * subsampled matching and extrapolating result
-           */
-          int countA2 = countA;
-          int countB2 = countB;
-          double ratioA = 1;
-          if (countA > INLINKS_LIMIT) {
-            ratioA = (double) countA / INLINKS_LIMIT;
-            countA2 = INLINKS_LIMIT;
-          }
-          double ratioB = 1;
-          if (countB > INLINKS_LIMIT) {
-            ratioB = (double) countB / INLINKS_LIMIT;
-            countB2 = INLINKS_LIMIT;
-          }
-          double iD = i;
-          double jD = j;
-          while ((i < countA) && (j < countB)) {
-            final int diff = A.get(i) - B.get(j);
-            if (diff < 0) {
-              iD += ratioA;
-              i = (int) iD;
-            } else if (diff > 0) {
-              jD += ratioB;
-              j = (int) jD;
-            } else {
-              countCommon++;
-              iD += ratioA;
-              i = (int) iD;
-              jD += ratioB;
-              j = (int) jD;
-            }
-          }
-          return distance(countA2, countB2, countCommon);
+    /**
+     * Normalized Google distance estimated from the MinHash sketches of the inlink sets.
+     */
+    private double sketchedRelatedNess(InlinkSketch A, InlinkSketch B) {
+        if (A.cardinality() == 0 || B.cardinality() == 0) {
+            return 0;
+        }
+        double common = Math.min(InlinkSketch.estimateIntersection(A, B), Math.min(A.cardinality(), B.cardinality()));
+        // an estimate below one common inlink means none
+        return common < 1 ? 0 : distance(A.cardinality(), B.cardinality(), common);
+    }
+    
+    /**
+     * Normalized Google distance of the two full inlink sets.
+     */
+    private double relatedNessFunction(InlinkBitmap A, InlinkBitmap B) {
+        if (A.cardinality() == 0 || B.cardinality() == 0) {
+            return 0;
         }
+        return distance(A.cardinality(), B.cardinality(), A.andCardinality(B));
       }
     
     
-    public Set<Integer> getOverLappingEntites(int countA, int countB, List<Integer> A, List<Integer> B){
+    public Set<Integer> getOverLappingEntites(int countA, int countB, int[] A, int[] B){
         Set<Integer> overlaps = new HashSet<Integer>();
         int i = 0;
         int j = 0;
-//        int countCommon = 0;
-        if ((INLINKS_LIMIT == -1) || ((countA <= INLINKS_LIMIT) && (countB <= INLINKS_LIMIT))) {
-          /**
-           * search in full id ranges
-           */
-          while ((i < countA) && (j < countB)) {
-            final int diff = A.get(i) - B.get(j);
-            if (diff < 0) {
-              i++;
-            } else if (diff > 0) {
-              j++;
-            } else {
-//              countCommon++;
-              overlaps.add(A.get(i));
-              overlaps.add(B.get(j));
-              i++;
-              j++;
-            }
-          }
-          return overlaps;
-        } else {
-          /**
-           * subsampled matching and extrapolating result
-           */
-          double ratioA = 1;
-          if (countA > INLINKS_LIMIT) {
-            ratioA = (double) countA / INLINKS_LIMIT;
-          }
-          double ratioB = 1;
-          if (countB > INLINKS_LIMIT) {
-            ratioB = (double) countB / INLINKS_LIMIT;
-          }
-          double iD = i;
-          double jD = j;
-          while ((i < countA) && (j < countB)) {
-            final int diff = A.get(i) - B.get(j);
-            if (diff < 0) {
-              iD += ratioA;
-              i = (int) iD;
-            } else if (diff > 0) {
-              jD += ratioB;
-              j = (int) jD;
-            } else {
-//              countCommon++;
-              iD += ratioA;
-              i = (int) iD;
-              overlaps.add(A.get(i));
-              jD += ratioB;
-              j = (int) jD;
-              overlaps.add(B.get(j));
-            }
+        while ((i < countA) && (j < countB)) {
+          final int diff = Integer.compare(A[i], B[j]);
+          if (diff < 0) {
+            i++;
+          } else if (diff > 0) {
+            j++;
+          } else {
+            overlaps.add(A[i]);
+            i++;
+            j++;
           }
-          return overlaps;
         }
+        return overlaps;
     }
     
     
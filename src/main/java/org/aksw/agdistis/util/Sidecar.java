@@ -0,0 +1,203 @@
+package org.aksw.agdistis.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.lucene.index.DirectoryReader;
+
+/**
+ * Helpers shared by the binary files written next to the main Lucene index (the "sidecar" files). Every sidecar
+ * starts with a magic number, a format version and the build id of the index it was derived from, and is
+ * memory-mapped read-only at runtime, so its content lives off-heap and is shared across worker threads.
+ */
+public final class Sidecar {
+
+  public static final String URI_DICTIONARY_FILE = "uri.dict";
+  public static final String ADJACENCY_FILE = "edges.csr";
+  public static final String PRIOR_FILE = "entity.prior";
+  public static final String LABEL_FST_FILE = "labels.fst";
+  public static final String LABEL_POSTINGS_FILE = "labels.post";
+  public static final String REDIRECT_FILE = "redirects.bin";
+  public static final String TYPE_FILE = "types.csr";
+  public static final String NORMALIZED_LABEL_FILE = "labels.norm";
+
+  /**
+   * Key of the build id in the commit data of the triple index. The sidecars of a build carry the same id.
+   */
+  public static final String BUILD_ID = "sidecarBuildId";
+
+  private static final String _DIRECTORY_SUFFIX = "_sidecar";
+
+  private Sidecar() {
+  }
+
+  /**
+   * @return the directory of the sidecars of the given triple index, e.g., <code>/ned/index_sidecar</code> for
+   *         <code>/ned/index</code>.
+   */
+  public static Path directory(final Path indexDirectory) {
+    final Path name = indexDirectory.toAbsolutePath().normalize();
+    return name.resolveSibling(name.getFileName() + _DIRECTORY_SUFFIX);
+  }
+
+  /**
+   * Creates an empty directory next to the sidecar directory of the given index. The sidecars are written there and
+   * {@link #publish(Path, Path)} replaces the previous ones with them, so a failed build leaves no mixed set behind.
+   */
+  public static Path stage(final Path indexDirectory) throws IOException {
+    final Path target = directory(indexDirectory);
+    return Files.createTempDirectory(target.getParent(), target.getFileName() + ".");
+  }
+
+  /**
+   * Replaces the sidecar directory of the given index with the staged one.
+   */
+  public static void publish(final Path staging, final Path indexDirectory) throws IOException {
+    final Path target = directory(indexDirectory);
+    Path previous = null;
+    if (Files.exists(target)) {
+      previous = Files.createTempDirectory(target.getParent(), target.getFileName() + ".");
+      Files.delete(previous);
+      Files.move(target, previous, StandardCopyOption.ATOMIC_MOVE);
+    }
+    Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+    if (previous != null) {
+      FileUtils.deleteDirectory(previous.toFile());
+    }
+  }
+
+  /**
+   * @return the build id stored in the commit data of the triple index, or <code>null</code> if the index was built
+   *         without sidecars.
+   */
+  public static Long buildId(final DirectoryReader reader) throws IOException {
+    final String buildId = reader.getIndexCommit().getUserData().get(BUILD_ID);
+    return (buildId == null) ? null : Long.valueOf(buildId);
+  }
+
+  /**
+   * Maps the given file read-only. Returns <code>null</code> if the file does not exist, i.e., the index was built
+   * without this sidecar.
+   */
+  public static MappedByteBuffer map(final Path file) throws IOException {
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Sidecar file " + file + " is larger than 2GB and cannot be mapped.");
+      }
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+
+  /**
+   * Reads and validates the header of a mapped sidecar. A sidecar of another build of the index is rejected. The
+   * buffer is left positioned after the header.
+   */
+  public static void checkHeader(final ByteBuffer buffer, final int magic, final int version, final long buildId,
+      final Path file) throws IOException {
+    if ((buffer.remaining() < 16) || (buffer.getInt() != magic)) {
+      throw new IOException("File " + file + " is not a valid sidecar file.");
+    }
+    final int found = buffer.getInt();
+    if (found != version) {
+      throw new IOException("Sidecar file " + file + " has version " + found + ", expected " + version
+          + ". Please rebuild the index.");
+    }
+    final long foundId = buffer.getLong();
+    if (foundId != buildId) {
+      throw new IOException("Sidecar file " + file + " belongs to the build " + foundId
+          + " of the index, expected the build " + buildId + ". Please rebuild the index.");
+    }
+  }
+
+  /**
+   * Opens a sidecar file for writing and writes its header. Missing parent directories are created. Writing fails
+   * once the file would be too large for {@link #map(Path)}.
+   */
+  public static DataOutputStream create(final Path file, final int magic, final int version, final long buildId)
+      throws IOException {
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    final DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new MappableOutputStream(new FileOutputStream(file.toFile()), file), 1 << 16));
+    out.writeInt(magic);
+    out.writeInt(version);
+    out.writeLong(buildId);
+    return out;
+  }
+
+  /**
+   * Writes a length-prefixed UTF-8 string, readable with {@link #readString(ByteBuffer)}.
+   */
+  public static void writeString(final DataOutputStream out, final String value) throws IOException {
+    final byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(utf8.length);
+    out.write(utf8);
+  }
+
+  public static String readString(final ByteBuffer buffer) {
+    final byte[] utf8 = new byte[buffer.getInt()];
+    buffer.get(utf8);
+    return new String(utf8, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Counts the bytes written to a sidecar file and fails as soon as the file could no longer be mapped.
+   */
+  private static final class MappableOutputStream extends FilterOutputStream {
+    private final Path file;
+    private long written;
+
+    MappableOutputStream(final OutputStream out, final Path file) {
+      super(out);
+      this.file = file;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      count(1);
+      out.write(b);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      count(len);
+      out.write(b, off, len);
+    }
+
+    private void count(final int length) throws IOException {
+      written += length;
+      if (written > Integer.MAX_VALUE) {
+        throw new IOException("Sidecar file " + file + " would be larger than 2GB, which cannot be mapped. Please "
+            + "build the index from fewer triples.");
+      }
+    }
+  }
+
+  /**
+   * Returns an independent view of <code>length</code> bytes of the buffer starting at the absolute position
+   * <code>offset</code>.
+   */
+  public static ByteBuffer slice(final ByteBuffer buffer, final int offset, final int length) {
+    final ByteBuffer dup = buffer.duplicate();
+    dup.position(offset);
+    dup.limit(offset + length);
+    return dup.slice();
+  }
+}
@@ -2,9 +2,16 @@ package org.aksw.agdistis.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -16,16 +23,24 @@ import org.apache.commons.validator.routines.UrlValidator;
 import org.apache.jena.ext.com.google.common.collect.Lists;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocsEnum;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.queryparser.classic.QueryParserBase;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopScoreDocCollector;
 import org.apache.lucene.store.Directory;
@@ -62,7 +77,17 @@ public class TripleIndex {
   private final IndexSearcher isearcher;
   private final DirectoryReader ireader;
   private final UrlValidator urlValidator;
-  private final Cache<BooleanQuery, List<Triple>> cache;
+  // keyed by the query and the maximum number of results
+  private final Cache<Map.Entry<BooleanQuery, Integer>, List<Triple>> cache;
+  private final DocValueColumns columns;
+  private final boolean hasColumns;
+  private final UriDictionary uriDictionary;
+  private final AdjacencyIndex adjacency;
+  private final EntityPriors priors;
+  private final LabelIndex labelIndex;
+  private final RedirectResolver redirects;
+  private final TypeIndex types;
+  private final NormalizedLabels normalizedLabels;
   StringUtils isInt = new StringUtils();
 
   public TripleIndex() throws IOException {
@@ -74,7 +99,35 @@ public class TripleIndex {
     log.info("Index loaded in {} msec", System.currentTimeMillis() - start);
     isearcher = new IndexSearcher(ireader);
     urlValidator = new UrlValidator();
-    
+    columns = new DocValueColumns(ireader);
+    hasColumns = columns.covers(FIELD_NAME_SUBJECT, FIELD_NAME_PREDICATE);
+    if (!hasColumns) {
+      log.info("The index has no doc values. Hits will be read from the stored documents.");
+    }
+    final Path sidecars = Sidecar.directory(AGDISTISConfiguration.INSTANCE.getMainIndexPath());
+    final Long buildId = Sidecar.buildId(ireader);
+    if (buildId == null) {
+      log.warn("The index has no sidecar build id, the files in {} are ignored. Please rebuild the index.", sidecars);
+      uriDictionary = UriDictionary.empty();
+    } else {
+      uriDictionary = UriDictionary.open(sidecars.resolve(Sidecar.URI_DICTIONARY_FILE), buildId);
+    }
+    if (uriDictionary.size() > 0) {
+      adjacency = AdjacencyIndex.open(sidecars.resolve(Sidecar.ADJACENCY_FILE), buildId);
+      priors = EntityPriors.open(sidecars.resolve(Sidecar.PRIOR_FILE), buildId);
+      labelIndex = LabelIndex.open(sidecars.resolve(Sidecar.LABEL_FST_FILE),
+          sidecars.resolve(Sidecar.LABEL_POSTINGS_FILE), buildId, uriDictionary);
+      redirects = RedirectResolver.open(sidecars.resolve(Sidecar.REDIRECT_FILE), buildId);
+      types = TypeIndex.open(sidecars.resolve(Sidecar.TYPE_FILE), buildId);
+      normalizedLabels = NormalizedLabels.open(sidecars.resolve(Sidecar.NORMALIZED_LABEL_FILE), buildId);
+    } else {
+      adjacency = null;
+      priors = null;
+      labelIndex = null;
+      redirects = null;
+      types = null;
+      normalizedLabels = null;
+    }
 
     cache = CacheBuilder.newBuilder().maximumSize(AGDISTISConfiguration.INSTANCE.getTripleIndexCacheSize())
         .expireAfterWrite(30, TimeUnit.MINUTES).build();
@@ -140,18 +193,16 @@ public class TripleIndex {
         }
 
         else {
-          final Analyzer analyzer = new LiteralAnalyzer(luceneVersion);
-          final QueryParser parser = new QueryParser(luceneVersion, FIELD_NAME_OBJECT_LITERAL, analyzer);
-          parser.setDefaultOperator(QueryParser.Operator.AND);
-          q = parser.parse(QueryParserBase.escape(object = escapeLuceneKeywords(object)));
+          q = literalQuery(object);
           bq.add(q, BooleanClause.Occur.MUST);
         }
       }
 
       // use the cache
-      if (null == (triples = cache.getIfPresent(bq))) {
+      final Map.Entry<BooleanQuery, Integer> key = cacheKey(bq, maxNumberOfResults);
+      if (null == (triples = cache.getIfPresent(key))) {
         triples = getFromIndex(maxNumberOfResults, bq);
-        cache.put(bq, triples);
+        cache.put(key, triples);
       }
       return triples;
     } catch (final IOException ioe) {
@@ -174,22 +225,351 @@ public class TripleIndex {
     final ScoreDoc[] hits = collector.topDocs().scoreDocs;
 
     final List<Triple> triples = new LinkedList<Triple>();
-    String s, p, o;
     for (final ScoreDoc hit : hits) {
-      final Document hitDoc = isearcher.doc(hit.doc);
-      s = hitDoc.get(FIELD_NAME_SUBJECT);
-      p = hitDoc.get(FIELD_NAME_PREDICATE);
-      o = hitDoc.get(FIELD_NAME_OBJECT_URI);
-      if (o == null) {
-        o = hitDoc.get(FIELD_NAME_OBJECT_LITERAL);
-      }
-      final Triple triple = new Triple(s, p, o);
-      triples.add(triple);
+      triples.add(readTriple(hit.doc));
     }
     log.trace("finished asking index...");
     return triples;
   }
 
+  /**
+   * Looks up the triples of several subjects at once, like {@link #search(String, String, String, int)} with only a
+   * subject given. The subjects that are not cached are sorted and then resolved by a single pass over the subject
+   * terms of every segment.
+   *
+   * @return the triples of every subject, in the order of <code>subjects</code>. A <code>null</code> subject has no
+   *         triples.
+   */
+  public List<List<Triple>> searchSubjects(final List<String> subjects, final int maxNumberOfResults) {
+    final List<List<Triple>> results = new ArrayList<List<Triple>>(subjects.size());
+    // sorted like the terms of the index
+    final Map<BytesRef, IntArrayList> missing = new TreeMap<BytesRef, IntArrayList>();
+    for (final String subject : subjects) {
+      if (subject == null) {
+        results.add(new LinkedList<Triple>());
+        continue;
+      }
+      final List<Triple> triples = cache.getIfPresent(cacheKey(subjectQuery(subject), maxNumberOfResults));
+      results.add(triples);
+      if (triples == null) {
+        missing.put(new BytesRef(subject), new IntArrayList());
+      }
+    }
+    if (missing.isEmpty()) {
+      return results;
+    }
+    try {
+      // Subject terms are not normed, so all hits of a subject score the same and the top hits of a search are the
+      // first documents in index order.
+      for (final AtomicReaderContext leaf : ireader.leaves()) {
+        final Terms terms = leaf.reader().terms(FIELD_NAME_SUBJECT);
+        if (terms == null) {
+          continue;
+        }
+        final TermsEnum termsEnum = terms.iterator(null);
+        DocsEnum docsEnum = null;
+        for (final Map.Entry<BytesRef, IntArrayList> entry : missing.entrySet()) {
+          final IntArrayList docIds = entry.getValue();
+          if ((docIds.size() >= maxNumberOfResults) || !termsEnum.seekExact(entry.getKey())) {
+            continue;
+          }
+          docsEnum = termsEnum.docs(leaf.reader().getLiveDocs(), docsEnum, DocsEnum.FLAG_NONE);
+          for (int doc = docsEnum.nextDoc(); (doc != DocIdSetIterator.NO_MORE_DOCS)
+              && (docIds.size() < maxNumberOfResults); doc = docsEnum.nextDoc()) {
+            docIds.add(leaf.docBase + doc);
+          }
+        }
+      }
+      final Map<String, List<Triple>> found = new HashMap<String, List<Triple>>();
+      for (final Map.Entry<BytesRef, IntArrayList> entry : missing.entrySet()) {
+        final List<Triple> triples = new LinkedList<Triple>();
+        for (int i = 0; i < entry.getValue().size(); i++) {
+          triples.add(readTriple(entry.getValue().get(i)));
+        }
+        final String subject = entry.getKey().utf8ToString();
+        cache.put(cacheKey(subjectQuery(subject), maxNumberOfResults), triples);
+        found.put(subject, triples);
+      }
+      for (int i = 0; i < results.size(); i++) {
+        if (results.get(i) == null) {
+          results.set(i, found.get(subjects.get(i)));
+        }
+      }
+    } catch (final IOException ioe) {
+      log.error("I/O exception occurred while reading from the index. Corrupt?. StackTrace {}",
+          ExceptionUtils.getStackTrace(ioe));
+      for (int i = 0; i < results.size(); i++) {
+        if (results.get(i) == null) {
+          results.set(i, Lists.newLinkedList());
+        }
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Looks up the triples of a predicate whose literal object matches any of several literals, exactly like
+   * {@link #search(String, String, String, int)} with a predicate and a literal given. The literals that are not cached
+   * are first probed by a single disjunctive query, only those with any hit are then searched one by one.
+   *
+   * @return the triples of every literal, in the order of <code>literals</code>.
+   */
+  public List<List<Triple>> searchLiterals(final String predicate, final List<String> literals,
+      final int maxNumberOfResults) {
+    final boolean[] matching = matchingLiterals(predicate, literals, maxNumberOfResults);
+    final List<List<Triple>> results = new ArrayList<List<Triple>>(literals.size());
+    for (int i = 0; i < literals.size(); i++) {
+      results.add(matching[i] ? search(null, predicate, literals.get(i), maxNumberOfResults)
+          : new LinkedList<Triple>());
+    }
+    return results;
+  }
+
+  /**
+   * Finds out which of several literals {@link #search(String, String, String, int)} would find any triple for, with
+   * the predicate given. The literals whose search is not cached for <code>maxNumberOfResults</code> are probed by a
+   * single disjunctive query, which only records the clauses that match and stops as soon as all of them did.
+   *
+   * @return whether the search of every literal, in the order of <code>literals</code>, has any hit.
+   */
+  public boolean[] matchingLiterals(final String predicate, final List<String> literals,
+      final int maxNumberOfResults) {
+    final boolean[] matching = new boolean[literals.size()];
+    final IntArrayList missing = new IntArrayList();
+    final List<BooleanQuery> queries = new ArrayList<BooleanQuery>();
+    for (int i = 0; i < literals.size(); i++) {
+      final String literal = literals.get(i);
+      if (StringUtils.isBlank(literal)) {
+        continue;
+      }
+      if (urlValidator.isValid(literal) || StringUtils.isNumeric(literal)) {
+        // not a literal query
+        matching[i] = !search(null, predicate, literal, maxNumberOfResults).isEmpty();
+        continue;
+      }
+      final BooleanQuery bq = new BooleanQuery();
+      bq.add(new TermQuery(new Term(FIELD_NAME_PREDICATE, predicate)), BooleanClause.Occur.MUST);
+      try {
+        bq.add(literalQuery(literal), BooleanClause.Occur.MUST);
+      } catch (final ParseException pe) {
+        log.error("Unable to parse the object from the triple <{},{},{}>.", null, predicate, literal);
+        continue;
+      }
+      final List<Triple> triples = cache.getIfPresent(cacheKey(bq, maxNumberOfResults));
+      if (triples != null) {
+        matching[i] = !triples.isEmpty();
+      } else {
+        missing.add(i);
+        queries.add(bq);
+      }
+    }
+    if (queries.isEmpty()) {
+      return matching;
+    }
+
+    final BooleanQuery any = new BooleanQuery();
+    for (final BooleanQuery bq : queries) {
+      any.add(bq, BooleanClause.Occur.SHOULD);
+    }
+    try {
+      final MatchCollector collector = new MatchCollector(queries);
+      isearcher.search(any, collector);
+      for (int i = 0; i < queries.size(); i++) {
+        // the scorer did not expose its clauses, the clause is searched on its own
+        matching[missing.get(i)] = collector.unattributed
+            ? !search(null, predicate, literals.get(missing.get(i)), maxNumberOfResults).isEmpty()
+            : collector.matched[i];
+      }
+    } catch (final IOException ioe) {
+      log.error("I/O exception occurred while reading from the index. Corrupt?. StackTrace {}",
+          ExceptionUtils.getStackTrace(ioe));
+    }
+    return matching;
+  }
+
+  /**
+   * Records which clauses of a disjunction match any document.
+   */
+  private static final class MatchCollector extends Collector {
+    private final Map<Query, Integer> clauses = new IdentityHashMap<Query, Integer>();
+    final boolean[] matched;
+    private int unmatched;
+    // the scorers of the clauses of the current segment and the clause they belong to
+    private final List<Scorer> scorers = new ArrayList<Scorer>();
+    private final IntArrayList scorerClauses = new IntArrayList();
+    boolean unattributed;
+
+    MatchCollector(final List<BooleanQuery> queries) {
+      for (int i = 0; i < queries.size(); i++) {
+        clauses.put(queries.get(i), i);
+      }
+      matched = new boolean[queries.size()];
+      unmatched = queries.size();
+    }
+
+    @Override
+    public void setScorer(final Scorer scorer) {
+      scorers.clear();
+      scorerClauses.clear();
+      addClauses(scorer);
+    }
+
+    private void addClauses(final Scorer scorer) {
+      final Integer clause = clauses.get(scorer.getWeight().getQuery());
+      if (clause != null) {
+        scorers.add(scorer);
+        scorerClauses.add(clause);
+        return;
+      }
+      for (final Scorer.ChildScorer child : scorer.getChildren()) {
+        addClauses(child.child);
+      }
+    }
+
+    @Override
+    public void collect(final int doc) {
+      boolean attributed = false;
+      for (int i = 0; i < scorers.size(); i++) {
+        if (scorers.get(i).docID() != doc) {
+          continue;
+        }
+        attributed = true;
+        final int clause = scorerClauses.get(i);
+        if (!matched[clause]) {
+          matched[clause] = true;
+          unmatched--;
+        }
+      }
+      unattributed |= !attributed;
+      if ((unmatched == 0) || unattributed) {
+        throw new CollectionTerminatedException();
+      }
+    }
+
+    @Override
+    public void setNextReader(final AtomicReaderContext context) {
+      if ((unmatched == 0) || unattributed) {
+        throw new CollectionTerminatedException();
+      }
+    }
+
+    @Override
+    public boolean acceptsDocsOutOfOrder() {
+      // the clause scorers are only positioned on the current document when scoring in order
+      return false;
+    }
+  }
+
+  // The query of a literal object, all of its tokens must match.
+  private Query literalQuery(final String literal) throws ParseException {
+    final Analyzer analyzer = new LiteralAnalyzer(luceneVersion);
+    final QueryParser parser = new QueryParser(luceneVersion, FIELD_NAME_OBJECT_LITERAL, analyzer);
+    parser.setDefaultOperator(QueryParser.Operator.AND);
+    return parser.parse(QueryParserBase.escape(escapeLuceneKeywords(literal)));
+  }
+
+  private static Map.Entry<BooleanQuery, Integer> cacheKey(final BooleanQuery bq, final int maxNumberOfResults) {
+    return new AbstractMap.SimpleImmutableEntry<BooleanQuery, Integer>(bq, maxNumberOfResults);
+  }
+
+  // The query search(subject, null, null) runs.
+  private static BooleanQuery subjectQuery(final String subject) {
+    final BooleanQuery bq = new BooleanQuery();
+    bq.add(new TermQuery(new Term(FIELD_NAME_SUBJECT, subject)), BooleanClause.Occur.MUST);
+    return bq;
+  }
+
+  private Triple readTriple(final int docId) throws IOException {
+    final Triple triple = hasColumns ? readColumns(docId) : null;
+    return (triple != null) ? triple : readStored(docId);
+  }
+
+  /**
+   * Reads a hit from the doc values. Returns <code>null</code> if a value was too long to have a column.
+   */
+  private Triple readColumns(final int docId) throws IOException {
+    final String s = columns.getString(docId, FIELD_NAME_SUBJECT);
+    final String p = columns.getString(docId, FIELD_NAME_PREDICATE);
+    String o = columns.getString(docId, FIELD_NAME_OBJECT_URI);
+    if (o == null) {
+      final BytesRef literal = columns.getBinary(docId, FIELD_NAME_OBJECT_LITERAL);
+      o = (literal == null) ? null : literal.utf8ToString();
+    }
+    if ((s == null) || (p == null) || (o == null)) {
+      return null;
+    }
+    return new Triple(s, p, o);
+  }
+
+  private Triple readStored(final int docId) throws IOException {
+    final Document hitDoc = isearcher.doc(docId);
+    String o = hitDoc.get(FIELD_NAME_OBJECT_URI);
+    if (o == null) {
+      o = hitDoc.get(FIELD_NAME_OBJECT_LITERAL);
+    }
+    return new Triple(hitDoc.get(FIELD_NAME_SUBJECT), hitDoc.get(FIELD_NAME_PREDICATE), o);
+  }
+
+  /**
+   * @return the dictionary id of the given URI.
+   */
+  public int getId(final String uri) {
+    return uriDictionary.getId(uri);
+  }
+
+  /**
+   * @return the URI with the given dictionary id.
+   */
+  public String getUri(final int id) {
+    return uriDictionary.getUri(id);
+  }
+
+  public UriDictionary getUriDictionary() {
+    return uriDictionary;
+  }
+
+  /**
+   * @return the entity-to-entity edges of the index, or <code>null</code> if the index was built without them.
+   */
+  public AdjacencyIndex getAdjacency() {
+    return adjacency;
+  }
+
+  /**
+   * @return the popularity prior of every entity, or <code>null</code> if the index was built without it.
+   */
+  public EntityPriors getPriors() {
+    return priors;
+  }
+
+  /**
+   * @return the label dictionary, or <code>null</code> if the index was built without it.
+   */
+  public LabelIndex getLabelIndex() {
+    return labelIndex;
+  }
+
+  /**
+   * @return the redirect and disambiguation page tables, or <code>null</code> if the index was built without them.
+   */
+  public RedirectResolver getRedirects() {
+    return redirects;
+  }
+
+  /**
+   * @return the types of every entity, or <code>null</code> if the index was built without them.
+   */
+  public TypeIndex getTypes() {
+    return types;
+  }
+
+  /**
+   * @return the normalized label of every URI, or <code>null</code> if the index was built without them.
+   */
+  public NormalizedLabels getNormalizedLabels() {
+    return normalizedLabels;
+  }
+
   public void close() throws IOException {
     ireader.close();
     directory.close();
@@ -5,12 +5,18 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.aksw.agdistis.AGDISTISConfiguration;
+import org.aksw.agdistis.algorithm.CorporationAffixCleaner;
+import org.aksw.agdistis.algorithm.LabelNormalizer;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.core.SimpleAnalyzer;
@@ -91,23 +97,28 @@ public class TripleIndexCreator {
     }
   }
 
-  public void createIndex(final List<File> files, final String idxDirectory, final String baseURI) {
+  /**
+   * Indexes the given files into <code>idxDirectory</code> and builds its sidecar files next to it. The sidecars are
+   * tied to the index by a build id in its commit data and replace the previous ones only once they are complete.
+   */
+  public void createIndex(final List<File> files, final String idxDirectory, final String baseURI)
+      throws IOException {
+    urlAnalyzer = new SimpleAnalyzer(LUCENE_VERSION);
+    literalAnalyzer = new LiteralAnalyzer(LUCENE_VERSION);
+    final Map<String, Analyzer> mapping = new HashMap<String, Analyzer>();
+    mapping.put(TripleIndex.FIELD_NAME_SUBJECT, urlAnalyzer);
+    mapping.put(TripleIndex.FIELD_NAME_PREDICATE, urlAnalyzer);
+    mapping.put(TripleIndex.FIELD_NAME_OBJECT_URI, urlAnalyzer);
+    mapping.put(TripleIndex.FIELD_NAME_OBJECT_LITERAL, literalAnalyzer);
+    final PerFieldAnalyzerWrapper perFieldAnalyzer = new PerFieldAnalyzerWrapper(urlAnalyzer, mapping);
+
+    final File indexDirectory = new File(idxDirectory);
+    indexDirectory.mkdir();
+    directory = new MMapDirectory(indexDirectory);
+    final IndexWriterConfig config = new IndexWriterConfig(LUCENE_VERSION, perFieldAnalyzer);
+    iwriter = new IndexWriter(directory, config);
+    iwriter.commit();
     try {
-      urlAnalyzer = new SimpleAnalyzer(LUCENE_VERSION);
-      literalAnalyzer = new LiteralAnalyzer(LUCENE_VERSION);
-      final Map<String, Analyzer> mapping = new HashMap<String, Analyzer>();
-      mapping.put(TripleIndex.FIELD_NAME_SUBJECT, urlAnalyzer);
-      mapping.put(TripleIndex.FIELD_NAME_PREDICATE, urlAnalyzer);
-      mapping.put(TripleIndex.FIELD_NAME_OBJECT_URI, urlAnalyzer);
-      mapping.put(TripleIndex.FIELD_NAME_OBJECT_LITERAL, literalAnalyzer);
-      final PerFieldAnalyzerWrapper perFieldAnalyzer = new PerFieldAnalyzerWrapper(urlAnalyzer, mapping);
-
-      final File indexDirectory = new File(idxDirectory);
-      indexDirectory.mkdir();
-      directory = new MMapDirectory(indexDirectory);
-      final IndexWriterConfig config = new IndexWriterConfig(LUCENE_VERSION, perFieldAnalyzer);
-      iwriter = new IndexWriter(directory, config);
-      iwriter.commit();
       for (final File file : files) {
         final String type = FileUtil.getFileExtension(file.getName());
         if (type.equals(TTL)) {
@@ -118,11 +129,46 @@ public class TripleIndexCreator {
         }
         iwriter.commit();
       }
-      iwriter.close();
-      ireader = DirectoryReader.open(directory);
-    } catch (final Exception e) {
-      log.error("Error while creating TripleIndex.", e);
+    } catch (RDFParseException | RDFHandlerException e) {
+      throw new IOException("Error while creating TripleIndex.", e);
+    }
+    final long buildId = ThreadLocalRandom.current().nextLong();
+    iwriter.setCommitData(Collections.singletonMap(Sidecar.BUILD_ID, Long.toString(buildId)));
+    iwriter.commit();
+    iwriter.close();
+    ireader = DirectoryReader.open(directory);
+
+    final Path staging = Sidecar.stage(indexDirectory.toPath());
+    try {
+      createSidecarFiles(ireader, staging, buildId);
+    } catch (IOException | RuntimeException e) {
+      FileUtils.deleteDirectory(staging.toFile());
+      throw e;
     }
+    Sidecar.publish(staging, indexDirectory.toPath());
+  }
+
+  /**
+   * Writes the binary files derived from the triple index (URI dictionary, adjacency, priors, labels, redirects,
+   * types, normalized labels) into the given directory.
+   */
+  private void createSidecarFiles(final DirectoryReader reader, final Path sidecars, final long buildId)
+      throws IOException {
+    UriDictionary.build(reader, sidecars.resolve(Sidecar.URI_DICTIONARY_FILE), buildId,
+        TripleIndex.FIELD_NAME_SUBJECT, TripleIndex.FIELD_NAME_PREDICATE, TripleIndex.FIELD_NAME_OBJECT_URI);
+    final UriDictionary dictionary = UriDictionary.open(sidecars.resolve(Sidecar.URI_DICTIONARY_FILE), buildId);
+    AdjacencyIndex.build(reader, dictionary, sidecars.resolve(Sidecar.ADJACENCY_FILE), buildId,
+        AGDISTISConfiguration.INSTANCE.getEdgeType().toString(),
+        AGDISTISConfiguration.INSTANCE.getNodeType().toString());
+    EntityPriors.build(AdjacencyIndex.open(sidecars.resolve(Sidecar.ADJACENCY_FILE), buildId), dictionary.size(),
+        sidecars.resolve(Sidecar.PRIOR_FILE), buildId);
+    LabelIndex.build(reader, dictionary, EntityPriors.open(sidecars.resolve(Sidecar.PRIOR_FILE), buildId),
+        sidecars.resolve(Sidecar.LABEL_FST_FILE), sidecars.resolve(Sidecar.LABEL_POSTINGS_FILE), buildId);
+    RedirectResolver.build(reader, dictionary, sidecars.resolve(Sidecar.REDIRECT_FILE), buildId);
+    TypeIndex.build(reader, dictionary, sidecars.resolve(Sidecar.TYPE_FILE), buildId);
+    final LabelNormalizer normalizer = new LabelNormalizer(new CorporationAffixCleaner().getCorporationAffixes());
+    NormalizedLabels.build(dictionary, normalizer::normalizeResource, normalizer.getFingerprint(),
+        sidecars.resolve(Sidecar.NORMALIZED_LABEL_FILE), buildId);
   }
 
   private void indexTTLFile(final File file, final String baseURI)
@@ -149,6 +195,7 @@ public class TripleIndexCreator {
         doc.add(new StringField(TripleIndex.FIELD_NAME_PREDICATE, "http://www.w3.org/2004/02/skos/core#altLabel",
             Store.YES));
         doc.add(new TextField(TripleIndex.FIELD_NAME_OBJECT_LITERAL, object, Store.YES));
+        addColumns(doc, subject, "http://www.w3.org/2004/02/skos/core#altLabel", object, false);
         iwriter.addDocument(doc);
       }
     }
@@ -167,9 +214,24 @@ public class TripleIndexCreator {
     } else {
       doc.add(new TextField(TripleIndex.FIELD_NAME_OBJECT_LITERAL, object, Store.YES));
     }
+    addColumns(doc, subject, predicate, object, isUri);
     iwriter.addDocument(doc);
   }
 
+  /**
+   * Adds the doc values {@link TripleIndex} reads hits from.
+   */
+  static void addColumns(final Document doc, final String subject, final String predicate, final String object,
+      final boolean isUri) {
+    DocValueColumns.addSorted(doc, TripleIndex.FIELD_NAME_SUBJECT, subject);
+    DocValueColumns.addSorted(doc, TripleIndex.FIELD_NAME_PREDICATE, predicate);
+    if (isUri) {
+      DocValueColumns.addSorted(doc, TripleIndex.FIELD_NAME_OBJECT_URI, object);
+    } else {
+      DocValueColumns.addBinary(doc, TripleIndex.FIELD_NAME_OBJECT_LITERAL, object);
+    }
+  }
+
   public void close() throws IOException {
     if (ireader != null) {
       ireader.close();
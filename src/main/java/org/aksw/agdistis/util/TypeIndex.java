@@ -0,0 +1,194 @@
+package org.aksw.agdistis.util;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocsEnum;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Sets;
+
+/**
+ * The <code>rdf:type</code>s of every entity, keyed by URI id. The types of entity <code>i</code> are the sorted
+ * type ids at positions <code>[start(i), end(i))</code>.
+ * <p>
+ * WordNet and Wikipedia category types are dropped at build time since neither the domain whitelists nor the type
+ * output use them. Types of the DBpedia ontology other than <code>owl:Thing</code> are flagged so that the output
+ * types of an entity can be selected without decoding URIs.
+ * <p>
+ * File layout: <code>magic, version, N, T, offsets[N + 1], types[T], ontology type bits[(N + 63) / 64]</code>.
+ */
+public class TypeIndex {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TypeIndex.class);
+
+  private static final int _MAGIC = 0x41475459; // "AGTY"
+  private static final int _VERSION = 2;
+
+  public static final String TYPE_PREDICATE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#type";
+  public static final String THING_TYPE = "http://www.w3.org/2002/07/owl#Thing";
+  public static final String DBPEDIA_TYPE_PREFIX = "http://dbpedia.org/ontology/";
+
+  private final int size;
+  private final IntBuffer offsets;
+  private final IntBuffer types;
+  private final LongBuffer ontologyTypes;
+
+  private TypeIndex(final int size, final IntBuffer offsets, final IntBuffer types, final LongBuffer ontologyTypes) {
+    this.size = size;
+    this.offsets = offsets;
+    this.types = types;
+    this.ontologyTypes = ontologyTypes;
+  }
+
+  /**
+   * Loads the type column. Returns <code>null</code> if the file does not exist.
+   */
+  public static TypeIndex open(final Path file, final long buildId) throws IOException {
+    final ByteBuffer buffer = Sidecar.map(file);
+    if (buffer == null) {
+      LOGGER.info("No type column found at {}. Types will be looked up in the triple index.", file);
+      return null;
+    }
+    Sidecar.checkHeader(buffer, _MAGIC, _VERSION, buildId, file);
+    final int size = buffer.getInt();
+    final int numTypes = buffer.getInt();
+    int position = buffer.position();
+    final IntBuffer offsets = Sidecar.slice(buffer, position, (size + 1) * 4).asIntBuffer();
+    position += (size + 1) * 4;
+    final IntBuffer types = Sidecar.slice(buffer, position, numTypes * 4).asIntBuffer();
+    position += numTypes * 4;
+    final LongBuffer ontologyTypes = Sidecar.slice(buffer, position, ((size + 63) / 64) * 8).asLongBuffer();
+    return new TypeIndex(size, offsets, types, ontologyTypes);
+  }
+
+  public int start(final int entityId) {
+    return ((entityId >= 0) && (entityId < size)) ? offsets.get(entityId) : 0;
+  }
+
+  public int end(final int entityId) {
+    return ((entityId >= 0) && (entityId < size)) ? offsets.get(entityId + 1) : 0;
+  }
+
+  public int type(final int position) {
+    return types.get(position);
+  }
+
+  /**
+   * @return <code>true</code> if the entity has the given type.
+   */
+  public boolean hasType(final int entityId, final int typeId) {
+    int low = start(entityId);
+    int high = end(entityId) - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      final int type = types.get(mid);
+      if (type < typeId) {
+        low = mid + 1;
+      } else if (type > typeId) {
+        high = mid - 1;
+      } else {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return <code>true</code> if the type belongs to the DBpedia ontology and is not <code>owl:Thing</code>.
+   */
+  public boolean isOntologyType(final int typeId) {
+    if ((typeId < 0) || (typeId >= size)) {
+      return false;
+    }
+    return (ontologyTypes.get(typeId >>> 6) & (1L << (typeId & 63))) != 0;
+  }
+
+  /**
+   * Extracts the types of all entities from the triple index and writes them to <code>file</code>.
+   *
+   * @return the number of (entity, type) pairs written.
+   */
+  public static int build(final DirectoryReader reader, final UriDictionary dictionary, final Path file,
+      final long buildId) throws IOException {
+    final int size = dictionary.size();
+    final Set<String> fields = Sets.newHashSet(TripleIndex.FIELD_NAME_SUBJECT, TripleIndex.FIELD_NAME_OBJECT_URI);
+    final IntArrayList entities = new IntArrayList();
+    final IntArrayList entityTypes = new IntArrayList();
+    final FixedBitSet ontologyTypes = new FixedBitSet(size);
+    final DocsEnum docs = MultiFields.getTermDocsEnum(reader, MultiFields.getLiveDocs(reader),
+        TripleIndex.FIELD_NAME_PREDICATE, new BytesRef(TYPE_PREDICATE));
+    while ((docs != null) && (docs.nextDoc() != DocIdSetIterator.NO_MORE_DOCS)) {
+      final Document doc = reader.document(docs.docID(), fields);
+      final String type = doc.get(TripleIndex.FIELD_NAME_OBJECT_URI);
+      if ((type == null) || type.contains("wordnet") || type.contains("wikicategory")) {
+        continue;
+      }
+      final int entityId = dictionary.find(doc.get(TripleIndex.FIELD_NAME_SUBJECT));
+      final int typeId = dictionary.find(type);
+      if ((entityId == UriDictionary.NO_ID) || (typeId == UriDictionary.NO_ID)) {
+        continue;
+      }
+      entities.add(entityId);
+      entityTypes.add(typeId);
+      if (type.startsWith(DBPEDIA_TYPE_PREFIX) && !type.equals(THING_TYPE)) {
+        ontologyTypes.set(typeId);
+      }
+    }
+
+    // Group by entity, then sort and de-duplicate every row.
+    final int[] offsets = new int[size + 1];
+    for (int i = 0; i < entities.size(); i++) {
+      offsets[entities.get(i) + 1]++;
+    }
+    for (int i = 0; i < size; i++) {
+      offsets[i + 1] += offsets[i];
+    }
+    final int[] next = Arrays.copyOf(offsets, size);
+    final int[] grouped = new int[entities.size()];
+    for (int i = 0; i < entities.size(); i++) {
+      grouped[next[entities.get(i)]++] = entityTypes.get(i);
+    }
+    final IntArrayList sorted = new IntArrayList(grouped.length);
+    final int[] compactOffsets = new int[size + 1];
+    for (int i = 0; i < size; i++) {
+      Arrays.sort(grouped, offsets[i], offsets[i + 1]);
+      for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+        if ((j == offsets[i]) || (grouped[j] != grouped[j - 1])) {
+          sorted.add(grouped[j]);
+        }
+      }
+      compactOffsets[i + 1] = sorted.size();
+    }
+
+    try (DataOutputStream out = Sidecar.create(file, _MAGIC, _VERSION, buildId)) {
+      out.writeInt(size);
+      out.writeInt(sorted.size());
+      for (final int offset : compactOffsets) {
+        out.writeInt(offset);
+      }
+      for (int i = 0; i < sorted.size(); i++) {
+        out.writeInt(sorted.get(i));
+      }
+      final long[] bits = ontologyTypes.getBits();
+      for (int i = 0; i < ((size + 63) / 64); i++) {
+        out.writeLong(bits[i]);
+      }
+    }
+    LOGGER.info("Wrote {} entity types to {}", sorted.size(), file);
+    return sorted.size();
+  }
+}
@@ -0,0 +1,233 @@
+package org.aksw.agdistis.util;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aksw.agdistis.AGDISTISConfiguration;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.BytesRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Bidirectional mapping between the URIs of the knowledge graph and dense integer ids.
+ * <p>
+ * The dictionary is built from the terms of the URI-valued fields of the triple index ({@link #build}), so it holds
+ * every subject, predicate and URI object. URIs are stored in byte order, so the id of a URI is its rank and the
+ * lookup URI &rarr; id is a binary search over the memory-mapped file, while id &rarr; URI is a single offset lookup.
+ * <p>
+ * URIs that are not in the file (or all URIs, if the index was built without a dictionary) receive ids greater or
+ * equal to {@link #size()} from an on-heap overflow table. Overflow ids are kept for the lifetime of the dictionary,
+ * so an id always denotes the same URI and a URI always has the same id, but they are not persisted. The table only
+ * holds URIs that were looked up, a warning suggests to rebuild the index once it exceeds
+ * {@link AGDISTISConfiguration#getUriOverflowWarningSize()} URIs.
+ * <p>
+ * File layout: <code>magic, version, N, offsets[N + 1], utf8 bytes</code>.
+ */
+public class UriDictionary {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(UriDictionary.class);
+
+  private static final int _MAGIC = 0x41474449; // "AGDI"
+  private static final int _VERSION = 2;
+
+  public static final int NO_ID = -1;
+
+  private final int size;
+  private final IntBuffer offsets;
+  private final ByteBuffer bytes;
+
+  private final Map<String, Integer> overflowIds = new ConcurrentHashMap<>();
+  private final Map<Integer, String> overflowUris = new ConcurrentHashMap<>();
+  // negative once every int is taken
+  private final AtomicInteger nextOverflowId;
+  private final int warningSize;
+
+  private UriDictionary(final int size, final IntBuffer offsets, final ByteBuffer bytes) {
+    this.size = size;
+    this.offsets = offsets;
+    this.bytes = bytes;
+    nextOverflowId = new AtomicInteger(size);
+    warningSize = AGDISTISConfiguration.INSTANCE.getUriOverflowWarningSize();
+  }
+
+  /**
+   * @return a dictionary without entries, every URI is assigned an overflow id on first use.
+   */
+  public static UriDictionary empty() {
+    return new UriDictionary(0, IntBuffer.allocate(1), ByteBuffer.allocate(0));
+  }
+
+  /**
+   * Loads the dictionary from the given file. If the file does not exist, an empty dictionary is returned and every
+   * URI is assigned an overflow id on first use.
+   */
+  public static UriDictionary open(final Path file, final long buildId) throws IOException {
+    final ByteBuffer buffer = Sidecar.map(file);
+    if (buffer == null) {
+      LOGGER.warn("No URI dictionary found at {}. URI ids will be assigned on the fly.", file);
+      return empty();
+    }
+    Sidecar.checkHeader(buffer, _MAGIC, _VERSION, buildId, file);
+    final int size = buffer.getInt();
+    final int offsetsStart = buffer.position();
+    final int bytesStart = offsetsStart + ((size + 1) * 4);
+    final IntBuffer offsets = Sidecar.slice(buffer, offsetsStart, (size + 1) * 4).asIntBuffer();
+    final ByteBuffer bytes = Sidecar.slice(buffer, bytesStart, buffer.limit() - bytesStart);
+    LOGGER.info("Loaded {} URIs from {}", size, file);
+    return new UriDictionary(size, offsets, bytes);
+  }
+
+  /**
+   * @return the number of URIs stored in the dictionary file (excluding overflow ids).
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the id of the given URI. Unknown URIs are assigned a new overflow id.
+   */
+  public int getId(final String uri) {
+    final int id = find(uri);
+    if (id != NO_ID) {
+      return id;
+    }
+    return overflowIds.computeIfAbsent(uri, this::newOverflowId);
+  }
+
+  private int newOverflowId(final String uri) {
+    final int newId = nextOverflowId.getAndUpdate(next -> (next < 0) ? next : next + 1);
+    if (newId < 0) {
+      throw new IllegalStateException("No ids are left for the URIs missing from the URI dictionary. Please rebuild "
+          + "the index.");
+    }
+    overflowUris.put(newId, uri);
+    if ((newId - size) == warningSize) {
+      LOGGER.warn("More than {} URIs are missing from the URI dictionary and are kept on the heap. Please rebuild the "
+          + "index.", warningSize);
+    }
+    return newId;
+  }
+
+  /**
+   * @return the id of the given URI or {@link #NO_ID} if the URI is unknown. Never assigns new ids.
+   */
+  public int find(final String uri) {
+    if (size > 0) {
+      final byte[] key = uri.getBytes(StandardCharsets.UTF_8);
+      int low = 0;
+      int high = size - 1;
+      while (low <= high) {
+        final int mid = (low + high) >>> 1;
+        final int cmp = compare(mid, key);
+        if (cmp < 0) {
+          low = mid + 1;
+        } else if (cmp > 0) {
+          high = mid - 1;
+        } else {
+          return mid;
+        }
+      }
+    }
+    final Integer overflow = overflowIds.get(uri);
+    return overflow == null ? NO_ID : overflow;
+  }
+
+  /**
+   * @return the URI with the given id or <code>null</code> if the id is unknown.
+   */
+  public String getUri(final int id) {
+    if ((id >= 0) && (id < size)) {
+      final int start = offsets.get(id);
+      final byte[] utf8 = new byte[offsets.get(id + 1) - start];
+      for (int i = 0; i < utf8.length; i++) {
+        utf8[i] = bytes.get(start + i);
+      }
+      return new String(utf8, StandardCharsets.UTF_8);
+    }
+    return overflowUris.get(id);
+  }
+
+  // Compares the stored URI with the given key, byte-wise and unsigned (i.e., the order of Lucene terms).
+  private int compare(final int id, final byte[] key) {
+    final int start = offsets.get(id);
+    final int length = offsets.get(id + 1) - start;
+    final int common = Math.min(length, key.length);
+    for (int i = 0; i < common; i++) {
+      final int diff = (bytes.get(start + i) & 0xff) - (key[i] & 0xff);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return length - key.length;
+  }
+
+  /**
+   * Writes the dictionary of all terms of the given fields to <code>file</code>. The terms of each field are already
+   * sorted, so they are merged and de-duplicated in a single pass.
+   *
+   * @return the number of URIs written.
+   */
+  public static int build(final DirectoryReader reader, final Path file, final long buildId, final String... fields)
+      throws IOException {
+    final List<TermsEnum> enums = Lists.newArrayList();
+    for (final String field : fields) {
+      final Terms terms = MultiFields.getTerms(reader, field);
+      if (terms != null) {
+        enums.add(terms.iterator(null));
+      }
+    }
+    final BytesRef[] heads = new BytesRef[enums.size()];
+    for (int i = 0; i < heads.length; i++) {
+      heads[i] = enums.get(i).next();
+    }
+
+    final List<BytesRef> merged = Lists.newArrayList();
+    BytesRef last = null;
+    while (true) {
+      int min = -1;
+      for (int i = 0; i < heads.length; i++) {
+        if ((heads[i] != null) && ((min < 0) || (heads[i].compareTo(heads[min]) < 0))) {
+          min = i;
+        }
+      }
+      if (min < 0) {
+        break;
+      }
+      if ((last == null) || !last.bytesEquals(heads[min])) {
+        last = BytesRef.deepCopyOf(heads[min]);
+        merged.add(last);
+      }
+      heads[min] = enums.get(min).next();
+    }
+
+    try (DataOutputStream out = Sidecar.create(file, _MAGIC, _VERSION, buildId)) {
+      out.writeInt(merged.size());
+      int offset = 0;
+      out.writeInt(offset);
+      for (final BytesRef term : merged) {
+        offset += term.length;
+        out.writeInt(offset);
+      }
+      for (final BytesRef term : merged) {
+        out.write(term.bytes, term.offset, term.length);
+      }
+    }
+    LOGGER.info("Wrote {} URIs to {}", merged.size(), file);
+    return merged.size();
+  }
+}
@@ -0,0 +1,244 @@
+package org.aksw.agdistis;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aksw.agdistis.graph.BreadthFirstSearch;
+import org.aksw.agdistis.graph.DisambiguationGraph;
+import org.aksw.agdistis.graph.NeighbourhoodCache;
+import org.aksw.agdistis.graph.Node;
+import org.aksw.agdistis.util.TripleIndex;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class BreadthFirstSearchTest {
+
+  private static final String _NODE_TYPE = AGDISTISConfiguration.INSTANCE.getNodeType().toString();
+  private static final String _EDGE_TYPE = AGDISTISConfiguration.INSTANCE.getEdgeType().toString();
+  // the outgoing edges of A, in index order, and the in-degree (prior) of their targets
+  private static final String[] _TARGETS = { "T1", "T2", "T3", "T4", "T5", "T6" };
+  private static final int[] _PRIORS = { 1, 2, 4, 2, 3, 1 };
+  // the long path from C1 to S and the short one from C2, for spreading activation
+  private static final String[][] _PATHS = { { "C1", "M1" }, { "M1", "M2" }, { "M2", "S" }, { "S", "U" },
+      { "U", "V" }, { "C2", "S" } };
+
+  private static TemporaryIndex temporary;
+  private static TripleIndex index;
+
+  private final int maxOutgoing = AGDISTISConfiguration.INSTANCE.getBfsMaxOutgoing();
+  private final int maxNodes = AGDISTISConfiguration.INSTANCE.getBfsMaxNodes();
+  private final int maxEdges = AGDISTISConfiguration.INSTANCE.getBfsMaxEdges();
+  private final int hubDegreeThreshold = AGDISTISConfiguration.INSTANCE.getHubDegreeThreshold();
+
+  @BeforeClass
+  public static void createIndex() throws IOException {
+    final List<String> statements = new ArrayList<String>();
+    for (final String target : _TARGETS) {
+      statements.add(edge("A", target));
+    }
+    // the other in-links of the targets come from X1, X2, ...
+    for (int i = 0; i < _TARGETS.length; i++) {
+      for (int j = 1; j < _PRIORS[i]; j++) {
+        statements.add(edge("X" + j, _TARGETS[i]));
+      }
+    }
+    for (final String[] path : _PATHS) {
+      statements.add(edge(path[0], path[1]));
+    }
+    temporary = new TemporaryIndex(statements);
+    index = new TripleIndex();
+  }
+
+  @AfterClass
+  public static void deleteIndex() throws IOException {
+    index.close();
+    temporary.close();
+  }
+
+  @After
+  public void restoreConfiguration() {
+    AGDISTISConfiguration.INSTANCE.setBfsMaxOutgoing(maxOutgoing);
+    AGDISTISConfiguration.INSTANCE.setBfsMaxNodes(maxNodes);
+    AGDISTISConfiguration.INSTANCE.setBfsMaxEdges(maxEdges);
+    AGDISTISConfiguration.INSTANCE.setHubDegreeThreshold(hubDegreeThreshold);
+  }
+
+  @Test
+  public void topByPrior() throws IOException {
+    AGDISTISConfiguration.INSTANCE.setBfsMaxOutgoing(3);
+    assertEquals("[A, T3, T5, T2]", expand(_EDGE_TYPE).toString());
+    // T2 and T4 tie, the earlier edge is kept first
+    AGDISTISConfiguration.INSTANCE.setBfsMaxOutgoing(4);
+    assertEquals("[A, T3, T5, T2, T4]", expand(_EDGE_TYPE).toString());
+    // the same from the triples, as the adjacency does not cover the edge type
+    assertEquals("[A, T3, T5, T2, T4]", expand("http://dbpedia.org/").toString());
+    // all edges in index order if they fit
+    AGDISTISConfiguration.INSTANCE.setBfsMaxOutgoing(6);
+    assertEquals("[A, T1, T2, T3, T4, T5, T6]", expand(_EDGE_TYPE).toString());
+  }
+
+  @Test
+  public void budgets() throws IOException {
+    AGDISTISConfiguration.INSTANCE.setBfsMaxOutgoing(3);
+    AGDISTISConfiguration.INSTANCE.setBfsMaxNodes(3);
+    DisambiguationGraph graph = new DisambiguationGraph(index::getUri);
+    assertEquals("[A, T3, T5]", expand(graph, _EDGE_TYPE).toString());
+    assertEquals(2, graph.getEdgeCount());
+
+    AGDISTISConfiguration.INSTANCE.setBfsMaxNodes(0);
+    AGDISTISConfiguration.INSTANCE.setBfsMaxEdges(1);
+    graph = new DisambiguationGraph(index::getUri);
+    assertEquals("[A, T3]", expand(graph, _EDGE_TYPE).toString());
+    assertEquals(1, graph.getEdgeCount());
+  }
+
+  @Test
+  public void hubDownWeighting() throws IOException {
+    AGDISTISConfiguration.INSTANCE.setBfsMaxOutgoing(6);
+    final DisambiguationGraph unweighted = new DisambiguationGraph(index::getUri);
+    expand(unweighted, _EDGE_TYPE);
+    AGDISTISConfiguration.INSTANCE.setHubDegreeThreshold(2);
+    final DisambiguationGraph weighted = new DisambiguationGraph(index::getUri);
+    expand(weighted, _EDGE_TYPE);
+
+    // both graphs have the nodes in the same order, A and then the targets
+    for (int i = 0; i < _TARGETS.length; i++) {
+      final Node expected = unweighted.getNode(i + 1);
+      final Node actual = weighted.getNode(i + 1);
+      assertEquals(_TARGETS[i], name(actual));
+      // targets above the threshold are scaled by threshold / prior, computed in float
+      final double factor = (_PRIORS[i] > 2) ? (2.0 / _PRIORS[i]) : 1;
+      assertEquals(expected.getAuthorityWeightForCalculation() * factor, actual.getAuthorityWeightForCalculation(),
+          1e-6);
+      assertEquals(expected.getHubWeightForCalculation() * factor, actual.getHubWeightForCalculation(), 1e-6);
+    }
+  }
+
+  @Test
+  public void neighbourhoodCacheCounts() throws IOException {
+    final NeighbourhoodCache cache = new NeighbourhoodCache(1000);
+    // A and its six targets are looked up, the targets at the second level
+    BreadthFirstSearch bfs = new BreadthFirstSearch(index, Algorithm.HITS, null, cache);
+    DisambiguationGraph graph = new DisambiguationGraph(index::getUri);
+    graph.addCandidate(new Node(_NODE_TYPE + "A", 1, 0, Algorithm.HITS), 0);
+    bfs.run(2, graph, _EDGE_TYPE, _NODE_TYPE);
+    assertEquals(0, bfs.getNeighbourhoodCacheHits());
+    assertEquals(7, bfs.getNeighbourhoodCacheMisses());
+
+    // the next document finds them all
+    bfs = new BreadthFirstSearch(index, Algorithm.HITS, null, cache);
+    graph = new DisambiguationGraph(index::getUri);
+    graph.addCandidate(new Node(_NODE_TYPE + "A", 1, 0, Algorithm.HITS), 0);
+    bfs.run(2, graph, _EDGE_TYPE, _NODE_TYPE);
+    assertEquals(7, bfs.getNeighbourhoodCacheHits());
+    assertEquals(0, bfs.getNeighbourhoodCacheMisses());
+
+    // nothing is counted without a cache
+    bfs = new BreadthFirstSearch(index, Algorithm.HITS);
+    graph = new DisambiguationGraph(index::getUri);
+    graph.addCandidate(new Node(_NODE_TYPE + "A", 1, 0, Algorithm.HITS), 0);
+    bfs.run(2, graph, _EDGE_TYPE, _NODE_TYPE);
+    assertEquals(0, bfs.getNeighbourhoodCacheHits() + bfs.getNeighbourhoodCacheMisses());
+  }
+
+  @Test
+  public void activationOrder() throws IOException {
+    final DisambiguationGraph graph = new DisambiguationGraph(index::getUri);
+    // the most activated node first: C2 is expanded after M2, and reaches S by a shorter path, which lets S be
+    // expanded below the depth limit
+    assertEquals("[C1, C2, M1, M2, S, U, V]", spread(graph, 0.2, 3, 0.5, 0.01).toString());
+    assertEquals(6, graph.getEdgeCount());
+    assertLevels(graph, "[0, 0, 1, 2, 1, 2, 3]");
+    assertActivations(graph, 1, 0.2, 0.5, 0.25, 0.125, 0.0625, 0.03125);
+  }
+
+  @Test
+  public void activationDecay() throws IOException {
+    final DisambiguationGraph graph = new DisambiguationGraph(index::getUri);
+    assertEquals("[C1, C2, M1, M2, S, U, V]", spread(graph, 0.2, 3, 0.8, 0.01).toString());
+    // S is reached from M2 with 0.512 before C2 passes on 0.16
+    assertActivations(graph, 1, 0.2, 0.8, 0.64, 0.512, 0.4096, 0.32768);
+  }
+
+  @Test
+  public void activationLevels() throws IOException {
+    // S is expanded at level 3 before C2 lowers it to 1, so it is expanded again, which lowers U and lets U reach V
+    final DisambiguationGraph graph = new DisambiguationGraph(index::getUri);
+    assertEquals("[C1, C2, M1, M2, S, U, V]", spread(graph, 0.1, 4, 0.5, 0.01).toString());
+    assertLevels(graph, "[0, 0, 1, 2, 1, 2, 3]");
+    // the second expansion of S adds no edge
+    assertEquals(6, graph.getEdgeCount());
+  }
+
+  @Test
+  public void activationStops() throws IOException {
+    // M2 passes on less than the threshold
+    DisambiguationGraph graph = new DisambiguationGraph(index::getUri);
+    assertEquals("[C1, C2, M1, M2]", spread(graph, 0.2, 3, 0.5, 0.3).toString());
+    // C2 is still expanded, S is then below the threshold
+    graph = new DisambiguationGraph(index::getUri);
+    assertEquals("[C1, C2, M1, M2, S]", spread(graph, 0.2, 3, 0.5, 0.2).toString());
+    assertLevels(graph, "[0, 0, 1, 2, 1]");
+    // the edge budget
+    AGDISTISConfiguration.INSTANCE.setBfsMaxEdges(2);
+    graph = new DisambiguationGraph(index::getUri);
+    assertEquals("[C1, C2, M1, M2]", spread(graph, 0.2, 3, 0.5, 0.01).toString());
+    assertEquals(2, graph.getEdgeCount());
+  }
+
+  // Spreads activation from C1, with activation 1, and C2.
+  private List<String> spread(final DisambiguationGraph graph, final double activation, final int maxDepth,
+      final double decay, final double threshold) throws IOException {
+    graph.addCandidate(new Node(_NODE_TYPE + "C1", 1, 0, Algorithm.HITS), 0);
+    graph.addCandidate(new Node(_NODE_TYPE + "C2", activation, 0, Algorithm.HITS), 10);
+    new BreadthFirstSearch(index, Algorithm.HITS).runActivation(maxDepth, graph, _EDGE_TYPE, _NODE_TYPE, decay,
+        threshold);
+    return names(graph);
+  }
+
+  private static void assertLevels(final DisambiguationGraph graph, final String expected) {
+    final List<Integer> levels = new ArrayList<Integer>();
+    for (final Node node : graph.getVertices()) {
+      levels.add(node.getLevel());
+    }
+    assertEquals(expected, levels.toString());
+  }
+
+  private static void assertActivations(final DisambiguationGraph graph, final double... expected) {
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(name(graph.getNode(i)), expected[i], graph.getNode(i).getActivation(), 1e-9);
+    }
+  }
+
+  private List<String> expand(final String edgeType) throws IOException {
+    return expand(new DisambiguationGraph(index::getUri), edgeType);
+  }
+
+  // Expands A by one level, returns the names of the nodes in the order they were added.
+  private List<String> expand(final DisambiguationGraph graph, final String edgeType) throws IOException {
+    graph.addCandidate(new Node(_NODE_TYPE + "A", 1, 0, Algorithm.HITS), 0);
+    new BreadthFirstSearch(index, Algorithm.HITS).run(1, graph, edgeType, _NODE_TYPE);
+    return names(graph);
+  }
+
+  private static List<String> names(final DisambiguationGraph graph) {
+    final List<String> names = new ArrayList<String>();
+    for (final Node node : graph.getVertices()) {
+      names.add(name(node));
+    }
+    return names;
+  }
+
+  private static String name(final Node node) {
+    return node.getCandidateURI().substring(_NODE_TYPE.length());
+  }
+
+  private static String edge(final String source, final String target) {
+    return TemporaryIndex.statement(_NODE_TYPE + source, _EDGE_TYPE + "link", _NODE_TYPE + target);
+  }
+}
@@ -0,0 +1,94 @@
+package org.aksw.agdistis;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.aksw.agdistis.datatypes.AnchorDocument;
+import org.aksw.agdistis.util.CandidateSearcher;
+import org.aksw.agdistis.util.DocValueColumns;
+import org.aksw.agdistis.util.IndexCreator;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.junit.Test;
+
+public class CandidateSearcherTest {
+
+  @Test
+  public void inLinksOncePerEntity() throws IOException {
+    final Path mainIndexPath = AGDISTISConfiguration.INSTANCE.getMainIndexPath();
+    final Path directory = Files.createTempDirectory("agdistis");
+    try {
+      final Path ttl = directory.resolve("data.ttl");
+      Files.write(ttl, Arrays.asList(
+          TemporaryIndex.literal("http://dbpedia.org/resource/Berlin", "http://www.w3.org/2000/01/rdf-schema#label",
+              "Berlin"),
+          TemporaryIndex.statement("http://dbpedia.org/resource/Berlin", "http://dbpedia.org/ontology/country",
+              "http://dbpedia.org/resource/Germany"),
+          TemporaryIndex.literal("http://dbpedia.org/resource/Paris", "http://www.w3.org/2000/01/rdf-schema#label",
+              "Paris")), StandardCharsets.UTF_8);
+      // the titles start after "resource"
+      final Path pageIds = directory.resolve("pageIds.tsv");
+      Files.write(pageIds, Arrays.asList("1\t/Berlin\tLOC", "2\t/Paris\tLOC"), StandardCharsets.UTF_8);
+      final Path anchorTexts = directory.resolve("anchorTexts.tsv");
+      Files.write(anchorTexts, Collections.singletonList("2\tBerlin\t1\t2"), StandardCharsets.UTF_8);
+      final Path pageRanks = directory.resolve("pageRanks.tsv");
+      Files.write(pageRanks, Arrays.asList("1\t0.5", "2\t0.25"), StandardCharsets.UTF_8);
+      final Path inLinks = directory.resolve("inLinks.txt");
+      Files.write(inLinks, Arrays.asList("1 2 3 4", "2 1"), StandardCharsets.UTF_8);
+
+      final Path index = directory.resolve("index");
+      final IndexCreator creator = new IndexCreator();
+      creator.createIndex(Collections.singletonList(ttl.toFile()), index.toString(), "http://dbpedia.org/resource/",
+          pageIds.toString(), anchorTexts.toString(), pageRanks.toString(), inLinks.toString());
+      creator.close();
+
+      // the inlinks are written once per entity
+      try (Directory lucene = new MMapDirectory(index.toFile());
+          DirectoryReader reader = DirectoryReader.open(lucene)) {
+        assertEquals(3, reader.numDocs());
+        final DocValueColumns columns = new DocValueColumns(reader);
+        int withInLinks = 0;
+        for (int doc = 0; doc < reader.maxDoc(); doc++) {
+          if (columns.getSortedInts(doc, CandidateSearcher.FIELD_NAME_INLINKSTRING) != null) {
+            withInLinks++;
+          }
+        }
+        assertEquals(2, withInLinks);
+      }
+
+      // every document of an entity has its inlinks
+      AGDISTISConfiguration.INSTANCE.setMainIndexPath(index);
+      final CandidateSearcher searcher = new CandidateSearcher();
+      try {
+        // the ids from 1 to 2
+        final List<AnchorDocument> triples = searcher.search(2, 10);
+        assertEquals(3, triples.size());
+        for (final AnchorDocument triple : triples) {
+          assertEquals((triple.id == 1) ? 3 : 1, triple.getInLinkBitmap().cardinality());
+        }
+      } finally {
+        searcher.close();
+      }
+    } finally {
+      AGDISTISConfiguration.INSTANCE.setMainIndexPath(mainIndexPath);
+      final List<Path> files;
+      try (Stream<Path> walk = Files.walk(directory)) {
+        files = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+      }
+      for (final Path file : files) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+}
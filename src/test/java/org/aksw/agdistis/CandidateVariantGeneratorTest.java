@@ -0,0 +1,36 @@
+package org.aksw.agdistis;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.aksw.agdistis.algorithm.CandidateVariantGenerator;
+import org.aksw.agdistis.algorithm.CandidateVariantGenerator.Variant;
+import org.junit.Test;
+
+public class CandidateVariantGeneratorTest {
+
+  private final CandidateVariantGenerator generator = new CandidateVariantGenerator();
+
+  @Test
+  public void order() {
+    final List<Variant> variants = generator.generate("FooBars", "Foo Bars Inc", "foobar");
+    assertEquals("[LABEL:FooBars, PLURAL:FooBar, CAMEL_CASE:Foo Bar, EXPANDED:Foo Bars Inc, STEM:foobar]",
+        variants.toString());
+    // the variants after the camel case split are compared against the split form
+    assertEquals("Foo Bar", variants.get(4).getSurfaceForm());
+    assertEquals("FooBar", variants.get(1).getSurfaceForm());
+  }
+
+  @Test
+  public void duplicates() {
+    // the genitive has no case change and equals the expansion, the stem is blank
+    final List<Variant> variants = generator.generate("Obama's", "Obama", "");
+    assertEquals("[LABEL:Obama's, GENITIVE:Obama]", variants.toString());
+    assertEquals("Obama", variants.get(variants.size() - 1).getSurfaceForm());
+
+    assertEquals("[LABEL:Berlin]", generator.generate("Berlin", "Berlin", null).toString());
+    assertEquals("[LABEL:New York, EXPANDED:New York City]",
+        generator.generate("New York", "New York City", " ").toString());
+  }
+}
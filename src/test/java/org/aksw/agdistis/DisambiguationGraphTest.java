@@ -0,0 +1,190 @@
+package org.aksw.agdistis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.aksw.agdistis.graph.DisambiguationGraph;
+import org.aksw.agdistis.graph.HITS;
+import org.aksw.agdistis.graph.Node;
+import org.aksw.agdistis.graph.PageRank;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+
+public class DisambiguationGraphTest {
+
+  // source, target, predicate
+  private static final int[][] _EDGES = { { 0, 1, 0 }, { 0, 4, 1 }, { 0, 5, 1 }, { 4, 0, 0 }, { 5, 0, 2 },
+      { 1, 6, 2 }, { 1, 7, 0 }, { 6, 1, 1 }, { 2, 8, 0 }, { 8, 2, 0 }, { 3, 13, 1 }, { 13, 3, 2 }, { 3, 12, 0 },
+      { 12, 9, 1 }, { 12, 10, 1 }, { 10, 12, 0 }, { 13, 11, 2 }, { 7, 2, 0 }, { 7, 1, 1 }, { 4, 5, 0 },
+      { 5, 6, 1 }, { 0, 1, 2 } };
+  private static final String[] _PREDICATES = { "dbo:spouse", "dbo:birthPlace", "dbo:wikiPageWikiLink" };
+
+  @Test
+  public void hits() throws Exception {
+    final Node[] expected = nodes(Algorithm.HITS);
+    final Node[] actual = nodes(Algorithm.HITS);
+    final HITS hits = new HITS();
+    hits.runHits(jungGraph(expected), 20);
+    hits.runHits(disambiguationGraph(actual), 20);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i].getAuthorityWeight(), actual[i].getAuthorityWeight(), 1e-12);
+      assertEquals(expected[i].getHubWeight(), actual[i].getHubWeight(), 1e-12);
+      assertEquals(expected[i].getUnnormalizedAuthorityWeight(), actual[i].getUnnormalizedAuthorityWeight(), 1e-12);
+    }
+  }
+
+  @Test
+  public void hitsConvergence() throws Exception {
+    final Node[] expected = nodes(Algorithm.HITS);
+    final Node[] actual = nodes(Algorithm.HITS);
+    final HITS hits = new HITS();
+    assertEquals(200, hits.runHits(disambiguationGraph(expected), 200, 0));
+    final int iterations = hits.runHits(disambiguationGraph(actual), 200, 1e-9);
+    assertTrue(iterations < 200);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i].getAuthorityWeight(), actual[i].getAuthorityWeight(), 1e-8);
+      assertEquals(expected[i].getHubWeight(), actual[i].getHubWeight(), 1e-8);
+    }
+  }
+
+  @Test
+  public void restrictedHits() throws Exception {
+    final Node[] expected = nodes(Algorithm.HITS);
+    final Node[] actual = nodes(Algorithm.HITS);
+    final HITS hits = new HITS();
+    hits.restrictEdges(Sets.newHashSet("birthPlace"));
+    hits.runHits(jungGraph(expected), 20);
+    hits.runHits(disambiguationGraph(actual), 20);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i].getAuthorityWeight(), actual[i].getAuthorityWeight(), 1e-12);
+    }
+  }
+
+  @Test
+  public void pageRank() throws Exception {
+    final Node[] expected = nodes(Algorithm.PAGERANK);
+    final Node[] actual = nodes(Algorithm.PAGERANK);
+    final PageRank pageRank = new PageRank();
+    pageRank.runPr(jungGraph(expected), 50, 0.001);
+    pageRank.runPr(disambiguationGraph(actual), 50, 0.001);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i].getPageRank(), actual[i].getPageRank(), 1e-12);
+    }
+  }
+
+  @Test
+  public void parallelEdges() throws Exception {
+    final DisambiguationGraph graph = disambiguationGraph(nodes(Algorithm.HITS));
+    graph.freeze();
+    assertEquals(14, graph.getVertexCount());
+    assertEquals(_EDGES.length - 1, graph.getEdgeCount());
+    // the first edge from 0 to 1 is kept
+    for (int e = graph.outStart(0); e < graph.outEnd(0); e++) {
+      if (graph.target(e) == 1) {
+        assertEquals(0, graph.predicate(e));
+      }
+    }
+  }
+
+  @Test
+  public void rankCandidates() throws Exception {
+    final Node[] nodes = nodes(Algorithm.HITS);
+    final DisambiguationGraph graph = new DisambiguationGraph(p -> _PREDICATES[p]);
+    // nodes 0 to 3 are candidates of the mention at 0, nodes 2 and 3 also of the mention at 10
+    for (int i = 3; i >= 0; i--) {
+      graph.addCandidate(nodes[i], 0);
+    }
+    graph.addCandidate(nodes[3], 10);
+    graph.addCandidate(nodes[2], 10);
+    graph.addCandidate(nodes[2], 10);
+    for (final int[] edge : _EDGES) {
+      graph.addEdge(nodes[edge[0]], nodes[edge[1]], edge[2]);
+    }
+    new HITS().runHits(graph, 20);
+
+    final List<Node> sorted = new ArrayList<Node>(graph.getVertices());
+    Collections.sort(sorted);
+    sorted.retainAll(Arrays.asList(nodes).subList(0, 4));
+    assertEquals(sorted, graph.rankCandidates(0, 0));
+    assertEquals(sorted.subList(0, 2), graph.rankCandidates(0, 2));
+    assertEquals(sorted, graph.rankCandidates(0, 10));
+
+    final List<Node> ranked = graph.rankCandidates(10, 0);
+    assertEquals(2, ranked.size());
+    assertTrue(ranked.get(0).compareTo(ranked.get(1)) <= 0);
+    assertTrue(graph.rankCandidates(5, 0).isEmpty());
+  }
+
+  @Test
+  public void fixCandidate() throws Exception {
+    final Node[] nodes = nodes(Algorithm.HITS);
+    final DisambiguationGraph graph = new DisambiguationGraph(p -> _PREDICATES[p]);
+    // nodes 0 to 2 are candidates of the mention at 0, node 2 also of the mention at 10, node 3 of the mention at 20
+    for (int i = 0; i < 3; i++) {
+      graph.addCandidate(nodes[i], 0);
+    }
+    graph.addCandidate(nodes[2], 10);
+    graph.addCandidate(nodes[3], 20);
+
+    graph.fixCandidate(0, nodes[1]);
+    assertEquals(Arrays.asList(nodes[1]), graph.getCandidates(0));
+    assertEquals(Arrays.asList(nodes[2]), graph.getCandidates(10));
+    assertEquals(Arrays.asList(nodes[3]), graph.getCandidates(20));
+    // node 0 is dropped, node 2 stays as a candidate of the mention at 10
+    assertEquals(3, graph.getVertexCount());
+    assertEquals(-1, nodes[0].getGraphId());
+    assertTrue(!nodes[0].isCandidate() && !nodes[2].containsId(0));
+    for (int i = 0; i < graph.getVertexCount(); i++) {
+      assertEquals(i, graph.getNode(i).getGraphId());
+    }
+    assertEquals(Arrays.asList(nodes[1], nodes[2], nodes[3]), new ArrayList<Node>(graph.getVertices()));
+
+    graph.addEdge(nodes[1], nodes[4], 0);
+    try {
+      graph.fixCandidate(10, nodes[2]);
+      fail();
+    } catch (final IllegalStateException e) {
+      // expected
+    }
+  }
+
+  private static Node[] nodes(final Algorithm algorithm) throws IOException {
+    final Node[] nodes = new Node[14];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = new Node("dbpedia:Node_" + i, 0, (i < 4) ? 0 : 1, algorithm);
+    }
+    return nodes;
+  }
+
+  private static DirectedSparseGraph<Node, String> jungGraph(final Node[] nodes) {
+    final DirectedSparseGraph<Node, String> graph = new DirectedSparseGraph<Node, String>();
+    for (final Node node : nodes) {
+      graph.addVertex(node);
+    }
+    for (final int[] edge : _EDGES) {
+      graph.addEdge(graph.getEdgeCount() + ";" + _PREDICATES[edge[2]], nodes[edge[0]], nodes[edge[1]]);
+    }
+    return graph;
+  }
+
+  private static DisambiguationGraph disambiguationGraph(final Node[] nodes) {
+    final DisambiguationGraph graph = new DisambiguationGraph(p -> _PREDICATES[p]);
+    for (final Node node : nodes) {
+      graph.addVertex(node);
+    }
+    for (final int[] edge : _EDGES) {
+      graph.addEdge(nodes[edge[0]], nodes[edge[1]], edge[2]);
+    }
+    return graph;
+  }
+}
@@ -0,0 +1,68 @@
+package org.aksw.agdistis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.aksw.agdistis.util.InlinkBitmap;
+import org.junit.Test;
+
+public class InlinkBitmapTest {
+
+  @Test
+  public void intersection() {
+    final Random random = new Random(42);
+    // sparse groups, a dense group and values spread over many groups
+    final int[] a = randomSet(random, 3000, 1 << 16, 0);
+    final int[] b = randomSet(random, 20000, 1 << 16, 0);
+    final int[] c = randomSet(random, 5000, 1 << 24, 1 << 16);
+    final int[] d = concat(b, randomSet(random, 5000, 1 << 24, 1 << 16));
+
+    final int[][] sets = { a, b, c, d, new int[0] };
+    for (final int[] x : sets) {
+      for (final int[] y : sets) {
+        assertEquals(naiveIntersection(x, y), InlinkBitmap.of(x).andCardinality(InlinkBitmap.of(y)));
+      }
+    }
+    assertEquals(d.length, InlinkBitmap.of(d).cardinality());
+  }
+
+  @Test
+  public void contains() {
+    final InlinkBitmap bitmap = InlinkBitmap.of(new int[] { 1, 5, 70000, Integer.MAX_VALUE });
+    assertTrue(bitmap.contains(5));
+    assertTrue(bitmap.contains(70000));
+    assertTrue(bitmap.contains(Integer.MAX_VALUE));
+    assertFalse(bitmap.contains(4));
+    assertFalse(bitmap.contains(-1));
+  }
+
+  private static int[] randomSet(final Random random, final int size, final int range, final int offset) {
+    final TreeSet<Integer> values = new TreeSet<Integer>();
+    while (values.size() < size) {
+      values.add(offset + random.nextInt(range));
+    }
+    return values.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private static int[] concat(final int[] a, final int[] b) {
+    final TreeSet<Integer> values = new TreeSet<Integer>();
+    Arrays.stream(a).forEach(values::add);
+    Arrays.stream(b).forEach(values::add);
+    return values.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private static int naiveIntersection(final int[] a, final int[] b) {
+    int common = 0;
+    for (final int value : a) {
+      if (Arrays.binarySearch(b, value) >= 0) {
+        common++;
+      }
+    }
+    return common;
+  }
+}
@@ -0,0 +1,41 @@
+package org.aksw.agdistis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.aksw.agdistis.util.InlinkSketch;
+import org.junit.Test;
+
+public class InlinkSketchTest {
+
+  @Test
+  public void estimate() {
+    final Random random = new Random(7);
+    // 30000 and 50000 inlinks, 10000 of them in common
+    final int[] a = IntStream.range(0, 30000).map(i -> i * 3).toArray();
+    final int[] b = IntStream.concat(IntStream.range(0, 10000).map(i -> i * 3),
+        IntStream.range(0, 40000).map(i -> 100000 + (i * 7) + random.nextInt(7))).toArray();
+    final InlinkSketch sketchA = InlinkSketch.of(a, InlinkSketch.DEFAULT_SIZE);
+    final InlinkSketch sketchB = InlinkSketch.of(b, InlinkSketch.DEFAULT_SIZE);
+    assertEquals(30000, sketchA.cardinality());
+
+    final double error = InlinkSketch.standardError(sketchA, sketchB);
+    assertEquals(1 / 16d, error, 1e-9);
+    final double estimate = InlinkSketch.estimateIntersection(sketchA, sketchB);
+    // three standard errors
+    assertTrue("estimate " + estimate, Math.abs(estimate - 10000) <= (3 * error * 10000));
+  }
+
+  @Test
+  public void exactForSmallSets() {
+    final InlinkSketch a = InlinkSketch.of(new int[] { 1, 2, 3, 4, 5 }, InlinkSketch.DEFAULT_SIZE);
+    final InlinkSketch b = InlinkSketch.read(
+        InlinkSketch.of(new int[] { 4, 5, 6, Integer.MAX_VALUE }, InlinkSketch.DEFAULT_SIZE).toBytesRef());
+    assertEquals(0d, InlinkSketch.standardError(a, b), 0d);
+    assertEquals(2d, InlinkSketch.estimateIntersection(a, b), 0d);
+    assertEquals(4, b.cardinality());
+  }
+}
@@ -0,0 +1,93 @@
+package org.aksw.agdistis;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.aksw.agdistis.algorithm.CorporationAffixCleaner;
+import org.aksw.agdistis.algorithm.LabelNormalizer;
+import org.aksw.agdistis.util.PreprocessingNLP;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+public class LabelNormalizerTest {
+
+  private static final String[] _TOKENS = { "Apple", "apple", "APPLE", "Barack", "IBM", "Inc", "Inc.", "GmbH", "Co",
+      "co.", "two", "twenty", "nine", "hundred", "thousand", "million", "point", "Appointment", "oh", "a", "S\u00E3o",
+      "STRA\u00DFE", "stra\u00DFe", "#1", "3.5", "C++", "U.S.", "\uFB01" };
+  private static final String[] _SEPARATORS = { " ", " ", "  ", "\t", ",", ", ", "\u00A0", "\u200B", "_", "(", ")",
+      "\n", "\u0001", "\u001C", "" };
+
+  private final CorporationAffixCleaner cleaner;
+  private final LabelNormalizer normalizer;
+  private final PreprocessingNLP nlp = new PreprocessingNLP();
+
+  public LabelNormalizerTest() throws IOException {
+    cleaner = new CorporationAffixCleaner();
+    normalizer = new LabelNormalizer(cleaner.getCorporationAffixes());
+  }
+
+  @Test
+  public void examples() {
+    assertEquals("Apple", normalizer.normalize("  Apple,  Inc."));
+    // all upper case labels keep only their first capital
+    assertEquals("Barack obama", normalizer.normalize("BARACK OBAMA"));
+    assertEquals("Berlin", normalizer.normalize("berlin"));
+    assertEquals("IBM", normalizer.normalize("IBM"));
+    assertEquals("Us   army", normalizer.normalize("U.S. _ ARMY"));
+    assertEquals("Apple", normalizer.normalizeResource("http://dbpedia.org/resource/Apple_Inc."));
+    assertEquals("Paris Texas", normalizer.normalizeResource("http://dbpedia.org/resource/Paris_(Texas)"));
+    assertEquals("", normalizer.normalizeResource("http://example.org/Paris"));
+  }
+
+  @Test
+  public void legacyEquivalence() {
+    final Random random = new Random(42);
+    for (int i = 0; i < 20000; i++) {
+      final StringBuilder sb = new StringBuilder();
+      final int tokens = random.nextInt(5);
+      for (int t = 0; t < tokens; t++) {
+        sb.append(_SEPARATORS[random.nextInt(_SEPARATORS.length)]);
+        sb.append(_TOKENS[random.nextInt(_TOKENS.length)]);
+      }
+      if (random.nextBoolean()) {
+        sb.append(_SEPARATORS[random.nextInt(_SEPARATORS.length)]);
+      }
+      final String label = sb.toString();
+      assertEquals(label, legacy(label, false), normalized(label, false));
+      assertEquals(label, legacy(label, true), normalized(label, true));
+      final String uri = "http://dbpedia.org/resource/" + label;
+      assertEquals(uri, legacyResource(uri), normalizedResource(uri));
+    }
+  }
+
+  private String legacy(final String label, final boolean clean) {
+    try {
+      return nlp.preprocess(clean ? cleaner.cleanLabelsfromCorporationIdentifier(label) : label);
+    } catch (final RuntimeException e) {
+      return e.getClass().getName();
+    }
+  }
+
+  private String normalized(final String label, final boolean clean) {
+    try {
+      return clean ? normalizer.normalize(label) : normalizer.preprocess(label);
+    } catch (final RuntimeException e) {
+      return e.getClass().getName();
+    }
+  }
+
+  private String legacyResource(final String uri) {
+    return legacy(StringUtils.normalizeSpace(
+        StringUtils.replaceChars(StringUtils.substringAfter(uri, "resource/"), "_()", "   ")), true);
+  }
+
+  private String normalizedResource(final String uri) {
+    try {
+      return normalizer.normalizeResource(uri);
+    } catch (final RuntimeException e) {
+      return e.getClass().getName();
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package org.aksw.agdistis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.aksw.agdistis.graph.Node;
+import org.junit.Test;
+
+public class NodeTest {
+
+  @Test
+  public void identity() throws IOException {
+    // "Aa" and "BB" have the same hash code
+    final Node aa = new Node("dbr:Aa", 0, 0, Algorithm.HITS);
+    final Node bb = new Node("dbr:BB", 0, 0, Algorithm.HITS);
+    assertEquals(aa.hashCode(), bb.hashCode());
+    assertNotEquals(aa, bb);
+    assertEquals(aa, new Node("dbr:Aa", 1, 2, Algorithm.HITS));
+    assertNotEquals(aa, "dbr:Aa");
+  }
+
+  @Test
+  public void mentionIds() throws IOException {
+    final Node node = new Node("dbr:Berlin", 0, 0, Algorithm.HITS);
+    assertFalse(node.isCandidate());
+    assertArrayEquals(new int[0], node.getIds());
+    node.addId(10);
+    node.addId(3);
+    node.addId(10);
+    node.addId(42);
+    assertTrue(node.isCandidate());
+    assertTrue(node.containsId(3));
+    assertFalse(node.containsId(4));
+    assertArrayEquals(new int[] { 10, 3, 42 }, node.getIds());
+  }
+}
@@ -0,0 +1,92 @@
+package org.aksw.agdistis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.aksw.agdistis.graph.DisambiguationGraph;
+import org.aksw.agdistis.graph.Node;
+import org.aksw.agdistis.graph.PersonalizedPageRank;
+import org.junit.Test;
+
+public class PersonalizedPageRankTest {
+
+  // source, target; nodes 0 to 2 are candidates, 7 and 8 are not reachable from them
+  private static final int[][] _EDGES = { { 0, 3 }, { 1, 3 }, { 3, 0 }, { 3, 4 }, { 4, 1 }, { 2, 5 }, { 5, 6 },
+      { 6, 2 }, { 1, 6 }, { 7, 8 }, { 8, 0 }, { 4, 9 } };
+
+  @Test
+  public void matchesPowerIteration() throws IOException {
+    final Node[] nodes = nodes();
+    final PersonalizedPageRank ppr = new PersonalizedPageRank();
+    final int pushes = ppr.runPpr(graph(nodes), 1e-10);
+    assertTrue(pushes > 0);
+
+    final double[] expected = powerIteration(nodes.length, new int[] { 0, 1, 2 });
+    double sum = 0;
+    for (int i = 0; i < nodes.length; i++) {
+      assertEquals(expected[i], nodes[i].getPageRank(), 1e-7);
+      sum += nodes[i].getPageRank();
+    }
+    assertEquals(1, sum, 1e-7);
+    // no restarts at nodes that are not candidates
+    assertEquals(0, nodes[7].getPageRank(), 0);
+    assertEquals(0, nodes[8].getPageRank(), 0);
+  }
+
+  @Test
+  public void coarseEpsilonTouchesLess() throws IOException {
+    final PersonalizedPageRank ppr = new PersonalizedPageRank();
+    final int fine = ppr.runPpr(graph(nodes()), 1e-8);
+    final int coarse = ppr.runPpr(graph(nodes()), 1e-2);
+    assertTrue(coarse < fine);
+  }
+
+  private static Node[] nodes() throws IOException {
+    final Node[] nodes = new Node[10];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = new Node("dbpedia:Node_" + i, 0, (i < 3) ? 0 : 1, Algorithm.PERSONALIZED_PAGERANK);
+      if (i < 3) {
+        nodes[i].addId(i * 10);
+      }
+    }
+    return nodes;
+  }
+
+  private static DisambiguationGraph graph(final Node[] nodes) {
+    final DisambiguationGraph graph = new DisambiguationGraph(p -> null);
+    for (final Node node : nodes) {
+      graph.addVertex(node);
+    }
+    for (final int[] edge : _EDGES) {
+      graph.addEdge(nodes[edge[0]], nodes[edge[1]], 0);
+    }
+    return graph;
+  }
+
+  private static double[] powerIteration(final int n, final int[] seeds) {
+    final int[] outDegree = new int[n];
+    for (final int[] edge : _EDGES) {
+      outDegree[edge[0]]++;
+    }
+    double[] rank = new double[n];
+    for (int iter = 0; iter < 1000; iter++) {
+      final double[] next = new double[n];
+      double dangling = 0;
+      for (int i = 0; i < n; i++) {
+        if (outDegree[i] == 0) {
+          dangling += rank[i];
+        }
+      }
+      for (final int[] edge : _EDGES) {
+        next[edge[1]] += (0.85 * rank[edge[0]]) / outDegree[edge[0]];
+      }
+      for (final int seed : seeds) {
+        next[seed] += (0.15 + (0.85 * dangling)) / seeds.length;
+      }
+      rank = next;
+    }
+    return rank;
+  }
+}
@@ -0,0 +1,84 @@
+package org.aksw.agdistis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.aksw.agdistis.util.LabelIndex;
+import org.aksw.agdistis.util.Triple;
+import org.aksw.agdistis.util.TripleIndex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SearchLiteralsTest {
+
+  private static final String[] _WORDS = { "Bars", "bars", "Foo", "Baz", "Qux", "Quux", "Corge", "Grault" };
+
+  private TemporaryIndex temporary;
+
+  @Before
+  public void createIndex() throws IOException {
+    // many labels that differ only in length and repetitions, so that hits tie and are normed differently
+    final Random random = new Random(42);
+    final List<String> statements = new ArrayList<String>();
+    for (int i = 0; i < 3000; i++) {
+      final StringBuilder label = new StringBuilder();
+      for (int j = random.nextInt(4); j >= 0; j--) {
+        label.append(_WORDS[random.nextInt(_WORDS.length)]).append(' ');
+      }
+      statements.add(TemporaryIndex.literal("http://dbpedia.org/resource/E" + i, LabelIndex.LABEL_PREDICATE, label
+          .toString().trim()));
+    }
+    temporary = new TemporaryIndex(statements);
+  }
+
+  @After
+  public void deleteIndex() throws IOException {
+    temporary.close();
+  }
+
+  @Test
+  public void sameAsSearch() throws IOException {
+    final List<String> literals = Arrays.asList("Bars", "Foo Bars", "Baz Qux Quux", "Missing", "bars", "",
+        "Corge Grault", "Foo Missing");
+
+    for (final int max : new int[] { 250, 10, 3 }) {
+      // separate indexes, so that neither sees the cache of the other
+      final TripleIndex batch = new TripleIndex();
+      final TripleIndex single = new TripleIndex();
+      final TripleIndex probe = new TripleIndex();
+      try {
+        final List<List<Triple>> found = batch.searchLiterals(LabelIndex.LABEL_PREDICATE, literals, max);
+        final boolean[] matching = probe.matchingLiterals(LabelIndex.LABEL_PREDICATE, literals, max);
+        assertEquals(literals.size(), found.size());
+        // a blank literal has no object restriction, its search would return every label
+        assertTrue(found.get(5).isEmpty());
+        assertFalse(matching[5]);
+        for (int i = 0; i < literals.size(); i++) {
+          if (literals.get(i).isEmpty()) {
+            continue;
+          }
+          final List<Triple> expected = single.search(null, LabelIndex.LABEL_PREDICATE, literals.get(i), max);
+          assertEquals(literals.get(i) + "@" + max, expected, found.get(i));
+          assertEquals(literals.get(i) + "@" + max, !expected.isEmpty(), matching[i]);
+          // and the cache of the batch holds the same
+          assertEquals(expected, batch.search(null, LabelIndex.LABEL_PREDICATE, literals.get(i), max));
+        }
+        assertEquals(Math.min(max, 250), found.get(0).size());
+        assertTrue(found.get(3).isEmpty());
+        assertFalse(matching[3]);
+      } finally {
+        batch.close();
+        single.close();
+        probe.close();
+      }
+    }
+  }
+}
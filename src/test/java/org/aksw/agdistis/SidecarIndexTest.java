@@ -0,0 +1,380 @@
+package org.aksw.agdistis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import org.aksw.agdistis.algorithm.LabelNormalizer;
+import org.aksw.agdistis.util.AdjacencyIndex;
+import org.aksw.agdistis.util.DocValueColumns;
+import org.aksw.agdistis.util.EntityPriors;
+import org.aksw.agdistis.util.LabelIndex;
+import org.aksw.agdistis.util.NormalizedLabels;
+import org.aksw.agdistis.util.RedirectResolver;
+import org.aksw.agdistis.util.Triple;
+import org.aksw.agdistis.util.TripleIndex;
+import org.aksw.agdistis.util.TypeIndex;
+import org.aksw.agdistis.util.UriDictionary;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoubleDocValuesField;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.Version;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+public class SidecarIndexTest {
+
+  private static final long _BUILD_ID = 42;
+
+  @Test
+  public void roundTrip() throws IOException {
+    final RAMDirectory directory = createIndex();
+
+    final Path file = Files.createTempFile("uri", ".dict");
+    try (DirectoryReader reader = DirectoryReader.open(directory)) {
+      final int size = UriDictionary.build(reader, file, _BUILD_ID, TripleIndex.FIELD_NAME_SUBJECT,
+          TripleIndex.FIELD_NAME_PREDICATE, TripleIndex.FIELD_NAME_OBJECT_URI);
+      // 5 resources, 3 classes and 5 predicates, duplicates across fields are merged.
+      assertEquals(13, size);
+
+      final UriDictionary dictionary = UriDictionary.open(file, _BUILD_ID);
+      assertEquals(13, dictionary.size());
+      for (int id = 0; id < size; id++) {
+        assertEquals(id, dictionary.getId(dictionary.getUri(id)));
+      }
+      assertEquals("http://dbpedia.org/resource/Zürich",
+          dictionary.getUri(dictionary.find("http://dbpedia.org/resource/Zürich")));
+
+      // unknown URIs get stable overflow ids
+      assertEquals(UriDictionary.NO_ID, dictionary.find("http://dbpedia.org/resource/Paris"));
+      final int overflow = dictionary.getId("http://dbpedia.org/resource/Paris");
+      assertTrue(overflow >= size);
+      assertEquals(overflow, dictionary.getId("http://dbpedia.org/resource/Paris"));
+      assertEquals("http://dbpedia.org/resource/Paris", dictionary.getUri(overflow));
+      assertNull(dictionary.getUri(overflow + 1));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void otherBuild() throws IOException {
+    final RAMDirectory directory = createIndex();
+
+    final Path file = Files.createTempFile("uri", ".dict");
+    try (DirectoryReader reader = DirectoryReader.open(directory)) {
+      UriDictionary.build(reader, file, _BUILD_ID, TripleIndex.FIELD_NAME_SUBJECT);
+      // a sidecar of another build of the index is rejected
+      UriDictionary.open(file, _BUILD_ID + 1);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void overflowIds() throws IOException {
+    final int warningSize = AGDISTISConfiguration.INSTANCE.getUriOverflowWarningSize();
+    AGDISTISConfiguration.INSTANCE.setUriOverflowWarningSize(2);
+    final Path directory = Files.createTempDirectory("uri");
+    try {
+      // without a file, every URI gets an overflow id
+      final UriDictionary dictionary = UriDictionary.open(directory.resolve("missing.dict"), _BUILD_ID);
+      final int paris = dictionary.getId("http://dbpedia.org/resource/Paris");
+      final int rome = dictionary.getId("http://dbpedia.org/resource/Rome");
+      final int oslo = dictionary.getId("http://dbpedia.org/resource/Oslo");
+      // beyond the warning size, the ids are kept
+      assertEquals(rome, dictionary.find("http://dbpedia.org/resource/Rome"));
+      assertEquals(rome, dictionary.getId("http://dbpedia.org/resource/Rome"));
+      assertEquals("http://dbpedia.org/resource/Paris", dictionary.getUri(paris));
+      assertEquals("http://dbpedia.org/resource/Rome", dictionary.getUri(rome));
+      assertEquals("http://dbpedia.org/resource/Oslo", dictionary.getUri(oslo));
+      assertEquals(3, Sets.newHashSet(paris, rome, oslo).size());
+    } finally {
+      AGDISTISConfiguration.INSTANCE.setUriOverflowWarningSize(warningSize);
+      Files.delete(directory);
+    }
+  }
+
+  @Test
+  public void adjacency() throws IOException {
+    final RAMDirectory directory = createIndex();
+    final Path dictFile = Files.createTempFile("uri", ".dict");
+    final Path csrFile = Files.createTempFile("edges", ".csr");
+    final Path priorFile = Files.createTempFile("entity", ".prior");
+    try (DirectoryReader reader = DirectoryReader.open(directory)) {
+      UriDictionary.build(reader, dictFile, _BUILD_ID, TripleIndex.FIELD_NAME_SUBJECT, TripleIndex.FIELD_NAME_PREDICATE,
+          TripleIndex.FIELD_NAME_OBJECT_URI);
+      final UriDictionary dictionary = UriDictionary.open(dictFile, _BUILD_ID);
+      // the type triple does not pass the edge type filter.
+      assertEquals(3, AdjacencyIndex.build(reader, dictionary, csrFile, _BUILD_ID, "http://dbpedia.org/ontology/",
+          "http://dbpedia.org/resource/"));
+
+      final AdjacencyIndex adjacency = AdjacencyIndex.open(csrFile, _BUILD_ID);
+      assertTrue(adjacency.covers("http://dbpedia.org/ontology/", "http://dbpedia.org/resource/"));
+      final int berlin = dictionary.find("http://dbpedia.org/resource/Berlin");
+      assertEquals(1, adjacency.degree(berlin));
+      final int edge = adjacency.start(berlin);
+      assertEquals("http://dbpedia.org/resource/Germany", dictionary.getUri(adjacency.target(edge)));
+      assertEquals("http://dbpedia.org/ontology/country", dictionary.getUri(adjacency.predicate(edge)));
+      assertEquals(0, adjacency.degree(dictionary.find("http://dbpedia.org/resource/Switzerland")));
+      assertEquals(0, adjacency.degree(dictionary.getId("http://dbpedia.org/resource/Paris")));
+
+      EntityPriors.build(adjacency, dictionary.size(), priorFile, _BUILD_ID);
+      final EntityPriors priors = EntityPriors.open(priorFile, _BUILD_ID);
+      final int[] top = priors.top(4);
+      assertEquals(4, top.length);
+      // the three targets of an edge come first
+      for (int i = 0; i < 3; i++) {
+        assertEquals(1f, priors.get(top[i]), 0f);
+      }
+      assertEquals(0f, priors.get(top[3]), 0f);
+      assertEquals(0, priors.top(0).length);
+    } finally {
+      Files.deleteIfExists(dictFile);
+      Files.deleteIfExists(csrFile);
+      Files.deleteIfExists(priorFile);
+    }
+  }
+
+  @Test
+  public void types() throws IOException {
+    final RAMDirectory directory = createIndex();
+    final Path dictFile = Files.createTempFile("uri", ".dict");
+    final Path typeFile = Files.createTempFile("types", ".csr");
+    try (DirectoryReader reader = DirectoryReader.open(directory)) {
+      UriDictionary.build(reader, dictFile, _BUILD_ID, TripleIndex.FIELD_NAME_SUBJECT, TripleIndex.FIELD_NAME_PREDICATE,
+          TripleIndex.FIELD_NAME_OBJECT_URI);
+      final UriDictionary dictionary = UriDictionary.open(dictFile, _BUILD_ID);
+      // the wordnet type is dropped.
+      assertEquals(2, TypeIndex.build(reader, dictionary, typeFile, _BUILD_ID));
+
+      final TypeIndex types = TypeIndex.open(typeFile, _BUILD_ID);
+      final int berlin = dictionary.find("http://dbpedia.org/resource/Berlin");
+      final int city = dictionary.find("http://dbpedia.org/ontology/City");
+      final int thing = dictionary.find(TypeIndex.THING_TYPE);
+      assertEquals(2, types.end(berlin) - types.start(berlin));
+      assertTrue(types.hasType(berlin, city));
+      assertTrue(types.hasType(berlin, thing));
+      assertFalse(types.hasType(dictionary.find("http://dbpedia.org/resource/Germany"), city));
+      assertTrue(types.isOntologyType(city));
+      assertFalse(types.isOntologyType(thing));
+    } finally {
+      Files.deleteIfExists(dictFile);
+      Files.deleteIfExists(typeFile);
+    }
+  }
+
+  @Test
+  public void labels() throws IOException {
+    final RAMDirectory directory = createIndex();
+    final Path dictFile = Files.createTempFile("uri", ".dict");
+    final Path fstFile = Files.createTempFile("labels", ".fst");
+    final Path postingsFile = Files.createTempFile("labels", ".post");
+    try (DirectoryReader reader = DirectoryReader.open(directory)) {
+      UriDictionary.build(reader, dictFile, _BUILD_ID, TripleIndex.FIELD_NAME_SUBJECT, TripleIndex.FIELD_NAME_PREDICATE,
+          TripleIndex.FIELD_NAME_OBJECT_URI);
+      final UriDictionary dictionary = UriDictionary.open(dictFile, _BUILD_ID);
+      assertEquals(2, LabelIndex.build(reader, dictionary, null, fstFile, postingsFile, _BUILD_ID));
+
+      final LabelIndex labels = LabelIndex.open(fstFile, postingsFile, _BUILD_ID, dictionary);
+      // normalization: case, diacritics and punctuation
+      final List<Triple> zurich = labels.search("ZURICH!", false, 10);
+      assertEquals(1, zurich.size());
+      assertEquals("http://dbpedia.org/resource/Zürich", zurich.get(0).getSubject());
+      assertEquals("Zürich", zurich.get(0).getObject());
+      // alternative labels only on request
+      assertEquals(1, labels.search("berlin", false, 10).size());
+      assertEquals(2, labels.search("berlin", true, 10).size());
+      assertEquals(LabelIndex.ALT_LABEL_PREDICATE, labels.search("berlin", true, 10).get(1).getPredicate());
+      // exact matches only
+      assertTrue(labels.search("berlin city", true, 10).isEmpty());
+      // the first label of an entity, without a search
+      final int berlin = dictionary.find("http://dbpedia.org/resource/Berlin");
+      final Triple label = labels.firstLabel(berlin, LabelIndex.LABEL_PREDICATE).get();
+      assertEquals("http://dbpedia.org/resource/Berlin", label.getSubject());
+      assertEquals("Berlin", label.getObject());
+      assertEquals(LabelIndex.ALT_LABEL_PREDICATE, labels.firstLabel(dictionary.find(
+          "http://dbpedia.org/resource/Berlin_(band)"), LabelIndex.ALT_LABEL_PREDICATE).get().getPredicate());
+      assertFalse(labels.firstLabel(berlin, LabelIndex.ALT_LABEL_PREDICATE).isPresent());
+      // other predicates are left to the triple index
+      assertNull(labels.firstLabel(berlin, TypeIndex.TYPE_PREDICATE));
+    } finally {
+      Files.deleteIfExists(dictFile);
+      Files.deleteIfExists(fstFile);
+      Files.deleteIfExists(postingsFile);
+    }
+  }
+
+  @Test
+  public void normalizedLabels() throws IOException {
+    final RAMDirectory directory = createIndex();
+    final Path dictFile = Files.createTempFile("uri", ".dict");
+    final Path labelFile = Files.createTempFile("labels", ".norm");
+    try (DirectoryReader reader = DirectoryReader.open(directory)) {
+      UriDictionary.build(reader, dictFile, _BUILD_ID, TripleIndex.FIELD_NAME_SUBJECT, TripleIndex.FIELD_NAME_PREDICATE,
+          TripleIndex.FIELD_NAME_OBJECT_URI);
+      final UriDictionary dictionary = UriDictionary.open(dictFile, _BUILD_ID);
+      final LabelNormalizer normalizer = new LabelNormalizer(Collections.singleton("band"));
+      NormalizedLabels.build(dictionary, normalizer::normalizeResource, normalizer.getFingerprint(), labelFile,
+          _BUILD_ID);
+
+      final NormalizedLabels labels = NormalizedLabels.open(labelFile, _BUILD_ID);
+      assertEquals(normalizer.getFingerprint(), labels.getFingerprint());
+      assertEquals(dictionary.size(), labels.size());
+      for (int id = 0; id < dictionary.size(); id++) {
+        assertEquals(normalizer.normalizeResource(dictionary.getUri(id)), labels.getLabel(id));
+        assertEquals(labels.getLabel(id).toLowerCase(), labels.getLowerCase(id));
+      }
+      assertEquals("Berlin", labels.getLabel(dictionary.find("http://dbpedia.org/resource/Berlin_(band)")));
+      assertEquals("zürich", labels.getLowerCase(dictionary.find("http://dbpedia.org/resource/Zürich")));
+      // predicates have no resource label
+      assertEquals("", labels.getLabel(dictionary.find(TypeIndex.TYPE_PREDICATE)));
+      assertNull(labels.getLabel(dictionary.size()));
+      assertNull(labels.getLowerCase(UriDictionary.NO_ID));
+
+      // other affixes give other labels
+      assertNotEquals(normalizer.getFingerprint(), new LabelNormalizer(Collections.emptySet()).getFingerprint());
+    } finally {
+      Files.deleteIfExists(dictFile);
+      Files.deleteIfExists(labelFile);
+    }
+  }
+
+  @Test
+  public void redirects() throws IOException {
+    final RAMDirectory directory = new RAMDirectory();
+    final IndexWriter writer = new IndexWriter(directory,
+        new IndexWriterConfig(Version.LUCENE_4_9, new KeywordAnalyzer()));
+    addTriple(writer, "http://dbpedia.org/resource/A", RedirectResolver.REDIRECT_PREDICATE,
+        "http://dbpedia.org/resource/B");
+    addTriple(writer, "http://dbpedia.org/resource/B", RedirectResolver.REDIRECT_PREDICATE,
+        "http://dbpedia.org/resource/C");
+    addTriple(writer, "http://dbpedia.org/resource/D", RedirectResolver.REDIRECT_PREDICATE,
+        "http://dbpedia.org/resource/B");
+    addTriple(writer, "http://dbpedia.org/resource/D", RedirectResolver.REDIRECT_PREDICATE,
+        "http://dbpedia.org/resource/C_(disambiguation)");
+    addTriple(writer, "http://dbpedia.org/resource/C_(disambiguation)", RedirectResolver.DISAMBIGUATION_PREDICATE,
+        "http://dbpedia.org/resource/C");
+    writer.close();
+
+    final Path dictFile = Files.createTempFile("uri", ".dict");
+    final Path redirectFile = Files.createTempFile("redirects", ".bin");
+    try (DirectoryReader reader = DirectoryReader.open(directory)) {
+      UriDictionary.build(reader, dictFile, _BUILD_ID, TripleIndex.FIELD_NAME_SUBJECT, TripleIndex.FIELD_NAME_PREDICATE,
+          TripleIndex.FIELD_NAME_OBJECT_URI);
+      final UriDictionary dictionary = UriDictionary.open(dictFile, _BUILD_ID);
+      RedirectResolver.build(reader, dictionary, redirectFile, _BUILD_ID);
+
+      final RedirectResolver redirects = RedirectResolver.open(redirectFile, _BUILD_ID);
+      final int c = dictionary.find("http://dbpedia.org/resource/C");
+      // transitive
+      assertEquals(c, redirects.resolve(dictionary.find("http://dbpedia.org/resource/A")));
+      assertEquals(c, redirects.resolve(dictionary.find("http://dbpedia.org/resource/B")));
+      assertEquals(c, redirects.resolve(c));
+      // several redirects: the first one in index order is followed
+      assertEquals(c, redirects.resolve(dictionary.find("http://dbpedia.org/resource/D")));
+
+      assertTrue(redirects.isDisambiguation(dictionary.find("http://dbpedia.org/resource/C_(disambiguation)")));
+      assertFalse(redirects.isDisambiguation(c));
+    } finally {
+      Files.deleteIfExists(dictFile);
+      Files.deleteIfExists(redirectFile);
+    }
+  }
+
+  @Test
+  public void columns() throws IOException {
+    final RAMDirectory directory = new RAMDirectory();
+    final IndexWriter writer = new IndexWriter(directory,
+        new IndexWriterConfig(Version.LUCENE_4_9, new KeywordAnalyzer()));
+    Document doc = new Document();
+    DocValueColumns.addSorted(doc, TripleIndex.FIELD_NAME_SUBJECT, "http://dbpedia.org/resource/Berlin");
+    DocValueColumns.addBinary(doc, TripleIndex.FIELD_NAME_OBJECT_LITERAL, "Berlin");
+    doc.add(new DoubleDocValuesField("page_rank", 0.5));
+    DocValueColumns.addSortedInts(doc, "inlinks", new int[] { 1, 3, 200, 70000 });
+    writer.addDocument(doc);
+    // second segment
+    writer.commit();
+    doc = new Document();
+    DocValueColumns.addSorted(doc, TripleIndex.FIELD_NAME_SUBJECT, "http://dbpedia.org/resource/Zürich");
+    doc.add(new NumericDocValuesField("id", 42));
+    writer.addDocument(doc);
+    writer.close();
+
+    try (DirectoryReader reader = DirectoryReader.open(directory)) {
+      final DocValueColumns columns = new DocValueColumns(reader);
+      assertTrue(columns.covers(TripleIndex.FIELD_NAME_SUBJECT, "id"));
+      assertFalse(columns.covers(TripleIndex.FIELD_NAME_OBJECT_URI));
+
+      assertEquals("http://dbpedia.org/resource/Berlin", columns.getString(0, TripleIndex.FIELD_NAME_SUBJECT));
+      assertEquals("Berlin", columns.getBinary(0, TripleIndex.FIELD_NAME_OBJECT_LITERAL).utf8ToString());
+      assertEquals(0.5, columns.getDouble(0, "page_rank", 0d), 0d);
+      assertEquals(-1, columns.getLong(0, "id", -1));
+      assertArrayEquals(new int[] { 1, 3, 200, 70000 }, columns.getSortedInts(0, "inlinks"));
+
+      assertEquals("http://dbpedia.org/resource/Zürich", columns.getString(1, TripleIndex.FIELD_NAME_SUBJECT));
+      assertNull(columns.getBinary(1, TripleIndex.FIELD_NAME_OBJECT_LITERAL));
+      assertEquals(0d, columns.getDouble(1, "page_rank", 0d), 0d);
+      assertEquals(42, columns.getLong(1, "id", -1));
+      assertNull(columns.getSortedInts(1, "inlinks"));
+    }
+  }
+
+  private RAMDirectory createIndex() throws IOException {
+    final RAMDirectory directory = new RAMDirectory();
+    final IndexWriter writer = new IndexWriter(directory,
+        new IndexWriterConfig(Version.LUCENE_4_9, new KeywordAnalyzer()));
+    addTriple(writer, "http://dbpedia.org/resource/Berlin", "http://dbpedia.org/ontology/country",
+        "http://dbpedia.org/resource/Germany");
+    addTriple(writer, "http://dbpedia.org/resource/Germany", "http://dbpedia.org/ontology/capital",
+        "http://dbpedia.org/resource/Berlin");
+    addTriple(writer, "http://dbpedia.org/resource/Zürich", "http://dbpedia.org/ontology/country",
+        "http://dbpedia.org/resource/Switzerland");
+    addTriple(writer, "http://dbpedia.org/resource/Berlin", TypeIndex.TYPE_PREDICATE,
+        "http://dbpedia.org/ontology/City");
+    addTriple(writer, "http://dbpedia.org/resource/Berlin", TypeIndex.TYPE_PREDICATE, TypeIndex.THING_TYPE);
+    addTriple(writer, "http://dbpedia.org/resource/Berlin", TypeIndex.TYPE_PREDICATE,
+        "http://yago-knowledge.org/resource/wordnet_city_108524735");
+    addLabel(writer, "http://dbpedia.org/resource/Berlin", LabelIndex.LABEL_PREDICATE, "Berlin");
+    addLabel(writer, "http://dbpedia.org/resource/Berlin_(band)", LabelIndex.ALT_LABEL_PREDICATE, "Berlin");
+    addLabel(writer, "http://dbpedia.org/resource/Zürich", LabelIndex.LABEL_PREDICATE, "Zürich");
+    writer.close();
+    return directory;
+  }
+
+  private void addLabel(final IndexWriter writer, final String s, final String p, final String label)
+      throws IOException {
+    final Document doc = new Document();
+    doc.add(new StringField(TripleIndex.FIELD_NAME_SUBJECT, s, Store.YES));
+    doc.add(new StringField(TripleIndex.FIELD_NAME_PREDICATE, p, Store.YES));
+    doc.add(new TextField(TripleIndex.FIELD_NAME_OBJECT_LITERAL, label, Store.YES));
+    writer.addDocument(doc);
+  }
+
+  private void addTriple(final IndexWriter writer, final String s, final String p, final String o)
+      throws IOException {
+    final Document doc = new Document();
+    doc.add(new StringField(TripleIndex.FIELD_NAME_SUBJECT, s, Store.YES));
+    doc.add(new StringField(TripleIndex.FIELD_NAME_PREDICATE, p, Store.YES));
+    doc.add(new StringField(TripleIndex.FIELD_NAME_OBJECT_URI, o, Store.YES));
+    writer.addDocument(doc);
+  }
+}
@@ -0,0 +1,66 @@
+package org.aksw.agdistis;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.aksw.agdistis.util.Sidecar;
+import org.aksw.agdistis.util.TripleIndexCreator;
+
+/**
+ * A triple index and its sidecar files, built from a few Turtle statements into a temporary directory. The
+ * configuration points to it until it is closed.
+ */
+public class TemporaryIndex implements Closeable {
+
+  private final Path directory;
+  private final Path mainIndexPath;
+
+  public TemporaryIndex(final List<String> statements) throws IOException {
+    mainIndexPath = AGDISTISConfiguration.INSTANCE.getMainIndexPath();
+    directory = Files.createTempDirectory("agdistis");
+    final Path ttl = directory.resolve("data.ttl");
+    Files.write(ttl, statements, StandardCharsets.UTF_8);
+    final Path index = directory.resolve("index");
+    AGDISTISConfiguration.INSTANCE.setMainIndexPath(index);
+    final TripleIndexCreator creator = new TripleIndexCreator();
+    creator.createIndex(Collections.singletonList(ttl.toFile()), index.toString(), "http://dbpedia.org/resource/");
+    creator.close();
+    assertTrue(Files.isRegularFile(Sidecar.directory(index).resolve(Sidecar.URI_DICTIONARY_FILE)));
+  }
+
+  /**
+   * @return the statement <code>subject predicate object</code>, the object is a resource.
+   */
+  public static String statement(final String subject, final String predicate, final String object) {
+    return "<" + subject + "> <" + predicate + "> <" + object + "> .";
+  }
+
+  /**
+   * @return the statement <code>subject predicate "literal"</code>.
+   */
+  public static String literal(final String subject, final String predicate, final String literal) {
+    return "<" + subject + "> <" + predicate + "> \"" + literal + "\" .";
+  }
+
+  @Override
+  public void close() throws IOException {
+    AGDISTISConfiguration.INSTANCE.setMainIndexPath(mainIndexPath);
+    final List<Path> files;
+    try (Stream<Path> walk = Files.walk(directory)) {
+      files = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+    }
+    for (final Path file : files) {
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
@@ -147,4 +148,23 @@ public class TripleIndexTest {
         }
     }
 
+    @Test
+    public void testSearchSubjects() throws IOException {
+        List<String> subjects = Arrays.asList("http://dbpedia.org/resource/Barack_Obama",
+                "http://dbpedia.org/resource/Angelina_Jolie", "http://dbpedia.org/resource/Not_In_The_Index",
+                "http://dbpedia.org/resource/Barack_Obama");
+        // a second index, so that the batch does not read what the single searches cached
+        TripleIndex batchIndex = new TripleIndex();
+        try {
+            List<List<Triple>> batch = batchIndex.searchSubjects(subjects, 100);
+            assertEquals(subjects.size(), batch.size());
+            for (int i = 0; i < subjects.size(); i++) {
+                assertEquals(index.search(subjects.get(i), null, null, 100), batch.get(i));
+            }
+            assertTrue(batch.get(2).isEmpty());
+        } finally {
+            batchIndex.close();
+        }
+    }
+
 }
@@ -0,0 +1,207 @@
+package org.aksw.agdistis.algorithm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aksw.agdistis.AGDISTISConfiguration;
+import org.aksw.agdistis.TemporaryIndex;
+import org.aksw.agdistis.datatypes.Document;
+import org.aksw.agdistis.datatypes.NamedEntityInText;
+import org.aksw.agdistis.graph.DisambiguationGraph;
+import org.aksw.agdistis.graph.Node;
+import org.aksw.agdistis.util.LabelIndex;
+import org.aksw.agdistis.util.Triple;
+import org.aksw.agdistis.util.Utils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.cache.CacheStats;
+
+// In the package of CandidateUtil, to count the calls of its context search.
+public class CandidateUtilTest {
+
+  private static final String _NODE_TYPE = AGDISTISConfiguration.INSTANCE.getNodeType().toString();
+
+  private static TemporaryIndex temporary;
+
+  private final boolean useContext = AGDISTISConfiguration.INSTANCE.getUseContext();
+  private final boolean useAcronym = AGDISTISConfiguration.INSTANCE.getUseAcronym();
+  private final int candidateThreads = AGDISTISConfiguration.INSTANCE.getCandidateThreads();
+  private final boolean labelTokenMatches = AGDISTISConfiguration.INSTANCE.getLabelTokenMatches();
+
+  @BeforeClass
+  public static void createIndex() throws IOException {
+    temporary = new TemporaryIndex(Arrays.asList(label("Obama", "Obama"), label("Barack_Obama", "Barack Obama"),
+        label("Michelle_Obama", "Michelle Obama"), label("Berlin", "Berlin"), label("Paris", "Paris")));
+  }
+
+  @AfterClass
+  public static void deleteIndex() throws IOException {
+    temporary.close();
+  }
+
+  @After
+  public void restoreConfiguration() {
+    AGDISTISConfiguration.INSTANCE.setUseContext(useContext);
+    AGDISTISConfiguration.INSTANCE.setUseAcronym(useAcronym);
+    AGDISTISConfiguration.INSTANCE.setCandidateThreads(candidateThreads);
+    AGDISTISConfiguration.INSTANCE.setLabelTokenMatches(labelTokenMatches);
+  }
+
+  @Test
+  public void exactMatches() throws IOException {
+    AGDISTISConfiguration.INSTANCE.setLabelTokenMatches(false);
+    // the label dictionary answers on its own
+    assertEquals(Arrays.asList(_NODE_TYPE + "Obama"), obama());
+  }
+
+  @Test
+  public void exactAndTokenMatches() throws IOException {
+    AGDISTISConfiguration.INSTANCE.setLabelTokenMatches(true);
+    // the exact match first, then the labels that contain the mention
+    assertEquals(Arrays.asList(_NODE_TYPE + "Obama", _NODE_TYPE + "Barack_Obama", _NODE_TYPE + "Michelle_Obama"),
+        obama());
+  }
+
+  private static List<String> obama() throws IOException {
+    final CandidateUtil cu = new CandidateUtil();
+    try {
+      final DisambiguationGraph graph = new DisambiguationGraph(i -> null);
+      final Document document = Utils.documentFrom(Optional.of("test"), "Obama", new ArrayList<NamedEntityInText>(
+          Arrays.asList(new NamedEntityInText(0, 5, "Obama", null, "Obama"))));
+      cu.insertCandidatesIntoText(graph, document, 0, false, false);
+      return uris(graph.getCandidates(0));
+    } finally {
+      cu.close();
+    }
+  }
+
+  @Test
+  public void parallelLookups() throws IOException {
+    AGDISTISConfiguration.INSTANCE.setCandidateThreads(0);
+    final CandidateUtil sequential = new CandidateUtil();
+    AGDISTISConfiguration.INSTANCE.setCandidateThreads(4);
+    final CandidateUtil parallel = new CandidateUtil();
+    try {
+      for (final boolean heuristicExpansion : new boolean[] { false, true }) {
+        final DisambiguationGraph expected = insert(sequential, heuristicExpansion);
+        final DisambiguationGraph actual = insert(parallel, heuristicExpansion);
+        assertEquals(uris(expected.getVertices()), uris(actual.getVertices()));
+        assertFalse(expected.getVertices().isEmpty());
+        for (final int start : new int[] { 0, 13, 20, 28, 38 }) {
+          assertEquals(uris(expected.getCandidates(start)), uris(actual.getCandidates(start)));
+        }
+        // a mention that occurs twice has the same candidates
+        assertEquals(uris(expected.getCandidates(13)), uris(expected.getCandidates(38)));
+        assertFalse(expected.getCandidates(38).isEmpty());
+      }
+    } finally {
+      sequential.close();
+      parallel.close();
+    }
+  }
+
+  // "Barack Obama Obama, Berlin, Paris and Obama", with the mention "Obama" twice.
+  private static DisambiguationGraph insert(final CandidateUtil cu, final boolean heuristicExpansion)
+      throws IOException {
+    final List<NamedEntityInText> entities = new ArrayList<NamedEntityInText>();
+    entities.add(new NamedEntityInText(0, 12, "Barack Obama", null, "Barack Obama"));
+    entities.add(new NamedEntityInText(13, 5, "Obama", null, "Obama"));
+    entities.add(new NamedEntityInText(20, 6, "Berlin", null, "Berlin"));
+    entities.add(new NamedEntityInText(28, 5, "Paris", null, "Paris"));
+    entities.add(new NamedEntityInText(38, 5, "Obama", null, "Obama"));
+    final Document document = Utils.documentFrom(Optional.of("test"), "Barack Obama Obama, Berlin, Paris and Obama",
+        entities);
+    final DisambiguationGraph graph = new DisambiguationGraph(i -> null);
+    cu.insertCandidatesIntoText(graph, document, 0, heuristicExpansion, false);
+    return graph;
+  }
+
+  private static List<String> uris(final Collection<Node> nodes) {
+    final List<String> uris = new ArrayList<String>();
+    for (final Node node : nodes) {
+      uris.add(node.getCandidateURI());
+    }
+    return uris;
+  }
+
+  @Test
+  public void negativeCandidateCache() throws IOException {
+    final AtomicInteger acronymSearches = new AtomicInteger();
+    final AtomicInteger contextSearches = new AtomicInteger();
+    // the acronym search is the first step of the cascade, it is counted
+    AGDISTISConfiguration.INSTANCE.setUseAcronym(true);
+    final CandidateUtil cu = new CandidateUtil() {
+      @Override
+      public List<Triple> searchbyAcronym(final String label, final boolean searchInSurfaceFormsToo,
+          final String type) {
+        acronymSearches.incrementAndGet();
+        return super.searchbyAcronym(label, searchInSurfaceFormsToo, type);
+      }
+
+      @Override
+      ArrayList<Triple> searchCandidatesByContext(final String entities, final String label) {
+        contextSearches.incrementAndGet();
+        return new ArrayList<Triple>();
+      }
+    };
+    // the index by context is opened by the constructor, the context search is only counted
+    AGDISTISConfiguration.INSTANCE.setUseContext(true);
+    try {
+      // the first lookup runs the cascade, starting with the acronym
+      insert(cu, false, new NamedEntityInText(0, 3, "XYZ", null, "XYZ"));
+      assertStats(cu, 0, 1);
+      assertEquals(1, acronymSearches.get());
+      assertEquals(1, contextSearches.get());
+
+      // the second one skips the cascade, the context search depends on the document and still runs
+      insert(cu, false, new NamedEntityInText(0, 3, "XYZ", null, "XYZ"));
+      assertStats(cu, 1, 1);
+      assertEquals(1, acronymSearches.get());
+      assertEquals(2, contextSearches.get());
+
+      // with the alternative labels, the retry among the surface forms looks the mention up again
+      insert(cu, true, new NamedEntityInText(0, 3, "XYZ", null, "XYZ"));
+      assertStats(cu, 2, 2);
+      insert(cu, true, new NamedEntityInText(0, 3, "XYZ", null, "XYZ"));
+      assertStats(cu, 4, 2);
+      assertEquals(2, acronymSearches.get());
+
+      // keys that differ in the type or the stem are no hits
+      insert(cu, false, new NamedEntityInText(0, 3, "XYZ", "PER", "XYZ"));
+      assertStats(cu, 4, 3);
+      insert(cu, false, new NamedEntityInText(0, 3, "XYZ", null, "XYZ", "xyz"));
+      assertStats(cu, 4, 4);
+      assertEquals(4, acronymSearches.get());
+    } finally {
+      cu.close();
+    }
+  }
+
+  private static void insert(final CandidateUtil cu, final boolean useSurfaceForms, final NamedEntityInText... entities)
+      throws IOException {
+    final Document document = Utils.documentFrom(Optional.of("test"), "", new ArrayList<NamedEntityInText>(Arrays
+        .asList(entities)));
+    cu.insertCandidatesIntoText(new DisambiguationGraph(i -> null), document, 0.87, false, useSurfaceForms);
+  }
+
+  private static void assertStats(final CandidateUtil cu, final long hits, final long misses) {
+    final CacheStats stats = cu.getNegativeCandidateCacheStats();
+    assertEquals(hits, stats.hitCount());
+    assertEquals(misses, stats.missCount());
+  }
+
+  private static String label(final String entity, final String label) {
+    return TemporaryIndex.literal(_NODE_TYPE + entity, LabelIndex.LABEL_PREDICATE, label);
+  }
+}